@@ -23,7 +23,8 @@ public class SimulatorApplication {
             HttpServer server = HttpServer.create(new InetSocketAddress(PORT), 0);
             
             // Create context for API endpoints
-            server.createContext(CONTEXT_PATH, new SimulatorHttpHandler());
+            SimulatorHttpHandler apiHandler = new SimulatorHttpHandler();
+            server.createContext(CONTEXT_PATH, apiHandler);
             
             // Create context for static files (UI)
             server.createContext("/", new StaticFileHandler());
@@ -31,8 +32,16 @@ public class SimulatorApplication {
             // Set executor
             server.setExecutor(Executors.newFixedThreadPool(10));
             
-            // Start server
+            // Start server; on shutdown stop accepting requests, then close the data directories
             server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(1);
+                try {
+                    apiHandler.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close data directory: " + e.getMessage());
+                }
+            }));
             
             System.out.println("=".repeat(60));
             System.out.println("Camunda Design-Time Process Simulator");
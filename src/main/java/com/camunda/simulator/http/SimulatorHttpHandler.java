@@ -6,42 +6,79 @@ import com.camunda.simulator.model.SimulationResult;
 import com.camunda.simulator.model.TestScenario;
 import com.camunda.simulator.service.BpmnInputAnalyzer;
 import com.camunda.simulator.service.BpmnValidationRunner;
-import com.camunda.simulator.service.DMNEvaluator;
+import com.camunda.simulator.service.InputDistribution;
 import com.camunda.simulator.service.InputValidator;
-import com.camunda.simulator.service.FileManager;
+import com.camunda.simulator.service.MonteCarloSimulator;
 import com.camunda.simulator.service.ProcessEngine;
+import com.camunda.simulator.service.FileManager;
+import com.camunda.simulator.service.RuleEdit;
+import com.camunda.simulator.service.ScenarioGenerator;
+import com.camunda.simulator.service.Tracer;
+import com.camunda.simulator.service.WorkspaceEngine;
+import com.camunda.simulator.service.WorkspaceRegistry;
 import org.camunda.bpm.model.bpmn.Bpmn;
 import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * HTTP handler for simulator API endpoints.
  */
-public class SimulatorHttpHandler implements HttpHandler {
+public class SimulatorHttpHandler implements HttpHandler, Closeable {
     
-    private final ProcessEngine processEngine;
-    private final DMNEvaluator dmnEvaluator;
-    private final FileManager fileManager;
+    private final WorkspaceRegistry workspaces;
     private final ObjectMapper objectMapper;
     
-    public SimulatorHttpHandler() {
-        this.fileManager = new FileManager();
-        this.dmnEvaluator = new DMNEvaluator(fileManager);
-        this.processEngine = new ProcessEngine(fileManager, dmnEvaluator);
+    /**
+     * @throws IOException if the data directory given by -Dsimulator.data.dir cannot be opened
+     */
+    public SimulatorHttpHandler() throws IOException {
+        // -Dsimulator.data.dir=DIR keeps uploaded files in DIR across restarts
+        String dataDirectory = System.getProperty("simulator.data.dir");
+        // -Dsimulator.workspaces.maxWeight=BYTES bounds the estimated memory of the compiled engines held
+        long maxWeight = Long.getLong("simulator.workspaces.maxWeight", WorkspaceRegistry.DEFAULT_MAX_WEIGHT);
+        // -Dsimulator.dmn.parallel=true evaluates independent required decisions in parallel
+        // -Dsimulator.dmn.differential=N checks one in N materialized or generated-class evaluations against the engine
+        this.workspaces = new WorkspaceRegistry(dataDirectory != null ? Path.of(dataDirectory) : null, maxWeight,
+            WorkspaceRegistry.DEFAULT_RESULT_CACHE_WEIGHT,
+            Boolean.getBoolean("simulator.dmn.parallel") ? ForkJoinPool.commonPool() : null,
+            Integer.getInteger("simulator.dmn.differential", 0));
+        // Open the default workspace now, so a broken data directory fails startup
+        workspaces.engine(WorkspaceRegistry.DEFAULT_WORKSPACE);
         this.objectMapper = new ObjectMapper();
     }
     
+    /**
+     * Close the data directories of the open workspaces.
+     */
+    @Override
+    public void close() throws IOException {
+        workspaces.close();
+    }
+    
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         String method = exchange.getRequestMethod();
@@ -49,7 +86,7 @@ public class SimulatorHttpHandler implements HttpHandler {
         
         // Enable CORS
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PATCH, DELETE, OPTIONS");
         exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Content-Disposition");
         
         // Handle OPTIONS request (CORS preflight)
@@ -60,27 +97,84 @@ public class SimulatorHttpHandler implements HttpHandler {
         }
         
         try {
+            // /api/w/{workspace}/... addresses a workspace; plain /api/... the default one
+            String workspaceName = WorkspaceRegistry.DEFAULT_WORKSPACE;
+            boolean inWorkspace = path.startsWith("/api/w/");
+            if (inWorkspace) {
+                int end = path.indexOf('/', 7);
+                workspaceName = end < 0 ? path.substring(7) : path.substring(7, end);
+                path = "/api" + (end < 0 ? "" : path.substring(end));
+            }
+            if (path.equals("/api/workspaces") && "GET".equals(method)) {
+                handleGetWorkspaces(exchange);
+                return;
+            }
+            // The tracer records the executions of all workspaces, so it is served outside of them only
+            if (path.equals("/api/trace")) {
+                if (inWorkspace) {
+                    sendError(exchange, 404, "Not Found");
+                } else if ("GET".equals(method)) {
+                    handleGetTrace(exchange);
+                } else if ("POST".equals(method)) {
+                    handleSetTraceLevel(exchange);
+                } else {
+                    sendError(exchange, 404, "Not Found");
+                }
+                return;
+            }
+            if (!WorkspaceRegistry.isValidName(workspaceName)) {
+                sendError(exchange, 400, "Invalid workspace name: " + workspaceName);
+                return;
+            }
+            // Only storing a file creates a workspace; other requests need an existing one
+            boolean upload = (path.equals("/api/upload/bpmn") || path.equals("/api/upload/dmn")) && "POST".equals(method);
+            WorkspaceEngine engine;
+            try {
+                engine = upload ? workspaces.createEngine(workspaceName) : workspaces.engine(workspaceName);
+            } catch (NoSuchElementException e) {
+                sendError(exchange, 404, e.getMessage());
+                return;
+            }
+            
             // Route requests
             if (path.equals("/api/") || path.equals("/api")) {
                 handleRoot(exchange);
             } else if (path.equals("/api/simulate") && "POST".equals(method)) {
-                handleSimulate(exchange);
+                handleSimulate(exchange, engine);
+            } else if (path.equals("/api/simulate/batch") && "POST".equals(method)) {
+                handleSimulateBatch(exchange, engine);
+            } else if (path.equals("/api/simulate/montecarlo") && "POST".equals(method)) {
+                handleMonteCarlo(exchange, engine);
             } else if (path.equals("/api/scenarios") && "GET".equals(method)) {
                 handleGetScenarios(exchange);
             } else if (path.equals("/api/scenarios/validation") && "GET".equals(method)) {
                 handleGetValidationScenarios(exchange);
+            } else if (path.equals("/api/scenarios/generated") && "GET".equals(method)) {
+                handleGetGeneratedScenarios(exchange, engine);
             } else if (path.startsWith("/api/scenarios/") && path.endsWith("/run") && "POST".equals(method)) {
-                handleRunScenario(exchange, path);
+                handleRunScenario(exchange, engine, path);
             } else if (path.equals("/api/upload/bpmn") && "POST".equals(method)) {
-                handleUploadBpmn(exchange);
+                handleUploadBpmn(exchange, engine);
             } else if (path.equals("/api/upload/dmn") && "POST".equals(method)) {
-                handleUploadDmn(exchange);
+                handleUploadDmn(exchange, engine);
             } else if (path.equals("/api/files") && "GET".equals(method)) {
-                handleGetFiles(exchange);
+                handleGetFiles(exchange, engine);
+            } else if (path.matches("/api/files/(bpmn|dmn)/[^/]+/versions") && "GET".equals(method)) {
+                handleGetVersions(exchange, engine, path);
+            } else if (path.matches("/api/files/(bpmn|dmn)/[^/]+/rollback") && "POST".equals(method)) {
+                handleRollback(exchange, engine, path);
+            } else if (path.equals("/api/processes") && "GET".equals(method)) {
+                sendJsonResponse(exchange, 200, engine.getProcessEngine().getSnapshot().getProcesses());
             } else if (path.equals("/api/inputs") && "GET".equals(method)) {
-                handleGetInputs(exchange);
+                handleGetInputs(exchange, engine);
             } else if (path.equals("/api/validate") && "POST".equals(method)) {
-                handleValidate(exchange);
+                handleValidate(exchange, engine);
+            } else if (path.startsWith("/api/dmn/") && path.matches("/api/dmn/[^/]+/rules(/[^/]+)?")) {
+                handleRuleEdit(exchange, engine, method, path);
+            } else if (path.equals("/api/cache") && "GET".equals(method)) {
+                sendJsonResponse(exchange, 200, engine.getResultCache().getStats());
+            } else if (path.equals("/api/metrics/dmn") && "GET".equals(method)) {
+                sendJsonResponse(exchange, 200, engine.getDmnEvaluator().getMetrics());
             } else {
                 sendError(exchange, 404, "Not Found");
             }
@@ -90,6 +184,16 @@ public class SimulatorHttpHandler implements HttpHandler {
         }
     }
     
+    /**
+     * GET /api/workspaces: workspace names and the state of the compiled engine LRU.
+     */
+    private void handleGetWorkspaces(HttpExchange exchange) throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("workspaces", workspaces.getWorkspaceNames());
+        response.put("engines", workspaces.getStats());
+        sendJsonResponse(exchange, 200, response);
+    }
+    
     private void handleRoot(HttpExchange exchange) throws IOException {
         Map<String, String> response = new HashMap<>();
         response.put("name", "Camunda Design-Time Process Simulator");
@@ -99,7 +203,7 @@ public class SimulatorHttpHandler implements HttpHandler {
         sendJsonResponse(exchange, 200, response);
     }
     
-    private void handleSimulate(HttpExchange exchange) throws IOException {
+    private void handleSimulate(HttpExchange exchange, WorkspaceEngine engine) throws IOException {
         // Read request body
         InputStream requestBody = exchange.getRequestBody();
         String body = new String(requestBody.readAllBytes(), StandardCharsets.UTF_8);
@@ -115,13 +219,184 @@ public class SimulatorHttpHandler implements HttpHandler {
         // Parse JSON input (types already validated)
         SimulationInput input = objectMapper.readValue(body, SimulationInput.class);
         
-        // Execute simulation
-        SimulationResult result = processEngine.execute(input);
+        // Execute simulation; ?trace=true attaches this execution's trace events and bypasses the result cache
+        boolean trace = "true".equalsIgnoreCase(queryParameter(exchange, "trace"));
+        SimulationResult result;
+        try {
+            result = trace ? engine.getProcessEngine().execute(input, true) : engine.getProcessEngine().execute(input);
+        } catch (NoSuchElementException e) {
+            sendError(exchange, 404, e.getMessage());
+            return;
+        }
         
         // Send response
         sendJsonResponse(exchange, 200, result);
     }
     
+    /**
+     * Simulate a JSON array or NDJSON stream of inputs and stream the results
+     * back as NDJSON while the batch runs, as {"index", "result"} lines in
+     * completion order. Invalid elements, and elements naming a process that
+     * is not deployed, produce an {"index", "error"} line instead.
+     */
+    private void handleSimulateBatch(HttpExchange exchange, WorkspaceEngine engine) throws IOException {
+        MappingIterator<JsonNode> elements;
+        try {
+            elements = objectMapper.readerFor(JsonNode.class).readValues(exchange.getRequestBody());
+        } catch (IOException e) {
+            sendError(exchange, 400, "Invalid input: " + e.getMessage());
+            return;
+        }
+        
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=UTF-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream os = new BufferedOutputStream(exchange.getResponseBody())) {
+            Iterator<ProcessEngine.BatchInput> inputs = new Iterator<>() {
+                private int index;
+                private ProcessEngine.BatchInput next;
+                
+                @Override
+                public boolean hasNext() {
+                    try {
+                        while (next == null && elements.hasNextValue()) {
+                            JsonNode element = elements.nextValue();
+                            List<String> validationErrors = InputValidator.validate(element);
+                            if (validationErrors.isEmpty()) {
+                                next = new ProcessEngine.BatchInput(index,
+                                    objectMapper.treeToValue(element, SimulationInput.class));
+                            } else {
+                                writeNdjsonLine(os, Map.of("index", index,
+                                    "error", "Invalid input: " + String.join("; ", validationErrors)));
+                            }
+                            index++;
+                        }
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalArgumentException("Invalid JSON at element " + index + ": "
+                            + e.getOriginalMessage(), e);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return next != null;
+                }
+                
+                @Override
+                public ProcessEngine.BatchInput next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    ProcessEngine.BatchInput input = next;
+                    next = null;
+                    return input;
+                }
+            };
+            try {
+                engine.getProcessEngine().executeBatch(inputs, new ProcessEngine.BatchConsumer() {
+                    @Override
+                    public void accept(long index, SimulationResult result) {
+                        writeLine(Map.of("index", index, "result", result));
+                    }
+                    
+                    @Override
+                    public void notDeployed(long index, NoSuchElementException e) {
+                        writeLine(Map.of("index", index, "error", e.getMessage()));
+                    }
+                    
+                    private void writeLine(Object line) {
+                        try {
+                            writeNdjsonLine(os, line);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                // Headers are already sent; report the failure as the last line
+                writeNdjsonLine(os, Map.of("error", "Batch aborted: " + e.getMessage()));
+            }
+        }
+    }
+    
+    private void writeNdjsonLine(OutputStream os, Object object) throws IOException {
+        os.write(objectMapper.writeValueAsBytes(object));
+        os.write('\n');
+    }
+    
+    /**
+     * Run a Monte Carlo simulation. Body: {"iterations": n, "seed": s,
+     * "inputs": {"dealMarginPercent": "Normal(27, 4)", "manualPriceCost": "Bernoulli(0.1)"}}.
+     * Inputs may also be plain numbers or booleans.
+     */
+    private void handleMonteCarlo(HttpExchange exchange, WorkspaceEngine engine) throws IOException {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(exchange.getRequestBody());
+        } catch (IOException e) {
+            sendError(exchange, 400, "Invalid JSON: " + e.getMessage());
+            return;
+        }
+        if (root == null || !root.isObject() || !root.path("inputs").isObject()) {
+            sendError(exchange, 400, "Invalid input: body must be an object with an 'inputs' object");
+            return;
+        }
+        
+        MonteCarloSimulator.MonteCarloResult result;
+        try {
+            Map<String, InputDistribution> inputs = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = root.get("inputs").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode value = field.getValue();
+                if (value.isBoolean()) {
+                    inputs.put(field.getKey(), InputDistribution.constant(value.booleanValue() ? 1.0 : 0.0));
+                } else if (value.isNumber()) {
+                    inputs.put(field.getKey(), InputDistribution.constant(value.doubleValue()));
+                } else {
+                    inputs.put(field.getKey(), InputDistribution.parse(value.asText()));
+                }
+            }
+            long iterations = root.path("iterations").asLong(10_000);
+            long seed = root.has("seed") ? root.get("seed").asLong() : System.nanoTime();
+            result = engine.getMonteCarloSimulator().run(inputs, iterations, seed);
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, "Invalid input: " + e.getMessage());
+            return;
+        }
+        sendJsonResponse(exchange, 200, result);
+    }
+    
+    /**
+     * Export the events held in the trace ring buffers, oldest first.
+     */
+    private void handleGetTrace(HttpExchange exchange) throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("level", Tracer.getLevel());
+        response.put("events", Tracer.snapshot());
+        sendJsonResponse(exchange, 200, response);
+    }
+    
+    /**
+     * Set the global trace level with ?level=OFF|INFO|DEBUG; ?clear=true drops recorded events.
+     */
+    private void handleSetTraceLevel(HttpExchange exchange) throws IOException {
+        String level = queryParameter(exchange, "level");
+        if (level != null) {
+            try {
+                Tracer.setLevel(Tracer.Level.valueOf(level.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "Invalid trace level: " + level);
+                return;
+            }
+        }
+        if ("true".equalsIgnoreCase(queryParameter(exchange, "clear"))) {
+            Tracer.clear();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("level", Tracer.getLevel());
+        sendJsonResponse(exchange, 200, response);
+    }
+    
     private void handleGetScenarios(HttpExchange exchange) throws IOException {
         sendJsonResponse(exchange, 200, BpmnValidationRunner.getTestScenarios());
     }
@@ -130,7 +405,12 @@ public class SimulatorHttpHandler implements HttpHandler {
         sendJsonResponse(exchange, 200, BpmnValidationRunner.getInputValidationScenarios());
     }
     
-    private void handleRunScenario(HttpExchange exchange, String path) throws IOException {
+    private void handleGetGeneratedScenarios(HttpExchange exchange, WorkspaceEngine engine) throws IOException {
+        ScenarioGenerator generator = new ScenarioGenerator(engine.getProcessEngine());
+        sendJsonResponse(exchange, 200, generator.generate());
+    }
+    
+    private void handleRunScenario(HttpExchange exchange, WorkspaceEngine engine, String path) throws IOException {
         // Extract scenario slug from path: /api/scenarios/{slug}/run
         String[] parts = path.split("/");
         if (parts.length < 4) {
@@ -151,7 +431,7 @@ public class SimulatorHttpHandler implements HttpHandler {
             return;
         }
         
-        SimulationResult result = processEngine.execute(scenario.getInputs());
+        SimulationResult result = engine.getProcessEngine().execute(scenario.getInputs());
         sendJsonResponse(exchange, 200, result);
     }
     
@@ -160,12 +440,86 @@ public class SimulatorHttpHandler implements HttpHandler {
         return name.toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
     }
     
-    private void handleValidate(HttpExchange exchange) throws IOException {
-        BpmnValidationRunner runner = new BpmnValidationRunner(processEngine);
-        BpmnValidationRunner.BpmnValidationResult result = runner.runAll();
+    private void handleValidate(HttpExchange exchange, WorkspaceEngine engine) throws IOException {
+        BpmnValidationRunner.BpmnValidationResult result = engine.getValidationRunner().runAll();
         sendJsonResponse(exchange, 200, result);
     }
     
+    /**
+     * Edit one rule of a decision table of the loaded DMN file:
+     * POST /api/dmn/{decisionId}/rules adds a rule, PATCH .../rules/{ruleId}
+     * changes its entries and DELETE .../rules/{ruleId} removes it. The body
+     * holds "inputEntries" and "outputEntries" (arrays of FEEL texts, null
+     * for unchanged) and, when adding, optional "ruleId" and "index". Only
+     * the test scenarios the edit can change are re-run.
+     */
+    private void handleRuleEdit(HttpExchange exchange, WorkspaceEngine engine, String method, String path) throws IOException {
+        String[] parts = path.split("/");
+        String decisionId = parts[3];
+        String ruleId = parts.length > 5 ? parts[5] : null;
+        RuleEdit edit;
+        try {
+            if ("DELETE".equals(method) && ruleId != null) {
+                edit = engine.getDmnEvaluator().deleteRule(decisionId, ruleId);
+            } else if ("PATCH".equals(method) && ruleId != null) {
+                JsonNode body = readJsonBody(exchange);
+                edit = engine.getDmnEvaluator().updateRule(decisionId, ruleId,
+                    entries(body, "inputEntries"), entries(body, "outputEntries"));
+            } else if ("POST".equals(method) && ruleId == null) {
+                JsonNode body = readJsonBody(exchange);
+                String newRuleId = body.hasNonNull("ruleId") ? body.get("ruleId").asText() : null;
+                int index = body.hasNonNull("index") ? body.get("index").asInt() : -1;
+                edit = engine.getDmnEvaluator().addRule(decisionId, newRuleId, index,
+                    entries(body, "inputEntries"), entries(body, "outputEntries"));
+            } else {
+                sendError(exchange, 404, "Not Found");
+                return;
+            }
+        } catch (NoSuchElementException e) {
+            sendError(exchange, 404, e.getMessage());
+            return;
+        } catch (IllegalStateException e) {
+            sendError(exchange, 409, e.getMessage());
+            return;
+        } catch (IOException | RuntimeException e) {
+            // Malformed JSON, wrong entry counts, or FEEL the engine rejects
+            sendError(exchange, 400, "Invalid rule edit: " + e.getMessage());
+            return;
+        }
+        // The result cache is kept: results are keyed by the DMN hash, so the edited
+        // file gets its own and a rollback to the content before the edit hits the old ones
+        Map<String, Object> response = new HashMap<>();
+        response.put("edit", edit);
+        response.put("validation", engine.getValidationRunner().runAffected(edit));
+        sendJsonResponse(exchange, 200, response);
+    }
+    
+    private JsonNode readJsonBody(HttpExchange exchange) throws IOException {
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        if (body == null || !body.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return body;
+    }
+    
+    /**
+     * Texts of an array field, with null elements kept; null if the field is absent.
+     */
+    private static List<String> entries(JsonNode body, String field) {
+        JsonNode node = body.get(field);
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (!node.isArray()) {
+            throw new IllegalArgumentException(field + " must be an array");
+        }
+        List<String> entries = new ArrayList<>();
+        for (JsonNode element : node) {
+            entries.add(element.isNull() ? null : element.asText());
+        }
+        return entries;
+    }
+    
     private void sendJsonResponse(HttpExchange exchange, int statusCode, Object object) throws IOException {
         String json = objectMapper.writeValueAsString(object);
         byte[] responseBytes = json.getBytes(StandardCharsets.UTF_8);
@@ -178,7 +532,7 @@ public class SimulatorHttpHandler implements HttpHandler {
         }
     }
     
-    private void handleUploadBpmn(HttpExchange exchange) throws IOException {
+    private void handleUploadBpmn(HttpExchange exchange, WorkspaceEngine engine) throws IOException {
         try {
             String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
             byte[] requestBody = exchange.getRequestBody().readAllBytes();
@@ -200,16 +554,19 @@ public class SimulatorHttpHandler implements HttpHandler {
             }
             
             // Store the file
-            fileManager.storeBpmnFile(filename, fileContent);
+            FileManager.Deployment deployment = engine.getFileManager().storeBpmnFile(filename, fileContent);
             
-            // Reload BPMN in ProcessEngine
-            processEngine.loadBpmnFile();
+            // Reload BPMN in ProcessEngine, then drop results of the old model
+            engine.getProcessEngine().loadBpmnFile();
+            engine.getResultCache().invalidate();
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "BPMN file uploaded successfully");
             response.put("filename", filename);
             response.put("size", fileContent.length);
+            response.put("version", deployment.getVersion());
+            response.put("hash", deployment.getHash());
             
             sendJsonResponse(exchange, 200, response);
         } catch (Exception e) {
@@ -218,7 +575,7 @@ public class SimulatorHttpHandler implements HttpHandler {
         }
     }
     
-    private void handleUploadDmn(HttpExchange exchange) throws IOException {
+    private void handleUploadDmn(HttpExchange exchange, WorkspaceEngine engine) throws IOException {
         try {
             String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
             byte[] requestBody = exchange.getRequestBody().readAllBytes();
@@ -240,16 +597,19 @@ public class SimulatorHttpHandler implements HttpHandler {
             }
             
             // Store the file
-            fileManager.storeDmnFile(filename, fileContent);
+            FileManager.Deployment deployment = engine.getFileManager().storeDmnFile(filename, fileContent);
             
-            // Reload DMN in DMNEvaluator
-            dmnEvaluator.loadDmnFile();
+            // Reload DMN in DMNEvaluator, then drop results of the old decision
+            engine.getDmnEvaluator().loadDmnFile();
+            engine.getResultCache().invalidate();
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "DMN file uploaded successfully");
             response.put("filename", filename);
             response.put("size", fileContent.length);
+            response.put("version", deployment.getVersion());
+            response.put("hash", deployment.getHash());
             
             sendJsonResponse(exchange, 200, response);
         } catch (Exception e) {
@@ -269,20 +629,68 @@ public class SimulatorHttpHandler implements HttpHandler {
         return boundary;
     }
     
-    private void handleGetFiles(HttpExchange exchange) throws IOException {
+    /**
+     * GET /api/files/{bpmn|dmn}/{filename}/versions: all versions of a file, oldest first.
+     */
+    private void handleGetVersions(HttpExchange exchange, WorkspaceEngine engine, String path) throws IOException {
+        String[] parts = path.split("/");
+        String filename = parts[4];
+        List<FileManager.Deployment> versions = "bpmn".equals(parts[3])
+            ? engine.getFileManager().getBpmnVersions(filename) : engine.getFileManager().getDmnVersions(filename);
+        if (versions.isEmpty()) {
+            sendError(exchange, 404, "File not found: " + filename);
+            return;
+        }
+        sendJsonResponse(exchange, 200, versions);
+    }
+    
+    /**
+     * POST /api/files/{bpmn|dmn}/{filename}/rollback?version=N: deploy version N
+     * of a file again as its next version, and load it.
+     */
+    private void handleRollback(HttpExchange exchange, WorkspaceEngine engine, String path) throws IOException {
+        String[] parts = path.split("/");
+        String filename = parts[4];
+        int version;
+        try {
+            version = Integer.parseInt(queryParameter(exchange, "version"));
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "Invalid input: version must be a number");
+            return;
+        }
+        FileManager.Deployment deployment;
+        try {
+            if ("bpmn".equals(parts[3])) {
+                deployment = engine.getFileManager().rollbackBpmnFile(filename, version);
+                engine.getProcessEngine().loadBpmnFile();
+            } else {
+                deployment = engine.getFileManager().rollbackDmnFile(filename, version);
+                engine.getDmnEvaluator().loadDmnFile();
+            }
+        } catch (NoSuchElementException e) {
+            sendError(exchange, 404, e.getMessage());
+            return;
+        }
+        // Cached results are keyed by content hash, so those of the restored version are served again
+        sendJsonResponse(exchange, 200, deployment);
+    }
+    
+    private void handleGetFiles(HttpExchange exchange, WorkspaceEngine engine) throws IOException {
         Map<String, Object> response = new HashMap<>();
-        response.put("bpmnFiles", fileManager.getBpmnFileNames());
-        response.put("dmnFiles", fileManager.getDmnFileNames());
-        response.put("hasBpmn", fileManager.hasBpmnFiles());
-        response.put("hasDmn", fileManager.hasDmnFiles());
-        response.put("dmnLoaded", dmnEvaluator.isDmnLoaded());
+        response.put("bpmnFiles", engine.getFileManager().getBpmnFileNames());
+        response.put("dmnFiles", engine.getFileManager().getDmnFileNames());
+        response.put("defaultBpmn", engine.getFileManager().getDefaultBpmnDeployment());
+        response.put("defaultDmn", engine.getFileManager().getDefaultDmnDeployment());
+        response.put("hasBpmn", engine.getFileManager().hasBpmnFiles());
+        response.put("hasDmn", engine.getFileManager().hasDmnFiles());
+        response.put("dmnLoaded", engine.getDmnEvaluator().isDmnLoaded());
         
         sendJsonResponse(exchange, 200, response);
     }
     
-    private void handleGetInputs(HttpExchange exchange) throws IOException {
+    private void handleGetInputs(HttpExchange exchange, WorkspaceEngine engine) throws IOException {
         try {
-            InputStream bpmnStream = fileManager.getDefaultBpmnFile();
+            InputStream bpmnStream = engine.getFileManager().getDefaultBpmnFile();
             if (bpmnStream == null) {
                 // Return default inputs if no BPMN file
                 List<InputField> defaultFields = Arrays.asList(
@@ -320,6 +728,21 @@ public class SimulatorHttpHandler implements HttpHandler {
         }
     }
     
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            if (key.equals(name)) {
+                return eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            }
+        }
+        return null;
+    }
+    
     private void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
         Map<String, String> error = new HashMap<>();
         error.put("error", message);
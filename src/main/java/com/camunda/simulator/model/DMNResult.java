@@ -1,24 +1,68 @@
 package com.camunda.simulator.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Result from DMN decision evaluation.
  */
 public class DMNResult {
     private String quoteValidity; // "Valid" or "Invalid"
-    
+    // Output entries per matched rule (one entry for an aggregating COLLECT), values as typed by the decision
+    private List<Map<String, Object>> results = Collections.emptyList();
+    // Ids of the rules matched per evaluated decision table, required decisions included
+    private Map<String, List<String>> matchedRules = Collections.emptyMap();
+
     public DMNResult() {
     }
-    
+
     public DMNResult(String quoteValidity) {
         this.quoteValidity = quoteValidity;
     }
-    
+
+    public DMNResult(String quoteValidity, List<Map<String, Object>> results) {
+        this.quoteValidity = quoteValidity;
+        this.results = results;
+    }
+
+    public DMNResult(String quoteValidity, List<Map<String, Object>> results, Map<String, List<String>> matchedRules) {
+        this.quoteValidity = quoteValidity;
+        this.results = results;
+        this.matchedRules = matchedRules;
+    }
+
     public String getQuoteValidity() {
         return quoteValidity;
     }
-    
+
     public void setQuoteValidity(String quoteValidity) {
         this.quoteValidity = quoteValidity;
     }
-}
 
+    public List<Map<String, Object>> getResults() {
+        return results;
+    }
+
+    public void setResults(List<Map<String, Object>> results) {
+        this.results = results != null ? results : Collections.emptyList();
+    }
+
+    public Map<String, List<String>> getMatchedRules() {
+        return matchedRules;
+    }
+
+    public void setMatchedRules(Map<String, List<String>> matchedRules) {
+        this.matchedRules = matchedRules != null ? matchedRules : Collections.emptyMap();
+    }
+
+    /**
+     * Output entries of the first result; empty if no rule matched.
+     */
+    @JsonIgnore
+    public Map<String, Object> getFirstResult() {
+        return results.isEmpty() ? Collections.emptyMap() : results.get(0);
+    }
+}
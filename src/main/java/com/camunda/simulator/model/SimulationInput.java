@@ -1,11 +1,17 @@
 package com.camunda.simulator.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * Input parameters for process simulation.
  */
 public class SimulationInput {
     private Boolean manualPriceCost;
     private Double dealMarginPercent;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String processId; // Deployed process to run; the default BPMN file if null
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer version; // Version of processId; the latest if null
     
     public SimulationInput() {
     }
@@ -30,5 +36,20 @@ public class SimulationInput {
     public void setDealMarginPercent(Double dealMarginPercent) {
         this.dealMarginPercent = dealMarginPercent;
     }
+    
+    public String getProcessId() {
+        return processId;
+    }
+    
+    public void setProcessId(String processId) {
+        this.processId = processId;
+    }
+    
+    public Integer getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
-
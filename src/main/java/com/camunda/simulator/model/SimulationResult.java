@@ -1,5 +1,7 @@
 package com.camunda.simulator.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 import java.util.Map;
 
@@ -12,6 +14,8 @@ public class SimulationResult {
     private List<String> executionPath;
     private String finalStatus; // "Valid" or "Invalid"
     private Map<String, Object> processVariables;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<TraceEvent> trace; // Only when requested
     
     public SimulationResult() {
     }
@@ -65,5 +69,12 @@ public class SimulationResult {
     public void setProcessVariables(Map<String, Object> processVariables) {
         this.processVariables = processVariables;
     }
+    
+    public List<TraceEvent> getTrace() {
+        return trace;
+    }
+    
+    public void setTrace(List<TraceEvent> trace) {
+        this.trace = trace;
+    }
 }
-
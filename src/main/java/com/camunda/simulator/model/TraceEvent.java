@@ -0,0 +1,61 @@
+package com.camunda.simulator.model;
+
+/**
+ * One execution trace event. Immutable, so it can be published to a trace
+ * ring buffer and read by other threads without copying.
+ */
+public class TraceEvent {
+
+    /** What happened. */
+    public enum Type {
+        NODE_ENTERED,
+        VARIABLES_MAPPED,
+        DMN_EVALUATION,
+        DMN_RESULT,
+        GATEWAY_CONDITION_MATCHED,
+        GATEWAY_DEFAULT_FLOW,
+        DMN_MODEL_LOADED,
+        DMN_RULE,
+        DMN_REQUIRED_DECISION
+    }
+
+    private final long timeNanos;
+    private final String thread;
+    private final Type type;
+    private final String subject;
+    private final String detail;
+
+    public TraceEvent(long timeNanos, String thread, Type type, String subject, String detail) {
+        this.timeNanos = timeNanos;
+        this.thread = thread;
+        this.type = type;
+        this.subject = subject;
+        this.detail = detail;
+    }
+
+    /**
+     * System.nanoTime() when the event was recorded; only meaningful relative to other events.
+     */
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Element the event is about: node id, flow id or decision key.
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+}
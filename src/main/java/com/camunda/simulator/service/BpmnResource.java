@@ -0,0 +1,161 @@
+package com.camunda.simulator.service;
+
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One BPMN content as the process index sees it. The ids of its processes
+ * come from a streaming scan of the XML, which builds no model; the plans
+ * are compiled on first use and then kept, so building an engine parses
+ * only the default file however many versions are stored.
+ */
+final class BpmnResource {
+
+    private static final String BPMN_NS = "http://www.omg.org/spec/BPMN/20100524/MODEL";
+    private static final XMLInputFactory XML_INPUT_FACTORY = newInputFactory();
+
+    private final FileManager fileManager;
+    private final FileManager.Deployment deployment;
+    // Processes with a start event of their own, in document order
+    private final List<String> processIds;
+    // Adds the content's size once compiled
+    private final AtomicLong compiledBytes;
+    private volatile Map<String, ExecutionPlan> plans;
+
+    BpmnResource(FileManager fileManager, FileManager.Deployment deployment, AtomicLong compiledBytes) {
+        this.fileManager = fileManager;
+        this.deployment = deployment;
+        this.compiledBytes = compiledBytes;
+        this.processIds = scanProcessIds();
+    }
+
+    List<String> getProcessIds() {
+        return processIds;
+    }
+
+    boolean isCompiled() {
+        return plans != null;
+    }
+
+    String getName() {
+        return deployment.getName();
+    }
+
+    String getHash() {
+        return deployment.getHash();
+    }
+
+    int getSize() {
+        return deployment.getSize();
+    }
+
+    /**
+     * Plan of a process of this content, compiling the content on first use;
+     * null if it does not compile.
+     */
+    ExecutionPlan getPlan(String processId) {
+        return plans().get(processId);
+    }
+
+    /**
+     * Plan of the first process, compiling the content on first use; null if none.
+     */
+    ExecutionPlan getFirstPlan() {
+        Map<String, ExecutionPlan> compiled = plans();
+        return compiled.isEmpty() ? null : compiled.values().iterator().next();
+    }
+
+    private Map<String, ExecutionPlan> plans() {
+        Map<String, ExecutionPlan> compiled = plans;
+        if (compiled == null) {
+            synchronized (this) {
+                compiled = plans;
+                if (compiled == null) {
+                    compiled = compile();
+                    plans = compiled;
+                    compiledBytes.addAndGet(deployment.getSize());
+                }
+            }
+        }
+        return compiled;
+    }
+
+    private Map<String, ExecutionPlan> compile() {
+        try (InputStream bpmnStream = fileManager.getContent(deployment)) {
+            BpmnModelInstance bpmnModelInstance = Bpmn.readModelFromStream(bpmnStream);
+            Map<String, ExecutionPlan> compiled = new LinkedHashMap<>();
+            for (ExecutionPlan plan : new ExecutionPlanCompiler(bpmnModelInstance).compileAll()) {
+                compiled.putIfAbsent(plan.getProcessId(), plan);
+            }
+            return compiled;
+        } catch (Exception e) {
+            System.err.println("Failed to load BPMN file " + deployment.getName() + ": " + e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Ids of the bpmn:process elements that hold a start event directly, the
+     * processes {@link ExecutionPlanCompiler#compileAll()} compiles.
+     */
+    private List<String> scanProcessIds() {
+        List<String> ids = new ArrayList<>();
+        try (InputStream bpmnStream = fileManager.getContent(deployment)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(bpmnStream);
+            try {
+                int depth = 0;
+                int processDepth = -1;
+                String processId = null;
+                boolean hasStartEvent = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        if (!BPMN_NS.equals(reader.getNamespaceURI())) {
+                            continue;
+                        }
+                        if (processDepth < 0 && "process".equals(reader.getLocalName())) {
+                            processDepth = depth;
+                            processId = reader.getAttributeValue(null, "id");
+                            hasStartEvent = false;
+                        } else if (depth == processDepth + 1 && "startEvent".equals(reader.getLocalName())) {
+                            hasStartEvent = true;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (depth == processDepth) {
+                            if (hasStartEvent && processId != null && !ids.contains(processId)) {
+                                ids.add(processId);
+                            }
+                            processDepth = -1;
+                        }
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to read BPMN file " + deployment.getName() + ": " + e.getMessage());
+            return List.of();
+        }
+        return List.copyOf(ids);
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -1,5 +1,6 @@
 package com.camunda.simulator.service;
 
+import com.camunda.simulator.model.DMNResult;
 import com.camunda.simulator.model.SimulationInput;
 import com.camunda.simulator.model.SimulationResult;
 import com.camunda.simulator.model.TestScenario;
@@ -8,6 +9,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Runs all BPMN test scenarios, compares actual results with expectations,
@@ -16,6 +20,8 @@ import java.util.Locale;
 public class BpmnValidationRunner {
 
     private final ProcessEngine processEngine;
+    // Last run of each test scenario by name, reused by runAffected when a rule edit cannot change it
+    private final Map<String, ScenarioRun> lastRuns = new ConcurrentHashMap<>();
 
     /** Expected execution path key steps: Invalid branch (order matters; each step matched by substring). */
     private static final List<String> EXPECTED_PATH_INVALID = List.of("Start", "Prepare", "Look-up", "Gateway", "Invalid", "End");
@@ -260,31 +266,33 @@ public class BpmnValidationRunner {
     }
 
     public BpmnValidationResult runAll() {
-        List<ScenarioResult> results = new ArrayList<>();
-        for (TestScenario scenario : TEST_SCENARIOS) {
-            SimulationResult simulationResult = processEngine.execute(scenario.getInputs());
-            String actualStatus = simulationResult.getFinalStatus();
-            String expectedStatus = scenario.getExpectedResult();
-            boolean statusPassed = expectedStatus != null && expectedStatus.equals(actualStatus);
-
-            List<String> actualPath = simulationResult.getExecutionPath();
-            List<String> expectedPath = scenario.getExpectedExecutionPath();
-            boolean pathPassed = executionPathMatches(actualPath, expectedPath);
+        return run(null);
+    }
 
-            String expectedPathStr = expectedPath != null ? String.join(" → ", expectedPath) : null;
-            String actualPathStr = actualPath != null ? String.join(" → ", actualPath) : null;
+    /**
+     * Runs the test scenarios a rule edit can change: those without an earlier
+     * run and those whose last run evaluated the edited decision table in a
+     * way the edit affects (see {@link RuleEdit#affects(Map)}). The results
+     * of the other scenarios are reused from their last run, unless it ran on
+     * another BPMN execution plan or on other DMN content than the edit was
+     * applied to, e.g. before an upload or rollback.
+     */
+    public BpmnValidationResult runAffected(RuleEdit edit) {
+        return run(edit);
+    }
 
-            boolean passed = statusPassed && pathPassed;
-            results.add(new ScenarioResult(
-                scenario.getName(),
-                scenario.getDescription(),
-                expectedStatus,
-                actualStatus,
-                passed,
-                pathPassed,
-                expectedPathStr,
-                actualPathStr
-            ));
+    private BpmnValidationResult run(RuleEdit edit) {
+        List<ScenarioResult> results = new ArrayList<>();
+        List<String> rerunScenarios = new ArrayList<>();
+        for (TestScenario scenario : TEST_SCENARIOS) {
+            ScenarioRun run = lastRuns.get(scenario.getName());
+            if (edit == null || run == null || run.plan != processEngine.getExecutionPlan()
+                    || !Objects.equals(run.dmnHash, edit.getPreviousDmnHash()) || edit.affects(run.matchedRules)) {
+                run = runScenario(scenario);
+                lastRuns.put(scenario.getName(), run);
+                rerunScenarios.add(scenario.getName());
+            }
+            results.add(run.result);
         }
         for (InputValidationCase v : INPUT_VALIDATION_SCENARIOS) {
             List<String> errors = InputValidator.validate(v.invalidJson);
@@ -304,7 +312,57 @@ public class BpmnValidationRunner {
             ));
         }
         boolean allPassed = results.stream().allMatch(ScenarioResult::isPassed);
-        return new BpmnValidationResult(allPassed, results);
+        return new BpmnValidationResult(allPassed, results, rerunScenarios);
+    }
+
+    private ScenarioRun runScenario(TestScenario scenario) {
+        // Read before the run: if the files change meanwhile, the next edit re-runs the scenario
+        EngineSnapshot snapshot = processEngine.getSnapshot();
+        SimulationResult simulationResult = processEngine.execute(scenario.getInputs());
+        String actualStatus = simulationResult.getFinalStatus();
+        String expectedStatus = scenario.getExpectedResult();
+        boolean statusPassed = expectedStatus != null && expectedStatus.equals(actualStatus);
+
+        List<String> actualPath = simulationResult.getExecutionPath();
+        List<String> expectedPath = scenario.getExpectedExecutionPath();
+        boolean pathPassed = executionPathMatches(actualPath, expectedPath);
+
+        String expectedPathStr = expectedPath != null ? String.join(" → ", expectedPath) : null;
+        String actualPathStr = actualPath != null ? String.join(" → ", actualPath) : null;
+
+        boolean passed = statusPassed && pathPassed;
+        ScenarioResult result = new ScenarioResult(
+            scenario.getName(),
+            scenario.getDescription(),
+            expectedStatus,
+            actualStatus,
+            passed,
+            pathPassed,
+            expectedPathStr,
+            actualPathStr
+        );
+        DMNResult dmnResult = simulationResult.getDmnResult();
+        return new ScenarioRun(snapshot.getPlan(), snapshot.getDmnHash(), result,
+            dmnResult != null ? dmnResult.getMatchedRules() : Map.of());
+    }
+
+    /**
+     * Result of a scenario run with the plan and DMN content it ran on and
+     * the rules it matched per decision table.
+     */
+    private static final class ScenarioRun {
+        private final ExecutionPlan plan;
+        private final String dmnHash;
+        private final ScenarioResult result;
+        private final Map<String, List<String>> matchedRules;
+
+        ScenarioRun(ExecutionPlan plan, String dmnHash, ScenarioResult result,
+                    Map<String, List<String>> matchedRules) {
+            this.plan = plan;
+            this.dmnHash = dmnHash;
+            this.result = result;
+            this.matchedRules = matchedRules;
+        }
     }
 
     /**
@@ -352,10 +410,17 @@ public class BpmnValidationRunner {
     public static class BpmnValidationResult {
         private final boolean allPassed;
         private final List<ScenarioResult> scenarioResults;
+        private final List<String> rerunScenarios;
 
         public BpmnValidationResult(boolean allPassed, List<ScenarioResult> scenarioResults) {
+            this(allPassed, scenarioResults, Collections.emptyList());
+        }
+
+        public BpmnValidationResult(boolean allPassed, List<ScenarioResult> scenarioResults,
+                                    List<String> rerunScenarios) {
             this.allPassed = allPassed;
             this.scenarioResults = Collections.unmodifiableList(new ArrayList<>(scenarioResults));
+            this.rerunScenarios = Collections.unmodifiableList(new ArrayList<>(rerunScenarios));
         }
 
         public boolean isAllPassed() {
@@ -366,6 +431,13 @@ public class BpmnValidationRunner {
             return scenarioResults;
         }
 
+        /**
+         * Names of the test scenarios that were run rather than reused from an earlier run.
+         */
+        public List<String> getRerunScenarios() {
+            return rerunScenarios;
+        }
+
         /**
          * Returns "BPMN is valid" when all test scenarios passed, "BPMN is invalid" otherwise.
          */
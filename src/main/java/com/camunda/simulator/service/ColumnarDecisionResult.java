@@ -0,0 +1,60 @@
+package com.camunda.simulator.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of evaluating a decision table over columns of inputs: the index of
+ * the matched rule per row (-1 if no rule matched), plus the rule ids and
+ * constant outputs needed to interpret them.
+ */
+public final class ColumnarDecisionResult {
+
+    private final int[] ruleIndices;
+    private final String[] ruleIds;
+    private final List<Map<String, Object>> outputs;
+
+    ColumnarDecisionResult(int[] ruleIndices, String[] ruleIds, List<Map<String, Object>> outputs) {
+        this.ruleIndices = ruleIndices;
+        this.ruleIds = ruleIds;
+        this.outputs = outputs;
+    }
+
+    public int getRowCount() {
+        return ruleIndices.length;
+    }
+
+    /**
+     * Matched rule per row, -1 where no rule matched. The array is not copied.
+     */
+    public int[] getRuleIndices() {
+        return ruleIndices;
+    }
+
+    public int getRuleCount() {
+        return ruleIds.length;
+    }
+
+    /**
+     * Id of a rule of the table, by rule index.
+     */
+    public String getRuleId(int rule) {
+        return ruleIds[rule];
+    }
+
+    /**
+     * Output entries of a rule of the table, by rule index.
+     */
+    public Map<String, Object> getRuleOutput(int rule) {
+        return outputs.get(rule);
+    }
+
+    /**
+     * Output entries of the rule matched in a row; empty if no rule matched.
+     */
+    public Map<String, Object> getOutput(int row) {
+        int rule = ruleIndices[row];
+        return rule < 0 ? Collections.emptyMap() : outputs.get(rule);
+    }
+}
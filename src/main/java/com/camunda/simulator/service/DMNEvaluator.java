@@ -1,52 +1,198 @@
 package com.camunda.simulator.service;
 
 import com.camunda.simulator.model.DMNResult;
+import com.camunda.simulator.model.TraceEvent;
+import org.camunda.bpm.dmn.engine.DmnDecision;
 import org.camunda.bpm.dmn.engine.DmnEngine;
 import org.camunda.bpm.dmn.engine.DmnEngineConfiguration;
 import org.camunda.bpm.dmn.engine.DmnDecisionResult;
 import org.camunda.bpm.dmn.engine.DmnDecisionResultEntries;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
 import org.camunda.bpm.model.dmn.Dmn;
 import org.camunda.bpm.model.dmn.DmnModelInstance;
 import org.camunda.bpm.model.dmn.instance.Decision;
+import org.camunda.bpm.model.dmn.HitPolicy;
+import org.camunda.bpm.model.dmn.instance.DecisionTable;
+import org.camunda.bpm.model.dmn.instance.InputEntry;
+import org.camunda.bpm.model.dmn.instance.OutputEntry;
+import org.camunda.bpm.model.dmn.instance.Rule;
+import org.camunda.bpm.model.dmn.instance.Text;
+import org.camunda.bpm.model.xml.instance.DomElement;
+import org.camunda.bpm.model.xml.instance.ModelElementInstance;
 
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
 
 /**
  * Evaluates DMN decisions by parsing and executing actual DMN files.
+ *
+ * The DMN file is parsed, and its decisions built with the DMN engine, only
+ * when the content hash of the file in FileManager changes. Every evaluation
+ * runs against the cached DmnDecision objects, or against the
+ * {@link IndexedDecisionTable} built for a decision table when it has one.
+ *
+ * A decision with required decisions (a DRG) is evaluated bottom-up when every
+ * decision it depends on is indexed: each required decision is evaluated at
+ * most once per request and its outputs become input variables of the
+ * decisions requiring it. Independent required decisions run in parallel when
+ * the evaluator is given a pool. Other DRGs are left to the engine.
+ *
+ * Indexed tables with a small space of input equivalence classes are
+ * materialized into a lookup array when the file is loaded; other hot indexed
+ * tables match with generated classes. With differential testing enabled, a
+ * sample of the evaluations served by a materialized table or generated class
+ * is repeated on the engine; on a mismatch the engine result is returned and
+ * the table goes back to its index.
+ *
+ * Every evaluation is counted in the {@link DecisionMetrics} of its decision:
+ * hits per rule, whether by the index or by the engine (through an engine
+ * listener), and the latency of the requested decision.
+ *
+ * The parsed file is an immutable snapshot published through an
+ * AtomicReference. Evaluations never lock: each one pins the snapshot it
+ * starts with, and a thread noticing a changed file compiles the new one
+ * without blocking the others. Only rule edits, which modify the current
+ * snapshot, are serialized.
  */
 public class DMNEvaluator {
     
     private final DmnEngine dmnEngine;
     private final FileManager fileManager;
-    private DmnModelInstance dmnModelInstance;
-    private String decisionKey;
+    private final ForkJoinPool requiredDecisionPool;
+    private final AtomicReference<LoadedDecisions> loaded = new AtomicReference<>(LoadedDecisions.EMPTY);
+    private volatile int differentialSampleRate;
+    private final LongAdder differentialChecks = new LongAdder();
+    private final LongAdder differentialMismatches = new LongAdder();
+    // The engine call running on this thread: where the engine listener counts and reports matched rules
+    private final ThreadLocal<EngineCall> engineCall = new ThreadLocal<>();
     
     public DMNEvaluator(FileManager fileManager) {
+        this(fileManager, null);
+    }
+    
+    /**
+     * @param requiredDecisionPool pool evaluating independent required decisions
+     *        in parallel, or null to evaluate them on the calling thread
+     */
+    public DMNEvaluator(FileManager fileManager, ForkJoinPool requiredDecisionPool) {
         this.fileManager = fileManager;
-        this.dmnEngine = DmnEngineConfiguration.createDefaultDmnEngineConfiguration().buildEngine();
+        this.requiredDecisionPool = requiredDecisionPool;
+        DefaultDmnEngineConfiguration configuration =
+            (DefaultDmnEngineConfiguration) DmnEngineConfiguration.createDefaultDmnEngineConfiguration();
+        configuration.customPostDecisionEvaluationListeners(List.of(this::recordEngineEvaluation));
+        this.dmnEngine = configuration.buildEngine();
         loadDmnFile();
     }
     
     /**
-     * Load the DMN file from FileManager.
-     * Always reloads to ensure we have the latest version.
+     * Parsed DMN file: model, decisions built by the engine, and the hash of
+     * the content they were built from. Immutable; replaced as a whole.
+     */
+    static final class LoadedDecisions {
+        static final LoadedDecisions EMPTY = new LoadedDecisions(null, null, null, Map.of(), Map.of(), Set.of(),
+            Map.of());
+        
+        final String contentHash;
+        final DmnModelInstance modelInstance;
+        final String decisionKey;
+        final Map<String, DmnDecision> decisions;
+        final Map<String, IndexedDecisionTable> indexedTables;
+        // Decisions whose required decisions, transitively, are all indexed
+        final Set<String> indexedGraphs;
+        // Counters of this file's decisions; a new file starts from zero
+        final Map<String, DecisionMetrics> metrics;
+        
+        LoadedDecisions(String contentHash, DmnModelInstance modelInstance, String decisionKey,
+                        Map<String, DmnDecision> decisions, Map<String, IndexedDecisionTable> indexedTables,
+                        Set<String> indexedGraphs, Map<String, DecisionMetrics> metrics) {
+            this.contentHash = contentHash;
+            this.modelInstance = modelInstance;
+            this.decisionKey = decisionKey;
+            this.decisions = decisions;
+            this.indexedTables = indexedTables;
+            this.indexedGraphs = indexedGraphs;
+            this.metrics = metrics;
+        }
+    }
+    
+    /**
+     * Load the DMN file from FileManager, parsing it even if its content is unchanged.
      */
-    public void loadDmnFile() {
-        InputStream dmnStream = fileManager.getDefaultDmnFile();
+    public synchronized void loadDmnFile() {
+        loaded.set(compile());
+    }
+    
+    /**
+     * Parse the default DMN file of FileManager and index its decision tables.
+     */
+    private LoadedDecisions compile() {
+        // One deployment for both, so the hash always belongs to the parsed content
+        FileManager.Deployment deployment = fileManager.getDefaultDmnDeployment();
+        String contentHash = deployment != null ? deployment.getHash() : null;
+        InputStream dmnStream = fileManager.getContent(deployment);
         if (dmnStream != null) {
             try {
-                // Always create a new model instance to ensure we have the latest version
-                this.dmnModelInstance = Dmn.readModelFromStream(dmnStream);
+                DmnModelInstance modelInstance = Dmn.readModelFromStream(dmnStream);
+                Map<String, DmnDecision> decisions = new HashMap<>();
+                for (DmnDecision decision : dmnEngine.parseDecisions(modelInstance)) {
+                    decisions.put(decision.getKey(), decision);
+                }
+                // Index the decision tables that allow it; the others are evaluated by the engine
+                Map<String, IndexedDecisionTable> indexedTables = new HashMap<>();
+                Map<String, DecisionMetrics> metrics = new LinkedHashMap<>();
+                for (Decision decision : modelInstance.getModelElementsByType(Decision.class)) {
+                    if (decisions.containsKey(decision.getId())) {
+                        metrics.put(decision.getId(), new DecisionMetrics(decision.getId(), ruleIds(decision)));
+                    }
+                    IndexedDecisionTable table = decisions.containsKey(decision.getId())
+                        ? IndexedDecisionTable.compile(decision) : null;
+                    if (table != null) {
+                        // Small class spaces become a lookup array now rather than a generated class later
+                        table.materialize();
+                        indexedTables.put(decision.getId(), table);
+                    }
+                }
+                Set<String> indexedGraphs = new HashSet<>();
+                for (String key : decisions.keySet()) {
+                    if (isIndexedGraph(decisions.get(key), indexedTables, new HashSet<>())) {
+                        indexedGraphs.add(key);
+                    }
+                }
                 // Extract decision key from the DMN model
-                this.decisionKey = extractDecisionKey(dmnModelInstance);
-                System.out.println("DMN file reloaded. Decision key: " + this.decisionKey);
+                String decisionKey = extractDecisionKey(modelInstance, decisions);
+                if (Tracer.isEnabled(Tracer.Level.DEBUG)) {
+                    Tracer.record(Tracer.event(TraceEvent.Type.DMN_MODEL_LOADED, decisionKey, contentHash));
+                }
+                return new LoadedDecisions(contentHash, modelInstance, decisionKey, decisions, indexedTables,
+                    indexedGraphs, metrics);
             } catch (Exception e) {
                 System.err.println("Failed to load DMN file: " + e.getMessage());
                 e.printStackTrace();
-                this.dmnModelInstance = null;
-                this.decisionKey = null;
+                // Remember the hash so a broken file is not re-parsed on every evaluation
+                return new LoadedDecisions(contentHash, null, null, Map.of(), Map.of(), Set.of(), Map.of());
             } finally {
                 try {
                     dmnStream.close();
@@ -55,30 +201,96 @@ public class DMNEvaluator {
                 }
             }
         } else {
-            System.out.println("No DMN file available in FileManager");
-            this.dmnModelInstance = null;
-            this.decisionKey = null;
+            if (Tracer.isEnabled(Tracer.Level.DEBUG)) {
+                Tracer.record(Tracer.event(TraceEvent.Type.DMN_MODEL_LOADED, null, "no DMN file available"));
+            }
+            return LoadedDecisions.EMPTY;
+        }
+    }
+    
+    /**
+     * The decisions of the current DMN file, re-parsed only if its content
+     * changed. A change is handled under the evaluator's lock, so a file is
+     * parsed once by the first thread noticing it, and a file stored by a
+     * rule edit, which publishes its decisions under the same lock, is not
+     * parsed at all.
+     */
+    LoadedDecisions current() {
+        LoadedDecisions snapshot = loaded.get();
+        if (Objects.equals(fileManager.getDefaultDmnHash(), snapshot.contentHash)) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = loaded.get();
+            if (!Objects.equals(fileManager.getDefaultDmnHash(), snapshot.contentHash)) {
+                snapshot = compile();
+                loaded.set(snapshot);
+            }
+            return snapshot;
+        }
+    }
+    
+    private static List<String> ruleIds(Decision decision) {
+        List<String> ruleIds = new ArrayList<>();
+        if (decision.getExpression() instanceof DecisionTable) {
+            for (Rule rule : ((DecisionTable) decision.getExpression()).getRules()) {
+                ruleIds.add(rule.getId());
+            }
+        }
+        return ruleIds;
+    }
+    
+    /**
+     * Whether a decision and all decisions it requires have indexed tables.
+     * A requirement cycle is never indexed.
+     */
+    private static boolean isIndexedGraph(DmnDecision decision, Map<String, IndexedDecisionTable> indexedTables,
+                                          Set<String> path) {
+        if (!indexedTables.containsKey(decision.getKey()) || !path.add(decision.getKey())) {
+            return false;
+        }
+        for (DmnDecision required : decision.getRequiredDecisions()) {
+            if (!isIndexedGraph(required, indexedTables, path)) {
+                return false;
+            }
         }
+        path.remove(decision.getKey());
+        return true;
     }
     
     /**
-     * Extract the decision key from the DMN model.
+     * Extract the decision key from the DMN model: the first decision that no
+     * other decision requires, i.e. the top of the decision requirements graph.
      */
-    private String extractDecisionKey(DmnModelInstance modelInstance) {
+    private String extractDecisionKey(DmnModelInstance modelInstance, Map<String, DmnDecision> parsed) {
         Collection<Decision> decisions = modelInstance.getModelElementsByType(Decision.class);
         if (decisions.isEmpty()) {
             return null;
         }
+        Set<String> required = new HashSet<>();
+        for (DmnDecision dmnDecision : parsed.values()) {
+            for (DmnDecision requiredDecision : dmnDecision.getRequiredDecisions()) {
+                required.add(requiredDecision.getKey());
+            }
+        }
         Decision decision = decisions.iterator().next();
+        for (Decision candidate : decisions) {
+            if (!required.contains(candidate.getId())) {
+                decision = candidate;
+                break;
+            }
+        }
         String key = decision.getId() != null ? decision.getId() : decision.getName();
         
-        // Log decision table rules for debugging
+        // Trace decision table rules for debugging
+        if (!Tracer.isEnabled(Tracer.Level.DEBUG)) {
+            return key;
+        }
         try {
             org.camunda.bpm.model.dmn.instance.DecisionTable decisionTable = 
                 modelInstance.getModelElementsByType(org.camunda.bpm.model.dmn.instance.DecisionTable.class)
                     .stream().findFirst().orElse(null);
             if (decisionTable != null) {
-                System.out.println("DMN Decision Table Rules:");
                 Collection<org.camunda.bpm.model.dmn.instance.Rule> rules = 
                     modelInstance.getModelElementsByType(org.camunda.bpm.model.dmn.instance.Rule.class);
                 for (org.camunda.bpm.model.dmn.instance.Rule rule : rules) {
@@ -86,7 +298,7 @@ public class DMNEvaluator {
                         rule.getInputEntries();
                     Collection<org.camunda.bpm.model.dmn.instance.OutputEntry> outputEntries = 
                         rule.getOutputEntries();
-                    StringBuilder ruleDesc = new StringBuilder("  Rule: ");
+                    StringBuilder ruleDesc = new StringBuilder();
                     for (org.camunda.bpm.model.dmn.instance.InputEntry entry : inputEntries) {
                         String text = entry.getTextContent();
                         if (text != null && !text.trim().isEmpty()) {
@@ -100,11 +312,11 @@ public class DMNEvaluator {
                             ruleDesc.append(text);
                         }
                     }
-                    System.out.println(ruleDesc.toString());
+                    Tracer.record(Tracer.event(TraceEvent.Type.DMN_RULE, rule.getId(), ruleDesc.toString()));
                 }
             }
         } catch (Exception e) {
-            System.out.println("Could not extract DMN rules for logging: " + e.getMessage());
+            System.err.println("Could not extract DMN rules for tracing: " + e.getMessage());
         }
         
         return key;
@@ -114,94 +326,345 @@ public class DMNEvaluator {
      * Evaluate a DMN decision using the uploaded DMN file.
      * Always uses the DMN file logic if available. Throws exception if DMN file is not loaded.
      * 
+     * The result holds the output entries of every matched rule, as ordered
+     * or aggregated by the decision's hit policy, with typed values.
+     * 
      * @param decisionKey The decision key/ID to evaluate (uses current decisionKey if null)
      * @param variables The input variables for the decision
      * @return DMNResult containing the decision output
      * @throws IllegalStateException if no DMN file is loaded
      */
     public DMNResult evaluate(String decisionKey, Map<String, Object> variables) {
-        // Always reload DMN file to ensure we have the latest version (no caching)
-        // This ensures any changes to the uploaded DMN file are immediately reflected
-        DmnModelInstance oldInstance = this.dmnModelInstance;
-        loadDmnFile();
-        
-        // Log if we got a new instance
-        if (oldInstance != this.dmnModelInstance) {
-            System.out.println("DMN model instance changed - new file loaded");
-        }
-        
-        if (dmnModelInstance == null) {
+        // Re-parses only if the uploaded DMN file changed since the last evaluation
+        return evaluate(current(), decisionKey, variables);
+    }
+    
+    /**
+     * Evaluate a DMN decision against a pinned snapshot, for callers that
+     * evaluate several decisions of one request against the same file.
+     *
+     * @see #evaluate(String, Map)
+     */
+    DMNResult evaluate(LoadedDecisions snapshot, String decisionKey, Map<String, Object> variables) {
+        if (snapshot.modelInstance == null) {
             throw new IllegalStateException("No DMN file is loaded. Please upload a DMN file first.");
         }
         
         // Use provided decisionKey or fall back to the extracted one
-        String keyToUse = decisionKey != null ? decisionKey : this.decisionKey;
+        String keyToUse = decisionKey != null ? decisionKey : snapshot.decisionKey;
         if (keyToUse == null) {
             throw new IllegalStateException("No decision key available. DMN file may be invalid.");
         }
         
         try {
-            System.out.println("Evaluating DMN decision: " + keyToUse + " with variables: " + variables);
-            System.out.println("DMN model instance hash: " + (dmnModelInstance != null ? dmnModelInstance.hashCode() : "null"));
-            
-            // Evaluate the decision using the actual DMN file
-            DmnDecisionResult decisionResult = dmnEngine.evaluateDecision(keyToUse, dmnModelInstance, variables);
-            
-            // Extract the result
-            if (decisionResult.isEmpty()) {
-                System.err.println("Warning: DMN decision returned no results");
-                return new DMNResult("No result");
+            DmnDecision decision = snapshot.decisions.get(keyToUse);
+            if (decision == null) {
+                throw new IllegalArgumentException("Decision '" + keyToUse + "' not found in the DMN file");
             }
             
-            // Get the first result entry
-            DmnDecisionResultEntries result = decisionResult.getFirstResult();
-            if (result.isEmpty()) {
-                System.err.println("Warning: DMN decision result is empty");
-                return new DMNResult("No result");
+            // Indexed tables first; the engine evaluates what the index does not cover
+            long start = System.nanoTime();
+            Map<String, List<String>> matchedRules = new ConcurrentHashMap<>();
+            List<Map<String, Object>> results;
+            if (snapshot.indexedGraphs.contains(keyToUse)) {
+                Map<String, Object> entries = new GraphEvaluation(snapshot, variables, matchedRules).evaluate(decision);
+                results = entries.isEmpty() ? List.of() : List.of(entries);
+            } else {
+                results = evaluateAllWithEngine(snapshot, decision, variables, matchedRules);
             }
+            snapshot.metrics.get(keyToUse).recordLatency(System.nanoTime() - start);
+            matchedRules = Map.copyOf(matchedRules);
             
-            // Extract quoteValidity or the first output value
-            Object quoteValidityObj = result.getEntry("quoteValidity");
-            String quoteValidity = null;
-            if (quoteValidityObj != null) {
-                quoteValidity = quoteValidityObj.toString();
-                // Remove quotes if present
-                if (quoteValidity.startsWith("\"") && quoteValidity.endsWith("\"")) {
-                    quoteValidity = quoteValidity.substring(1, quoteValidity.length() - 1);
-                }
+            // Extract the result; no match is a normal outcome, counted in the decision's metrics
+            if (results.isEmpty()) {
+                return new DMNResult("No result", results, matchedRules);
             }
             
+            // quoteValidity, or else the first output value of the first result
+            Map<String, Object> first = results.get(0);
+            Object quoteValidity = first.get("quoteValidity");
             if (quoteValidity == null) {
-                // Try to get any output value
-                if (!result.isEmpty()) {
-                    // Get the first entry value
-                    for (String key : result.keySet()) {
-                        Object value = result.getEntry(key);
-                        if (value != null) {
-                            quoteValidity = value.toString();
-                            // Remove quotes if present
-                            if (quoteValidity.startsWith("\"") && quoteValidity.endsWith("\"")) {
-                                quoteValidity = quoteValidity.substring(1, quoteValidity.length() - 1);
-                            }
-                            break;
-                        }
+                for (Object value : first.values()) {
+                    if (value != null) {
+                        quoteValidity = value;
+                        break;
                     }
                 }
-                if (quoteValidity == null) {
-                    quoteValidity = "No result";
-                }
             }
-            
-            System.out.println("DMN evaluation result: " + quoteValidity);
-            return new DMNResult(quoteValidity);
+            return new DMNResult(quoteValidity != null ? quoteValidity.toString() : "No result", results,
+                matchedRules);
         } catch (Exception e) {
-            System.err.println("Error evaluating DMN decision: " + e.getMessage());
-            e.printStackTrace();
             // Re-throw the exception instead of falling back to hardcoded logic
             throw new RuntimeException("Failed to evaluate DMN decision: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Output entries of the single result of a decision, or an empty map.
+     */
+    private Map<String, Object> evaluateWithEngine(LoadedDecisions snapshot, DmnDecision decision,
+                                                   Map<String, Object> variables,
+                                                   Map<String, List<String>> matchedRules) {
+        DmnDecisionResult decisionResult = evaluateOnEngine(snapshot, decision, variables, matchedRules);
+        return decisionResult.isEmpty() ? Map.of() : decisionResult.getFirstResult().getEntryMap();
+    }
+    
+    /**
+     * Output entries of every result of a decision, in the order of the hit
+     * policy; a single entry for COLLECT with an aggregator. Values keep the
+     * types the engine converted them to.
+     */
+    private List<Map<String, Object>> evaluateAllWithEngine(LoadedDecisions snapshot, DmnDecision decision,
+                                                            Map<String, Object> variables,
+                                                            Map<String, List<String>> matchedRules) {
+        DmnDecisionResult decisionResult = evaluateOnEngine(snapshot, decision, variables, matchedRules);
+        List<Map<String, Object>> results = new ArrayList<>(decisionResult.size());
+        for (DmnDecisionResultEntries entries : decisionResult) {
+            results.add(entries.getEntryMap());
+        }
+        return results;
+    }
+    
+    /**
+     * Evaluate a decision on the engine, collecting the rules it matches and
+     * counting them in the metrics of the pinned snapshot.
+     */
+    private DmnDecisionResult evaluateOnEngine(LoadedDecisions snapshot, DmnDecision decision,
+                                               Map<String, Object> variables,
+                                               Map<String, List<String>> matchedRules) {
+        EngineCall outer = engineCall.get();
+        engineCall.set(new EngineCall(snapshot.metrics, matchedRules));
+        try {
+            return dmnEngine.evaluateDecision(decision, variables);
+        } finally {
+            if (outer != null) {
+                engineCall.set(outer);
+            } else {
+                engineCall.remove();
+            }
+        }
+    }
+    
+    /**
+     * Metrics of the snapshot an engine call evaluates, and where it reports matched rules.
+     */
+    private static final class EngineCall {
+        final Map<String, DecisionMetrics> metrics;
+        final Map<String, List<String>> matchedRules;
+        
+        EngineCall(Map<String, DecisionMetrics> metrics, Map<String, List<String>> matchedRules) {
+            this.metrics = metrics;
+            this.matchedRules = matchedRules;
+        }
+    }
+    
+    /**
+     * Count the rules matched by the engine and report them to the caller.
+     * Indexed evaluations are counted by {@link #evaluateIndexed}, which
+     * leaves the count to this listener whenever it also runs the engine.
+     */
+    private void recordEngineEvaluation(DmnDecisionEvaluationEvent event) {
+        EngineCall call = engineCall.get();
+        if (call == null) {
+            // Not an evaluation of this evaluator
+            return;
+        }
+        recordEngineEvaluation(call.metrics, call.matchedRules, event.getDecisionResult());
+        for (DmnDecisionLogicEvaluationEvent required : event.getRequiredDecisionResults()) {
+            recordEngineEvaluation(call.metrics, call.matchedRules, required);
+        }
+    }
+    
+    private static void recordEngineEvaluation(Map<String, DecisionMetrics> metrics,
+                                               Map<String, List<String>> matchedRules,
+                                               DmnDecisionLogicEvaluationEvent event) {
+        if (!(event instanceof DmnDecisionTableEvaluationEvent)) {
+            return;
+        }
+        List<String> ruleIds = new ArrayList<>();
+        for (DmnEvaluatedDecisionRule rule : ((DmnDecisionTableEvaluationEvent) event).getMatchingRules()) {
+            ruleIds.add(rule.getId());
+        }
+        if (matchedRules != null) {
+            matchedRules.put(event.getDecision().getKey(), List.copyOf(ruleIds));
+        }
+        DecisionMetrics decisionMetrics = metrics.get(event.getDecision().getKey());
+        if (decisionMetrics != null) {
+            decisionMetrics.recordRules(ruleIds);
+        }
+    }
+    
+    /**
+     * Evaluate an indexed table, falling back to the engine for inputs the
+     * index does not cover, and cross-check sampled results of generated
+     * classes against the engine.
+     */
+    private Map<String, Object> evaluateIndexed(LoadedDecisions snapshot, DmnDecision decision,
+                                                Map<String, Object> variables, Map<String, List<String>> matchedRules) {
+        IndexedDecisionTable table = snapshot.indexedTables.get(decision.getKey());
+        boolean compiled = table.isMaterialized() || table.isGenerated();
+        int rule = table.evaluateRule(variables);
+        if (rule == IndexedDecisionTable.NOT_INDEXED) {
+            return evaluateWithEngine(snapshot, decision, variables, matchedRules);
+        }
+        Map<String, Object> result = table.getOutput(rule);
+        matchedRules.put(decision.getKey(), rule < 0 ? List.of() : List.of(table.getRuleId(rule)));
+        int sampleRate = differentialSampleRate;
+        if (compiled && sampleRate > 0 && ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            differentialChecks.increment();
+            Map<String, Object> expected = evaluateWithEngine(snapshot, decision, variables, matchedRules);
+            if (!expected.equals(result)) {
+                differentialMismatches.increment();
+                System.err.println("Compiled table of decision " + decision.getKey() + " returned " + result
+                    + " instead of " + expected + " for " + variables + "; using the index from now on");
+                table.discardGeneratedClass();
+                return expected;
+            }
+            return result;
+        }
+        snapshot.metrics.get(decision.getKey()).recordRule(rule);
+        return result;
+    }
+    
+    /**
+     * Repeat one in {@code sampleRate} evaluations served by a materialized
+     * table or generated class on the DMN engine and compare the results; 0
+     * disables the checks, 1 checks every evaluation.
+     */
+    public void setDifferentialTesting(int sampleRate) {
+        if (sampleRate < 0) {
+            throw new IllegalArgumentException("sampleRate must not be negative");
+        }
+        this.differentialSampleRate = sampleRate;
+    }
+    
+    /**
+     * Number of evaluations compared against the engine by differential testing.
+     */
+    public long getDifferentialChecks() {
+        return differentialChecks.sum();
+    }
+    
+    /**
+     * Number of differential comparisons where the materialized table or generated class disagreed with the engine.
+     */
+    public long getDifferentialMismatches() {
+        return differentialMismatches.sum();
+    }
+    
+    /**
+     * One evaluation of a decision requirements graph. Results of required
+     * decisions are memoized for the duration of the request, so a decision
+     * shared by several others is evaluated once.
+     */
+    private final class GraphEvaluation {
+        private final LoadedDecisions snapshot;
+        private final Map<String, Object> variables;
+        private final Map<String, List<String>> matchedRules;
+        private final ConcurrentHashMap<String, CompletableFuture<Map<String, Object>>> results =
+            new ConcurrentHashMap<>();
+        
+        GraphEvaluation(LoadedDecisions snapshot, Map<String, Object> variables,
+                        Map<String, List<String>> matchedRules) {
+            this.snapshot = snapshot;
+            this.variables = variables;
+            this.matchedRules = matchedRules;
+        }
+        
+        /**
+         * Evaluate the required decisions, then the decision itself with their
+         * output entries added to the input variables.
+         */
+        Map<String, Object> evaluate(DmnDecision decision) {
+            Map<String, Object> scope = variables;
+            Collection<DmnDecision> requiredDecisions = decision.getRequiredDecisions();
+            if (!requiredDecisions.isEmpty()) {
+                List<CompletableFuture<Map<String, Object>>> required = new ArrayList<>();
+                int remaining = requiredDecisions.size();
+                for (DmnDecision requiredDecision : requiredDecisions) {
+                    // The last one runs on this thread
+                    required.add(resolve(requiredDecision, --remaining > 0 && requiredDecisionPool != null));
+                }
+                scope = new HashMap<>(variables);
+                try {
+                    for (CompletableFuture<Map<String, Object>> result : required) {
+                        scope.putAll(result.join());
+                    }
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+            return evaluateIndexed(snapshot, decision, scope, matchedRules);
+        }
+        
+        private CompletableFuture<Map<String, Object>> resolve(DmnDecision decision, boolean fork) {
+            CompletableFuture<Map<String, Object>> result = results.get(decision.getKey());
+            if (result != null) {
+                return result;
+            }
+            CompletableFuture<Map<String, Object>> created = new CompletableFuture<>();
+            result = results.putIfAbsent(decision.getKey(), created);
+            if (result != null) {
+                return result;
+            }
+            if (fork) {
+                requiredDecisionPool.execute(() -> complete(created, decision));
+            } else {
+                complete(created, decision);
+            }
+            return created;
+        }
+        
+        private void complete(CompletableFuture<Map<String, Object>> result, DmnDecision decision) {
+            try {
+                Map<String, Object> entries = evaluate(decision);
+                if (Tracer.isEnabled(Tracer.Level.DEBUG)) {
+                    Tracer.record(Tracer.event(TraceEvent.Type.DMN_REQUIRED_DECISION, decision.getKey(),
+                        entries.toString()));
+                }
+                result.complete(entries);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+    
+    /**
+     * Evaluate a decision table over columns of inputs, with no variable map
+     * or engine result per row. See {@link IndexedDecisionTable#evaluateColumns(Map, int)}.
+     *
+     * @param decisionKey the decision to evaluate (uses current decisionKey if null)
+     * @throws IllegalStateException if no DMN file is loaded, or the decision is
+     *         not an indexed decision table without required decisions
+     */
+    public ColumnarDecisionResult evaluateColumns(String decisionKey, Map<String, ?> columns, int rows) {
+        LoadedDecisions snapshot = current();
+        if (snapshot.modelInstance == null) {
+            throw new IllegalStateException("No DMN file is loaded. Please upload a DMN file first.");
+        }
+        String keyToUse = decisionKey != null ? decisionKey : snapshot.decisionKey;
+        DmnDecision decision = keyToUse != null ? snapshot.decisions.get(keyToUse) : null;
+        IndexedDecisionTable table = keyToUse != null ? snapshot.indexedTables.get(keyToUse) : null;
+        if (decision == null || table == null || !decision.getRequiredDecisions().isEmpty()) {
+            throw new IllegalStateException("Decision '" + keyToUse
+                + "' is not an indexed decision table without required decisions");
+        }
+        ColumnarDecisionResult result = table.evaluateColumns(columns, rows);
+        snapshot.metrics.get(keyToUse).recordRules(result.getRuleIndices());
+        return result;
+    }
+    
+    /**
+     * Evaluate the entry_level_camunda_exercise_v1_0 DMN decision over columns of inputs.
+     */
+    public ColumnarDecisionResult evaluateColumns(double[] dealMarginPercent, boolean[] manualPriceCost) {
+        if (dealMarginPercent.length != manualPriceCost.length) {
+            throw new IllegalArgumentException("Columns have different lengths");
+        }
+        return evaluateColumns(null, Map.of("dealMarginPercent", dealMarginPercent,
+            "manualPriceCost", manualPriceCost), dealMarginPercent.length);
+    }
+    
     /**
      * Evaluate the entry_level_camunda_exercise_v1_0 DMN decision.
      * Always uses the uploaded DMN file logic. No hardcoded fallback.
@@ -220,21 +683,223 @@ public class DMNEvaluator {
         );
         
         // Always use the DMN file - no fallback to hardcoded logic
-        return evaluate(decisionKey, variables);
+        return evaluate(null, variables);
+    }
+    
+    /**
+     * Change the entries of one rule of a decision table. A null list, or a
+     * null element, leaves those entries unchanged.
+     *
+     * @throws NoSuchElementException if there is no such decision table or rule
+     * @throws IllegalArgumentException if a list does not have one entry per column
+     * @throws IllegalStateException if no DMN file is loaded
+     */
+    public synchronized RuleEdit updateRule(String decisionKey, String ruleId, List<String> inputEntries,
+                                            List<String> outputEntries) {
+        return editRule(decisionKey, RuleEdit.Type.UPDATED, (model, table) -> {
+            Rule rule = findRule(table, ruleId);
+            List<InputEntry> inputs = new ArrayList<>(rule.getInputEntries());
+            List<OutputEntry> outputs = new ArrayList<>(rule.getOutputEntries());
+            checkEntries(inputEntries, inputs.size(), "input");
+            checkEntries(outputEntries, outputs.size(), "output");
+            for (int i = 0; inputEntries != null && i < inputs.size(); i++) {
+                if (inputEntries.get(i) != null) {
+                    inputs.get(i).setText(text(model, inputEntries.get(i)));
+                }
+            }
+            for (int i = 0; outputEntries != null && i < outputs.size(); i++) {
+                if (outputEntries.get(i) != null) {
+                    outputs.get(i).setText(text(model, outputEntries.get(i)));
+                }
+            }
+            return ruleId;
+        });
+    }
+    
+    /**
+     * Add a rule to a decision table.
+     *
+     * @param ruleId id of the new rule, or null to generate one
+     * @param index position of the new rule; the end of the table if negative or too large
+     * @throws NoSuchElementException if there is no such decision table
+     * @throws IllegalArgumentException if the id is taken or an entry is missing
+     * @throws IllegalStateException if no DMN file is loaded
+     */
+    public synchronized RuleEdit addRule(String decisionKey, String ruleId, int index, List<String> inputEntries,
+                                         List<String> outputEntries) {
+        return editRule(decisionKey, RuleEdit.Type.ADDED, (model, table) -> {
+            if (ruleId != null && model.getModelElementById(ruleId) != null) {
+                throw new IllegalArgumentException("Id '" + ruleId + "' is already used in the DMN file");
+            }
+            if (inputEntries == null || outputEntries == null) {
+                throw new IllegalArgumentException("A new rule needs input and output entries");
+            }
+            checkEntries(inputEntries, table.getInputs().size(), "input");
+            checkEntries(outputEntries, table.getOutputs().size(), "output");
+            Rule rule = model.newInstance(Rule.class);
+            if (ruleId != null) {
+                rule.setId(ruleId);
+            }
+            for (String entry : inputEntries) {
+                InputEntry inputEntry = model.newInstance(InputEntry.class);
+                inputEntry.setText(text(model, entry != null ? entry : "-"));
+                rule.getInputEntries().add(inputEntry);
+            }
+            for (String entry : outputEntries) {
+                OutputEntry outputEntry = model.newInstance(OutputEntry.class);
+                outputEntry.setText(text(model, entry != null ? entry : ""));
+                rule.getOutputEntries().add(outputEntry);
+            }
+            List<Rule> rules = new ArrayList<>(table.getRules());
+            table.getRules().add(rule);
+            if (index >= 0 && index < rules.size()) {
+                // Added after the last rule; move it before rules[index]
+                DomElement tableElement = table.getDomElement();
+                DomElement ruleElement = rule.getDomElement();
+                tableElement.removeChild(ruleElement);
+                DomElement after = index > 0 ? rules.get(index - 1).getDomElement() : null;
+                if (index == 0) {
+                    DomElement first = rules.get(0).getDomElement();
+                    for (DomElement child : tableElement.getChildElements()) {
+                        if (child.equals(first)) {
+                            break;
+                        }
+                        after = child;
+                    }
+                }
+                tableElement.insertChildElementAfter(ruleElement, after);
+            }
+            return rule.getId();
+        });
+    }
+    
+    /**
+     * Delete a rule from a decision table.
+     *
+     * @throws NoSuchElementException if there is no such decision table or rule
+     * @throws IllegalStateException if no DMN file is loaded
+     */
+    public synchronized RuleEdit deleteRule(String decisionKey, String ruleId) {
+        return editRule(decisionKey, RuleEdit.Type.DELETED, (model, table) -> {
+            table.getRules().remove(findRule(table, ruleId));
+            return ruleId;
+        });
+    }
+    
+    /**
+     * Apply an edit to a copy of the current model and publish it. Only the
+     * edited decision is re-indexed and gets new counters; the indexes
+     * (with their materialized tables, generated classes and class caches)
+     * and counters of the other decisions carry over. The edited file
+     * replaces the stored one and is published under the evaluator's lock,
+     * so {@link #current()} never parses it again.
+     *
+     * @param edit changes the table and returns the id of the edited rule
+     */
+    private RuleEdit editRule(String decisionKey, RuleEdit.Type type,
+                              BiFunction<DmnModelInstance, DecisionTable, String> edit) {
+        LoadedDecisions snapshot = current();
+        if (snapshot.modelInstance == null) {
+            throw new IllegalStateException("No DMN file is loaded. Please upload a DMN file first.");
+        }
+        DmnModelInstance model = snapshot.modelInstance.clone();
+        ModelElementInstance element = decisionKey != null ? model.getModelElementById(decisionKey) : null;
+        if (!(element instanceof Decision) || !(((Decision) element).getExpression() instanceof DecisionTable)) {
+            throw new NoSuchElementException("No decision table '" + decisionKey + "' in the DMN file");
+        }
+        Decision decision = (Decision) element;
+        DecisionTable table = (DecisionTable) decision.getExpression();
+        String ruleId = edit.apply(model, table);
+        
+        Map<String, DmnDecision> decisions = new HashMap<>();
+        for (DmnDecision parsed : dmnEngine.parseDecisions(model)) {
+            decisions.put(parsed.getKey(), parsed);
+        }
+        Map<String, IndexedDecisionTable> indexedTables = new HashMap<>(snapshot.indexedTables);
+        IndexedDecisionTable indexed = IndexedDecisionTable.compile(decision);
+        if (indexed != null) {
+            indexed.materialize();
+            indexedTables.put(decisionKey, indexed);
+        } else {
+            indexedTables.remove(decisionKey);
+        }
+        Set<String> indexedGraphs = new HashSet<>();
+        for (String key : decisions.keySet()) {
+            if (isIndexedGraph(decisions.get(key), indexedTables, new HashSet<>())) {
+                indexedGraphs.add(key);
+            }
+        }
+        Map<String, DecisionMetrics> metrics = new LinkedHashMap<>(snapshot.metrics);
+        List<String> ruleOrder = ruleIds(decision);
+        metrics.put(decisionKey, new DecisionMetrics(decisionKey, ruleOrder));
+        
+        FileManager.Deployment deployment = fileManager.storeDmnFile(fileManager.getDefaultDmnFileName(),
+            Dmn.convertToString(model).getBytes(StandardCharsets.UTF_8));
+        loaded.set(new LoadedDecisions(deployment.getHash(), model, snapshot.decisionKey, decisions,
+            indexedTables, indexedGraphs, metrics));
+        if (Tracer.isEnabled(Tracer.Level.DEBUG)) {
+            Tracer.record(Tracer.event(TraceEvent.Type.DMN_MODEL_LOADED, decisionKey,
+                "rule " + ruleId + " " + type.name().toLowerCase()));
+        }
+        return new RuleEdit(type, decisionKey, ruleId, table.getHitPolicy() == HitPolicy.FIRST, ruleOrder,
+            snapshot.contentHash);
+    }
+    
+    private static Rule findRule(DecisionTable table, String ruleId) {
+        for (Rule rule : table.getRules()) {
+            if (rule.getId().equals(ruleId)) {
+                return rule;
+            }
+        }
+        throw new NoSuchElementException("No rule '" + ruleId + "' in decision table " + table.getId());
+    }
+    
+    private static void checkEntries(List<String> entries, int columns, String kind) {
+        if (entries != null && entries.size() != columns) {
+            throw new IllegalArgumentException("Expected " + columns + " " + kind + " entries, got " + entries.size());
+        }
+    }
+    
+    private static Text text(DmnModelInstance model, String content) {
+        Text text = model.newInstance(Text.class);
+        text.setTextContent(content);
+        return text;
+    }
+    
+    /**
+     * Counters of the decisions of the current DMN file, in document order.
+     */
+    public Collection<DecisionMetrics> getMetrics() {
+        return Collections.unmodifiableCollection(current().metrics.values());
+    }
+    
+    /**
+     * Counters of one decision of the current DMN file, or null if there is no such decision.
+     */
+    public DecisionMetrics getMetrics(String decisionKey) {
+        return current().metrics.get(decisionKey);
     }
     
     /**
      * Get the current decision key.
      */
     public String getDecisionKey() {
-        return decisionKey;
+        return current().decisionKey;
+    }
+    
+    /**
+     * Get the loaded DMN model, or null if none is loaded.
+     */
+    public DmnModelInstance getDmnModelInstance() {
+        return current().modelInstance;
     }
     
     /**
      * Check if a DMN file is loaded.
      */
     public boolean isDmnLoaded() {
-        return dmnModelInstance != null && decisionKey != null;
+        LoadedDecisions snapshot = current();
+        return snapshot.modelInstance != null && snapshot.decisionKey != null;
     }
 }
 
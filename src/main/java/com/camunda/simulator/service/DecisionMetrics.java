@@ -0,0 +1,148 @@
+package com.camunda.simulator.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluation counters of one decision: hits per rule, evaluations that
+ * matched no rule, and the latency of evaluating the decision. Created per
+ * loaded DMN file, so uploading a file starts from zero.
+ */
+public final class DecisionMetrics {
+
+    private final String decisionKey;
+    private final String[] ruleIds;
+    private final LongAdder[] ruleHits;
+    private final Map<String, Integer> ruleIndex = new HashMap<>();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder noMatch = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * @param ruleIds ids of the rules of the decision table in rule order;
+     *        empty for a decision that is not a decision table
+     */
+    DecisionMetrics(String decisionKey, List<String> ruleIds) {
+        this.decisionKey = decisionKey;
+        this.ruleIds = ruleIds.toArray(new String[0]);
+        this.ruleHits = new LongAdder[this.ruleIds.length];
+        for (int rule = 0; rule < ruleHits.length; rule++) {
+            ruleHits[rule] = new LongAdder();
+            ruleIndex.putIfAbsent(this.ruleIds[rule], rule);
+        }
+    }
+
+    /**
+     * Count an evaluation of the table by the index of the matched rule (-1 for none).
+     */
+    void recordRule(int rule) {
+        evaluations.increment();
+        if (rule < 0) {
+            noMatch.increment();
+        } else {
+            ruleHits[rule].increment();
+        }
+    }
+
+    /**
+     * Count an evaluation of the decision by the ids of its matched rules.
+     */
+    void recordRules(List<String> matchedRuleIds) {
+        evaluations.increment();
+        if (matchedRuleIds.isEmpty()) {
+            noMatch.increment();
+        }
+        for (String ruleId : matchedRuleIds) {
+            Integer rule = ruleIndex.get(ruleId);
+            if (rule != null) {
+                ruleHits[rule].increment();
+            }
+        }
+    }
+
+    /**
+     * Count a batch of columnar evaluations by the matched rule of each row.
+     */
+    void recordRules(int[] ruleIndices) {
+        long[] hits = new long[ruleHits.length];
+        long misses = 0;
+        for (int rule : ruleIndices) {
+            if (rule < 0) {
+                misses++;
+            } else {
+                hits[rule]++;
+            }
+        }
+        evaluations.add(ruleIndices.length);
+        noMatch.add(misses);
+        for (int rule = 0; rule < hits.length; rule++) {
+            if (hits[rule] > 0) {
+                ruleHits[rule].add(hits[rule]);
+            }
+        }
+    }
+
+    void recordLatency(long nanos) {
+        latency.record(nanos);
+    }
+
+    public String getDecisionKey() {
+        return decisionKey;
+    }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    public long getNoMatch() {
+        return noMatch.sum();
+    }
+
+    /**
+     * Hits per rule id, in rule order.
+     */
+    public List<RuleHits> getRules() {
+        List<RuleHits> rules = new ArrayList<>(ruleIds.length);
+        for (int rule = 0; rule < ruleIds.length; rule++) {
+            rules.add(new RuleHits(ruleIds[rule], ruleHits[rule].sum()));
+        }
+        return rules;
+    }
+
+    /**
+     * Ids of the rules that never matched; candidates for removal.
+     */
+    public List<String> getUnusedRules() {
+        List<String> unused = new ArrayList<>();
+        for (int rule = 0; rule < ruleIds.length; rule++) {
+            if (ruleHits[rule].sum() == 0) {
+                unused.add(ruleIds[rule]);
+            }
+        }
+        return Collections.unmodifiableList(unused);
+    }
+
+    /**
+     * Latency of evaluating the decision, including its required decisions.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public static class RuleHits {
+        private final String ruleId;
+        private final long hits;
+
+        RuleHits(String ruleId, long hits) {
+            this.ruleId = ruleId;
+            this.hits = hits;
+        }
+
+        public String getRuleId() { return ruleId; }
+        public long getHits() { return hits; }
+    }
+}
@@ -0,0 +1,517 @@
+package com.camunda.simulator.service;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Generates a hidden class implementing {@link RuleMatcher} for one indexed
+ * decision table. The match method tests the rules in order with
+ * straight-line code: numeric tests compare the unboxed column value with
+ * constant bounds, key tests call equals on a constant, and the method
+ * returns the rule index as soon as a rule matches (FIRST) or after checking
+ * that no second rule matches (UNIQUE).
+ *
+ * The class file is written directly; the code has a single frame shape (an
+ * empty stack and one int local), so the StackMapTable only lists offsets.
+ * Tables whose match method would exceed the class file limits get no class.
+ */
+final class DecisionTableClassGenerator {
+
+    private static final String CLASS_NAME = "com/camunda/simulator/service/GeneratedRuleMatcher";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String BOOLEAN = "java/lang/Boolean";
+    private static final String STRING = "java/lang/String";
+
+    // Opcodes
+    private static final int ICONST_M1 = 0x02;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int ILOAD_3 = 0x1d;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int DALOAD = 0x31;
+    private static final int AALOAD = 0x32;
+    private static final int ISTORE_3 = 0x3e;
+    private static final int DCMPL = 0x97;
+    private static final int DCMPG = 0x98;
+    private static final int IFEQ = 0x99;
+    private static final int IFLT = 0x9b;
+    private static final int IFGE = 0x9c;
+    private static final int IFGT = 0x9d;
+    private static final int IFLE = 0x9e;
+    private static final int GOTO = 0xa7;
+    private static final int IRETURN = 0xac;
+    private static final int RETURN = 0xb1;
+    private static final int GETSTATIC = 0xb2;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int IFNONNULL = 0xc7;
+
+    private static final int MAX_CODE_LENGTH = 65535;
+    private static final int MAX_POOL_SIZE = 65535;
+
+    private final IndexedDecisionTable table;
+    private final ConstantPool pool = new ConstantPool();
+    private final Bytes code = new Bytes();
+    private final List<Label> labels = new ArrayList<>();
+    private final List<int[]> branches = new ArrayList<>();
+
+    private DecisionTableClassGenerator(IndexedDecisionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Generate and load the matcher class of a table.
+     *
+     * @return a matcher, or null if the table is too large for one method
+     */
+    static RuleMatcher generate(IndexedDecisionTable table) {
+        byte[] classFile;
+        try {
+            classFile = new DecisionTableClassGenerator(table).classFile();
+        } catch (IllegalStateException e) {
+            System.err.println("No generated class for decision " + table.getDecisionKey() + ": " + e.getMessage());
+            return null;
+        }
+        try {
+            Class<?> matcherClass = MethodHandles.lookup().defineHiddenClass(classFile, true).lookupClass();
+            return (RuleMatcher) matcherClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("Failed to load generated class for decision " + table.getDecisionKey() + ": " + e);
+            return null;
+        }
+    }
+
+    private byte[] classFile() {
+        emitMatch();
+        int thisClass = pool.classRef(CLASS_NAME);
+        int superClass = pool.classRef(OBJECT);
+        int matcherInterface = pool.classRef(RuleMatcher.class.getName().replace('.', '/'));
+        int init = pool.utf8("<init>");
+        int voidDescriptor = pool.utf8("()V");
+        int objectInit = pool.methodRef(OBJECT, "<init>", "()V");
+        int match = pool.utf8("match");
+        int matchDescriptor = pool.utf8("([D[Ljava/lang/Object;)I");
+        int codeName = pool.utf8("Code");
+        int stackMapName = pool.utf8("StackMapTable");
+        if (pool.size() > MAX_POOL_SIZE) {
+            throw new IllegalStateException("constant pool too large");
+        }
+
+        Bytes out = new Bytes();
+        out.u4(0xCAFEBABE);
+        out.u2(0);
+        out.u2(61); // Java 17
+        out.u2(pool.size());
+        out.bytes(pool.entries.toByteArray());
+        out.u2(0x0031); // public final super
+        out.u2(thisClass);
+        out.u2(superClass);
+        out.u2(1);
+        out.u2(matcherInterface);
+        out.u2(0); // fields
+        out.u2(2); // methods
+
+        // public <init>() { super(); }
+        out.u2(0x0001);
+        out.u2(init);
+        out.u2(voidDescriptor);
+        out.u2(1);
+        out.u2(codeName);
+        out.u4(12 + 5);
+        out.u2(1);
+        out.u2(1);
+        out.u4(5);
+        out.u1(ALOAD_0);
+        out.u1(INVOKESPECIAL);
+        out.u2(objectInit);
+        out.u1(RETURN);
+        out.u2(0);
+        out.u2(0);
+
+        // public int match(double[] numbers, Object[] values)
+        byte[] stackMap = stackMapTable();
+        out.u2(0x0001);
+        out.u2(match);
+        out.u2(matchDescriptor);
+        out.u2(1);
+        out.u2(codeName);
+        out.u4(12 + code.length() + (stackMap != null ? 6 + stackMap.length : 0));
+        out.u2(4); // max stack: two doubles
+        out.u2(4); // this, numbers, values, found
+        out.u4(code.length());
+        out.bytes(code.toByteArray());
+        out.u2(0);
+        if (stackMap != null) {
+            out.u2(1);
+            out.u2(stackMapName);
+            out.u4(stackMap.length);
+            out.bytes(stackMap);
+        } else {
+            out.u2(0);
+        }
+        out.u2(0); // class attributes
+        return out.toByteArray();
+    }
+
+    private void emitMatch() {
+        code.u1(ICONST_M1);
+        code.u1(ISTORE_3);
+        for (int rule = 0; rule < table.getRuleCount(); rule++) {
+            if (!canMatch(rule)) {
+                continue;
+            }
+            Label next = new Label();
+            for (int column = 0; column < table.getColumnCount(); column++) {
+                IndexedDecisionTable.Cell cell = table.getCell(rule, column);
+                if (cell.any) {
+                    continue;
+                }
+                List<Object> alternatives = new ArrayList<>(cell.intervals);
+                alternatives.addAll(cell.keys);
+                Label pass = new Label();
+                for (int i = 0; i < alternatives.size(); i++) {
+                    boolean last = i == alternatives.size() - 1;
+                    Label fail = last ? next : new Label();
+                    emitTest(alternatives.get(i), column, fail);
+                    if (!last) {
+                        branch(GOTO, pass);
+                        bind(fail);
+                    }
+                }
+                bind(pass);
+            }
+            if (table.isUnique()) {
+                // if (found >= 0) return CONFLICT; found = rule;
+                Label first = new Label();
+                code.u1(ILOAD_3);
+                branch(IFLT, first);
+                pushInt(RuleMatcher.CONFLICT);
+                code.u1(IRETURN);
+                bind(first);
+                pushInt(rule);
+                code.u1(ISTORE_3);
+            } else {
+                pushInt(rule);
+                code.u1(IRETURN);
+            }
+            bind(next);
+            if (code.length() > MAX_CODE_LENGTH) {
+                throw new IllegalStateException("match method too large");
+            }
+        }
+        code.u1(ILOAD_3);
+        code.u1(IRETURN);
+        if (code.length() > MAX_CODE_LENGTH) {
+            throw new IllegalStateException("match method too large");
+        }
+        for (int[] branch : branches) {
+            int offset = labels.get(branch[1]).position - branch[0];
+            if (offset > Short.MAX_VALUE) {
+                throw new IllegalStateException("branch too long");
+            }
+            code.patchU2(branch[0] + 1, offset);
+        }
+    }
+
+    /**
+     * A rule with a column that accepts no value (e.g. an empty range) never matches.
+     */
+    private boolean canMatch(int rule) {
+        for (int column = 0; column < table.getColumnCount(); column++) {
+            IndexedDecisionTable.Cell cell = table.getCell(rule, column);
+            if (!cell.any && cell.intervals.isEmpty() && cell.keys.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Jump to fail unless the column value passes one alternative of a cell.
+     */
+    private void emitTest(Object alternative, int column, Label fail) {
+        if (alternative instanceof IndexedDecisionTable.Interval) {
+            IndexedDecisionTable.Interval interval = (IndexedDecisionTable.Interval) alternative;
+            // dcmpl yields -1 and dcmpg 1 for NaN, so NaN fails both bounds
+            if (interval.low != Double.NEGATIVE_INFINITY || interval.high == Double.POSITIVE_INFINITY) {
+                loadNumber(column);
+                code.u1(LDC2_W);
+                code.u2(pool.doubleConstant(interval.low));
+                code.u1(DCMPL);
+                branch(interval.lowInclusive ? IFLT : IFLE, fail);
+            }
+            if (interval.high != Double.POSITIVE_INFINITY) {
+                loadNumber(column);
+                code.u1(LDC2_W);
+                code.u2(pool.doubleConstant(interval.high));
+                code.u1(DCMPG);
+                branch(interval.highInclusive ? IFGT : IFGE, fail);
+            }
+        } else if (alternative == null) {
+            loadValue(column);
+            branch(IFNONNULL, fail);
+        } else if (alternative instanceof String) {
+            int constant = pool.string((String) alternative);
+            if (constant <= 0xff) {
+                code.u1(LDC);
+                code.u1(constant);
+            } else {
+                code.u1(LDC_W);
+                code.u2(constant);
+            }
+            loadValue(column);
+            code.u1(INVOKEVIRTUAL);
+            code.u2(pool.methodRef(STRING, "equals", "(Ljava/lang/Object;)Z"));
+            branch(IFEQ, fail);
+        } else if (alternative instanceof Boolean) {
+            code.u1(GETSTATIC);
+            code.u2(pool.fieldRef(BOOLEAN, (Boolean) alternative ? "TRUE" : "FALSE", "Ljava/lang/Boolean;"));
+            loadValue(column);
+            code.u1(INVOKEVIRTUAL);
+            code.u2(pool.methodRef(BOOLEAN, "equals", "(Ljava/lang/Object;)Z"));
+            branch(IFEQ, fail);
+        } else {
+            throw new IllegalStateException("unsupported key " + alternative);
+        }
+    }
+
+    private void loadNumber(int column) {
+        code.u1(ALOAD_1);
+        pushInt(column);
+        code.u1(DALOAD);
+    }
+
+    private void loadValue(int column) {
+        code.u1(ALOAD_2);
+        pushInt(column);
+        code.u1(AALOAD);
+    }
+
+    private void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            code.u1(ICONST_M1 + 1 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.u1(BIPUSH);
+            code.u1(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.u1(SIPUSH);
+            code.u2(value);
+        } else {
+            code.u1(LDC_W);
+            code.u2(pool.integerConstant(value));
+        }
+    }
+
+    /**
+     * Emit a forward branch; the offset is patched once the label is bound.
+     */
+    private void branch(int opcode, Label target) {
+        if (target.index < 0) {
+            target.index = labels.size();
+            labels.add(target);
+        }
+        branches.add(new int[] { code.length(), target.index });
+        code.u1(opcode);
+        code.u2(0);
+    }
+
+    private void bind(Label label) {
+        label.position = code.length();
+        if (label.index < 0) {
+            label.index = labels.size();
+            labels.add(label);
+        }
+    }
+
+    /**
+     * One frame per bound label. Every frame has an empty stack and the locals
+     * this, numbers, values, found: the first appends the int local to the
+     * method's initial frame, the rest are the same frame.
+     */
+    private byte[] stackMapTable() {
+        TreeSet<Integer> offsets = new TreeSet<>();
+        for (Label label : labels) {
+            // A label at the end of the code precedes no instruction
+            if (label.position < code.length()) {
+                offsets.add(label.position);
+            }
+        }
+        if (offsets.isEmpty()) {
+            return null;
+        }
+        Bytes frames = new Bytes();
+        frames.u2(offsets.size());
+        int previous = -1;
+        for (int offset : offsets) {
+            int delta = previous < 0 ? offset : offset - previous - 1;
+            if (previous < 0) {
+                frames.u1(252); // append_frame, one local
+                frames.u2(delta);
+                frames.u1(1); // ITEM_Integer
+            } else if (delta <= 63) {
+                frames.u1(delta); // same_frame
+            } else {
+                frames.u1(251); // same_frame_extended
+                frames.u2(delta);
+            }
+            previous = offset;
+        }
+        return frames.toByteArray();
+    }
+
+    private static final class Label {
+        int index = -1;
+        int position = -1;
+    }
+
+    /** Growable big-endian byte buffer. */
+    private static final class Bytes {
+        private byte[] data = new byte[256];
+        private int length;
+
+        int length() {
+            return length;
+        }
+
+        void u1(int value) {
+            if (length == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[length++] = (byte) value;
+        }
+
+        void u2(int value) {
+            u1(value >>> 8);
+            u1(value);
+        }
+
+        void u4(int value) {
+            u2(value >>> 16);
+            u2(value);
+        }
+
+        void bytes(byte[] bytes) {
+            for (byte b : bytes) {
+                u1(b);
+            }
+        }
+
+        void patchU2(int position, int value) {
+            data[position] = (byte) (value >>> 8);
+            data[position + 1] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+    }
+
+    /** Constant pool with deduplicated entries. */
+    private static final class ConstantPool {
+        final Bytes entries = new Bytes();
+        private final Map<String, Integer> indices = new HashMap<>();
+        private int next = 1;
+
+        /**
+         * constant_pool_count: one more than the highest index.
+         */
+        int size() {
+            return next;
+        }
+
+        int utf8(String value) {
+            return entry("utf8:" + value, 1, () -> {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                // Standard and modified UTF-8 differ only for NUL and supplementary characters
+                if (bytes.length > 0xffff || value.indexOf('\0') >= 0
+                    || value.chars().anyMatch(c -> Character.isSurrogate((char) c))) {
+                    throw new IllegalStateException("constant too long");
+                }
+                entries.u1(1);
+                entries.u2(bytes.length);
+                entries.bytes(bytes);
+            });
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return entry("class:" + internalName, 1, () -> {
+                entries.u1(7);
+                entries.u2(name);
+            });
+        }
+
+        int string(String value) {
+            int utf8 = utf8(value);
+            return entry("string:" + value, 1, () -> {
+                entries.u1(8);
+                entries.u2(utf8);
+            });
+        }
+
+        int integerConstant(int value) {
+            return entry("int:" + value, 1, () -> {
+                entries.u1(3);
+                entries.u4(value);
+            });
+        }
+
+        int doubleConstant(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            return entry("double:" + bits, 2, () -> {
+                entries.u1(6);
+                entries.u4((int) (bits >>> 32));
+                entries.u4((int) bits);
+            });
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            return memberRef(10, owner, name, descriptor);
+        }
+
+        int fieldRef(String owner, String name, String descriptor) {
+            return memberRef(9, owner, name, descriptor);
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) {
+            int ownerClass = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = entry("nat:" + name + ":" + descriptor, 1, () -> {
+                entries.u1(12);
+                entries.u2(nameIndex);
+                entries.u2(descriptorIndex);
+            });
+            return entry("member" + tag + ":" + owner + "." + name + ":" + descriptor, 1, () -> {
+                entries.u1(tag);
+                entries.u2(ownerClass);
+                entries.u2(nameAndType);
+            });
+        }
+
+        private int entry(String key, int slots, Runnable writer) {
+            Integer index = indices.get(key);
+            if (index != null) {
+                return index;
+            }
+            writer.run();
+            indices.put(key, next);
+            next += slots;
+            if (next > MAX_POOL_SIZE) {
+                throw new IllegalStateException("constant pool too large");
+            }
+            return next - slots;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.camunda.simulator.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One deployment as a simulation sees it: the compiled BPMN execution plan
+ * and the parsed DMN decisions, with the hashes of the files they were built
+ * from. Immutable; {@link ProcessEngine} publishes a new snapshot when either
+ * file changes, and every simulation runs against the snapshot it started
+ * with, so a concurrent upload never mixes two deployments in one result.
+ *
+ * Besides the plan of the default BPMN file, a snapshot indexes the plans of
+ * every process deployed in any BPMN file by process id and version.
+ */
+public final class EngineSnapshot {
+
+    static final EngineSnapshot EMPTY = new EngineSnapshot(null, null, DMNEvaluator.LoadedDecisions.EMPTY, Map.of());
+
+    private final ExecutionPlan plan;
+    private final String bpmnHash;
+    private final DMNEvaluator.LoadedDecisions decisions;
+    // Versions of each deployed process, version N at index N - 1
+    private final Map<String, ProcessDefinition[]> processes;
+
+    EngineSnapshot(ExecutionPlan plan, String bpmnHash, DMNEvaluator.LoadedDecisions decisions,
+                   Map<String, ProcessDefinition[]> processes) {
+        this.plan = plan;
+        this.bpmnHash = bpmnHash;
+        this.decisions = decisions;
+        this.processes = processes;
+    }
+
+    /**
+     * Compiled plan of the BPMN file, or null if none is loaded.
+     */
+    public ExecutionPlan getPlan() {
+        return plan;
+    }
+
+    public String getBpmnHash() {
+        return bpmnHash;
+    }
+
+    public String getDmnHash() {
+        return decisions.contentHash;
+    }
+
+    /**
+     * Key of the decision simulations evaluate, or null if no DMN file is loaded.
+     */
+    public String getDecisionKey() {
+        return decisions.decisionKey;
+    }
+
+    /**
+     * A deployed process: the given version, or the latest one if version is
+     * null. Null if the process or version is not deployed.
+     */
+    public ProcessDefinition getProcess(String processId, Integer version) {
+        ProcessDefinition[] versions = processes.get(processId);
+        if (versions == null) {
+            return null;
+        }
+        if (version == null) {
+            return versions[versions.length - 1];
+        }
+        return version >= 1 && version <= versions.length ? versions[version - 1] : null;
+    }
+
+    /**
+     * Every version of every deployed process.
+     */
+    public List<ProcessDefinition> getProcesses() {
+        List<ProcessDefinition> definitions = new ArrayList<>();
+        for (ProcessDefinition[] versions : processes.values()) {
+            definitions.addAll(List.of(versions));
+        }
+        return definitions;
+    }
+
+    DMNEvaluator.LoadedDecisions getDecisions() {
+        return decisions;
+    }
+
+    EngineSnapshot withPlans(ExecutionPlan plan, String bpmnHash, Map<String, ProcessDefinition[]> processes) {
+        return new EngineSnapshot(plan, bpmnHash, decisions, processes);
+    }
+
+    EngineSnapshot withDecisions(DMNEvaluator.LoadedDecisions decisions) {
+        return new EngineSnapshot(plan, bpmnHash, decisions, processes);
+    }
+
+    /**
+     * This snapshot running a deployed process instead of the default plan.
+     */
+    EngineSnapshot forProcess(ProcessDefinition definition) {
+        return new EngineSnapshot(definition.getPlan(), definition.getBpmnHash(), decisions, processes);
+    }
+}
@@ -0,0 +1,240 @@
+package com.camunda.simulator.service;
+
+/**
+ * Immutable execution plan compiled once from a BPMN model.
+ * Flow nodes and sequence flows are addressed by int index, so simulating a
+ * request only walks these arrays and never touches the Camunda model DOM.
+ */
+public final class ExecutionPlan {
+
+    /** Kind of a compiled flow node; decides how the engine handles it. */
+    public enum NodeKind {
+        START_EVENT,
+        END_EVENT,
+        SERVICE_TASK,
+        BUSINESS_RULE_TASK,
+        EXCLUSIVE_GATEWAY,
+        PARALLEL_GATEWAY,
+        INCLUSIVE_GATEWAY,
+        OTHER
+    }
+
+    private final String processId;
+    private final int startNode;
+    private final boolean concurrent;
+
+    // Per node, indexed by node index
+    private final String[] nodeIds;
+    private final String[] nodeNames;
+    private final NodeKind[] nodeKinds;
+    private final int[][] outgoingFlows;
+    private final int[][] conditionalFlows;
+    private final int[] defaultFlows;
+    private final int[] incomingCounts;
+    private final int[] inclusiveJoins;
+    private final boolean[] pairedJoins;
+    private final boolean[] terminateEvents;
+    private final boolean[] dmnTasks;
+    private final boolean[] prepareValuesTasks;
+    private final String[] statusValues;
+    private final VariableAssignment[][] assignments;
+
+    // Per sequence flow, indexed by flow index
+    private final String[] flowIds;
+    private final int[] flowTargets;
+    private final String[] flowConditions;
+    private final FeelExpression[] flowPredicates;
+
+    private final VariableLayout variableLayout;
+
+    ExecutionPlan(String processId, int startNode, boolean concurrent,
+                  String[] nodeIds, String[] nodeNames, NodeKind[] nodeKinds,
+                  int[][] outgoingFlows, int[][] conditionalFlows, int[] defaultFlows,
+                  int[] incomingCounts, int[] inclusiveJoins, boolean[] pairedJoins,
+                  boolean[] terminateEvents,
+                  boolean[] dmnTasks, boolean[] prepareValuesTasks, String[] statusValues,
+                  VariableAssignment[][] assignments,
+                  String[] flowIds, int[] flowTargets, String[] flowConditions,
+                  FeelExpression[] flowPredicates, VariableLayout variableLayout) {
+        this.processId = processId;
+        this.startNode = startNode;
+        this.concurrent = concurrent;
+        this.nodeIds = nodeIds;
+        this.nodeNames = nodeNames;
+        this.nodeKinds = nodeKinds;
+        this.outgoingFlows = outgoingFlows;
+        this.conditionalFlows = conditionalFlows;
+        this.defaultFlows = defaultFlows;
+        this.incomingCounts = incomingCounts;
+        this.inclusiveJoins = inclusiveJoins;
+        this.pairedJoins = pairedJoins;
+        this.terminateEvents = terminateEvents;
+        this.dmnTasks = dmnTasks;
+        this.prepareValuesTasks = prepareValuesTasks;
+        this.statusValues = statusValues;
+        this.assignments = assignments;
+        this.flowIds = flowIds;
+        this.flowTargets = flowTargets;
+        this.flowConditions = flowConditions;
+        this.flowPredicates = flowPredicates;
+        this.variableLayout = variableLayout;
+    }
+
+    public String getProcessId() {
+        return processId;
+    }
+
+    public int getStartNode() {
+        return startNode;
+    }
+
+    /**
+     * Whether a token can ever be split into concurrent branches
+     * (parallel/inclusive gateways or implicit splits). Plans without
+     * concurrency run on the calling thread with no join bookkeeping.
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    public int getNodeCount() {
+        return nodeIds.length;
+    }
+
+    public int getFlowCount() {
+        return flowIds.length;
+    }
+
+    public String getNodeId(int node) {
+        return nodeIds[node];
+    }
+
+    /**
+     * Display name used in the execution path.
+     */
+    public String getNodeName(int node) {
+        return nodeNames[node];
+    }
+
+    public NodeKind getNodeKind(int node) {
+        return nodeKinds[node];
+    }
+
+    /**
+     * Outgoing sequence flow indices of a node, in document order.
+     */
+    int[] getOutgoingFlows(int node) {
+        return outgoingFlows[node];
+    }
+
+    /**
+     * Outgoing sequence flows of a node that carry a condition expression.
+     */
+    int[] getConditionalFlows(int node) {
+        return conditionalFlows[node];
+    }
+
+    /**
+     * Explicitly declared default flow of a gateway, or -1.
+     */
+    int getDefaultFlow(int node) {
+        return defaultFlows[node];
+    }
+
+    /**
+     * Number of incoming sequence flows; a parallel gateway joins this many tokens.
+     */
+    int getIncomingCount(int node) {
+        return incomingCounts[node];
+    }
+
+    /**
+     * Inclusive gateway that joins the branches activated by an inclusive split, or -1.
+     */
+    int getInclusiveJoin(int split) {
+        return inclusiveJoins[split];
+    }
+
+    /**
+     * Whether an inclusive gateway joins the branches of a paired split. Unpaired
+     * inclusive merges let every token pass.
+     */
+    boolean isPairedJoin(int node) {
+        return pairedJoins[node];
+    }
+
+    /**
+     * Whether an end event terminates the whole instance (terminateEventDefinition).
+     */
+    boolean isTerminateEvent(int node) {
+        return terminateEvents[node];
+    }
+
+    /**
+     * First outgoing flow of a node, or -1 if the node has no outgoing flows.
+     */
+    public int getNextFlow(int node) {
+        int[] flows = outgoingFlows[node];
+        return flows.length == 0 ? -1 : flows[0];
+    }
+
+    /**
+     * Target node of the first outgoing flow, or -1 if the node has no outgoing flows.
+     */
+    public int getNextNode(int node) {
+        int[] flows = outgoingFlows[node];
+        return flows.length == 0 ? -1 : flowTargets[flows[0]];
+    }
+
+    boolean isDmnTask(int node) {
+        return dmnTasks[node];
+    }
+
+    boolean isPrepareValuesTask(int node) {
+        return prepareValuesTasks[node];
+    }
+
+    /**
+     * Value written to cim_Status by a "Set Status" task, or null.
+     */
+    String getStatusValue(int node) {
+        return statusValues[node];
+    }
+
+    /**
+     * Compiled zeebe:taskHeaders instructions of a data-manipulation task, in
+     * order, or null if the node is not one.
+     */
+    VariableAssignment[] getAssignments(int node) {
+        return assignments[node];
+    }
+
+    public String getFlowId(int flow) {
+        return flowIds[flow];
+    }
+
+    public int getFlowTarget(int flow) {
+        return flowTargets[flow];
+    }
+
+    /**
+     * Condition expression text of a sequence flow, or null if unconditional.
+     */
+    public String getFlowCondition(int flow) {
+        return flowConditions[flow];
+    }
+
+    /**
+     * Compiled condition of a sequence flow, or null if unconditional.
+     */
+    FeelExpression getFlowPredicate(int flow) {
+        return flowPredicates[flow];
+    }
+
+    /**
+     * Slots of the process variables, with gateway condition variables bound to them.
+     */
+    VariableLayout getVariableLayout() {
+        return variableLayout;
+    }
+}
@@ -0,0 +1,447 @@
+package com.camunda.simulator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.*;
+import org.camunda.bpm.model.xml.instance.DomElement;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Compiles a BPMN model into an {@link ExecutionPlan}.
+ * All DOM traversal (process lookup, start event search, outgoing flows,
+ * node type checks) happens here once, when the model is loaded.
+ */
+public class ExecutionPlanCompiler {
+
+    private static final String ZEEBE_NS = "http://camunda.org/schema/zeebe/1.0";
+    private static final String DATA_MANIPULATION = "data-manipulation";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final BpmnModelInstance bpmnModelInstance;
+
+    public ExecutionPlanCompiler(BpmnModelInstance bpmnModelInstance) {
+        this.bpmnModelInstance = bpmnModelInstance;
+    }
+
+    /**
+     * Compile the first process of the model.
+     *
+     * @return the compiled plan, or null if the model has no process or no start event
+     */
+    public ExecutionPlan compile() {
+        if (bpmnModelInstance == null) {
+            return null;
+        }
+        Collection<org.camunda.bpm.model.bpmn.instance.Process> processes =
+            bpmnModelInstance.getModelElementsByType(org.camunda.bpm.model.bpmn.instance.Process.class);
+        if (processes.isEmpty()) {
+            return null;
+        }
+        return compile(processes.iterator().next(), true);
+    }
+
+    /**
+     * Compile every process of the model, in document order. Processes
+     * without a start event are left out.
+     */
+    public List<ExecutionPlan> compileAll() {
+        List<ExecutionPlan> plans = new ArrayList<>();
+        if (bpmnModelInstance == null) {
+            return plans;
+        }
+        for (org.camunda.bpm.model.bpmn.instance.Process process
+                : bpmnModelInstance.getModelElementsByType(org.camunda.bpm.model.bpmn.instance.Process.class)) {
+            ExecutionPlan plan = compile(process, false);
+            if (plan != null) {
+                plans.add(plan);
+            }
+        }
+        return plans;
+    }
+
+    /**
+     * @param anyStartEvent fall back to a start event of another process if the process has none
+     */
+    private ExecutionPlan compile(org.camunda.bpm.model.bpmn.instance.Process process, boolean anyStartEvent) {
+        StartEvent startEvent = findStartEvent(process, anyStartEvent);
+        if (startEvent == null) {
+            return null;
+        }
+
+        // Index flow nodes and sequence flows of the process
+        List<FlowNode> nodes = new ArrayList<>();
+        List<SequenceFlow> flows = new ArrayList<>();
+        Map<String, Integer> nodeIndex = new HashMap<>();
+        for (FlowElement element : process.getFlowElements()) {
+            if (element instanceof FlowNode) {
+                nodeIndex.put(element.getId(), nodes.size());
+                nodes.add((FlowNode) element);
+            }
+        }
+        if (!nodeIndex.containsKey(startEvent.getId())) {
+            nodeIndex.put(startEvent.getId(), nodes.size());
+            nodes.add(startEvent);
+        }
+        Map<String, Integer> flowIndex = new HashMap<>();
+        for (FlowElement element : process.getFlowElements()) {
+            if (element instanceof SequenceFlow) {
+                SequenceFlow flow = (SequenceFlow) element;
+                if (flow.getTarget() != null && nodeIndex.containsKey(flow.getTarget().getId())) {
+                    flowIndex.put(flow.getId(), flows.size());
+                    flows.add(flow);
+                }
+            }
+        }
+
+        int nodeCount = nodes.size();
+        int flowCount = flows.size();
+
+        String[] flowIds = new String[flowCount];
+        int[] flowTargets = new int[flowCount];
+        String[] flowConditions = new String[flowCount];
+        FeelExpression[] flowPredicates = new FeelExpression[flowCount];
+        for (int i = 0; i < flowCount; i++) {
+            SequenceFlow flow = flows.get(i);
+            flowIds[i] = flow.getId();
+            flowTargets[i] = nodeIndex.get(flow.getTarget().getId());
+            String condition = flow.getConditionExpression() != null
+                ? flow.getConditionExpression().getTextContent() : null;
+            flowConditions[i] = condition == null || condition.trim().isEmpty() ? null : condition;
+            if (flowConditions[i] != null) {
+                flowPredicates[i] = compileCondition(flow.getId(), condition);
+            }
+        }
+
+        String[] nodeIds = new String[nodeCount];
+        String[] nodeNames = new String[nodeCount];
+        ExecutionPlan.NodeKind[] nodeKinds = new ExecutionPlan.NodeKind[nodeCount];
+        int[][] outgoingFlows = new int[nodeCount][];
+        int[][] conditionalFlows = new int[nodeCount][];
+        int[] defaultFlows = new int[nodeCount];
+        int[] incomingCounts = new int[nodeCount];
+        boolean[] terminateEvents = new boolean[nodeCount];
+        boolean[] dmnTasks = new boolean[nodeCount];
+        boolean[] prepareValuesTasks = new boolean[nodeCount];
+        String[] statusValues = new String[nodeCount];
+        VariableAssignment[][] assignments = new VariableAssignment[nodeCount][];
+
+        for (int target : flowTargets) {
+            incomingCounts[target]++;
+        }
+
+        boolean concurrent = false;
+        for (int i = 0; i < nodeCount; i++) {
+            FlowNode node = nodes.get(i);
+            nodeIds[i] = node.getId();
+            nodeNames[i] = getNodeName(node);
+            nodeKinds[i] = getNodeKind(node);
+
+            List<Integer> outgoing = new ArrayList<>();
+            List<Integer> conditional = new ArrayList<>();
+            int defaultFlow = -1;
+            for (SequenceFlow flow : node.getOutgoing()) {
+                Integer index = flowIndex.get(flow.getId());
+                if (index == null) {
+                    continue;
+                }
+                outgoing.add(index);
+                if (flowConditions[index] != null) {
+                    conditional.add(index);
+                }
+            }
+            SequenceFlow explicitDefault = getDefaultFlow(node);
+            if (explicitDefault != null && flowIndex.containsKey(explicitDefault.getId())) {
+                defaultFlow = flowIndex.get(explicitDefault.getId());
+                conditional.remove(Integer.valueOf(defaultFlow));
+            }
+            outgoingFlows[i] = toArray(outgoing);
+            conditionalFlows[i] = toArray(conditional);
+            defaultFlows[i] = defaultFlow;
+            if (outgoing.size() > 1 && !(node instanceof ExclusiveGateway)) {
+                concurrent = true;
+            }
+            if (node instanceof EndEvent) {
+                terminateEvents[i] = !((EndEvent) node)
+                    .getChildElementsByType(TerminateEventDefinition.class).isEmpty();
+            }
+
+            if (node instanceof ServiceTask) {
+                String taskName = node.getName();
+                dmnTasks[i] = isDmnTask((ServiceTask) node);
+                assignments[i] = compileAssignments(node);
+                if (assignments[i] == null) {
+                    // No data-manipulation headers: fall back to the task name conventions
+                    prepareValuesTasks[i] = taskName != null && taskName.contains("Prepare Values");
+                    statusValues[i] = getStatusValue(taskName);
+                }
+            }
+        }
+
+        int[] inclusiveJoins = new int[nodeCount];
+        boolean[] pairedJoins = new boolean[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            inclusiveJoins[i] = nodeKinds[i] == ExecutionPlan.NodeKind.INCLUSIVE_GATEWAY
+                && outgoingFlows[i].length > 1
+                ? findInclusiveJoin(i, nodeKinds, outgoingFlows, flowTargets, incomingCounts) : -1;
+            if (inclusiveJoins[i] >= 0) {
+                pairedJoins[inclusiveJoins[i]] = true;
+            }
+        }
+
+        VariableLayout variableLayout = bindVariables(flowPredicates, assignments);
+
+        return new ExecutionPlan(process.getId(), nodeIndex.get(startEvent.getId()), concurrent,
+            nodeIds, nodeNames, nodeKinds, outgoingFlows, conditionalFlows, defaultFlows,
+            incomingCounts, inclusiveJoins, pairedJoins, terminateEvents,
+            dmnTasks, prepareValuesTasks, statusValues, assignments,
+            flowIds, flowTargets, flowConditions, flowPredicates, variableLayout);
+    }
+
+    /**
+     * Lay out the engine variables plus every variable read by a condition or
+     * written or read by an assignment, and bind them to their slots.
+     */
+    private static VariableLayout bindVariables(FeelExpression[] predicates, VariableAssignment[][] assignments) {
+        List<FeelExpression.Variable> variables = new ArrayList<>();
+        Set<String> names = new LinkedHashSet<>();
+        List<FeelExpression> expressions = new ArrayList<>(Arrays.asList(predicates));
+        for (VariableAssignment[] nodeAssignments : assignments) {
+            if (nodeAssignments != null) {
+                for (VariableAssignment assignment : nodeAssignments) {
+                    names.add(assignment.getTarget());
+                    expressions.add(assignment.getExpression());
+                }
+            }
+        }
+        for (FeelExpression expression : expressions) {
+            if (expression != null) {
+                expression.accept(node -> {
+                    if (node instanceof FeelExpression.Variable) {
+                        variables.add((FeelExpression.Variable) node);
+                    }
+                });
+            }
+        }
+        for (FeelExpression.Variable variable : variables) {
+            names.add(variable.getRootName());
+        }
+        VariableLayout layout = new VariableLayout(names);
+        for (FeelExpression.Variable variable : variables) {
+            variable.bindSlot(layout.slotOf(variable.getRootName()));
+        }
+        for (VariableAssignment[] nodeAssignments : assignments) {
+            if (nodeAssignments != null) {
+                for (VariableAssignment assignment : nodeAssignments) {
+                    assignment.bind(layout);
+                }
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Compile the zeebe:taskHeaders of a data-manipulation service task. Each
+     * header value is a JSON object {"target": name, "expression": FEEL}; they
+     * are applied in document order. Returns null if the task is not a
+     * data-manipulation task, so the name conventions apply instead.
+     */
+    private static VariableAssignment[] compileAssignments(FlowNode node) {
+        ExtensionElements extensionElements = node.getExtensionElements();
+        if (extensionElements == null) {
+            return null;
+        }
+        DomElement extensions = extensionElements.getDomElement();
+        boolean dataManipulation = false;
+        for (DomElement definition : extensions.getChildElementsByNameNs(ZEEBE_NS, "taskDefinition")) {
+            dataManipulation |= DATA_MANIPULATION.equals(definition.getAttribute("type"));
+        }
+        if (!dataManipulation) {
+            return null;
+        }
+        List<VariableAssignment> assignments = new ArrayList<>();
+        for (DomElement headers : extensions.getChildElementsByNameNs(ZEEBE_NS, "taskHeaders")) {
+            for (DomElement header : headers.getChildElementsByNameNs(ZEEBE_NS, "header")) {
+                VariableAssignment assignment = compileAssignment(node.getId(), header.getAttribute("key"),
+                    header.getAttribute("value"));
+                if (assignment != null) {
+                    assignments.add(assignment);
+                }
+            }
+        }
+        return assignments.toArray(new VariableAssignment[0]);
+    }
+
+    /**
+     * Compile one manipulation header. Headers that are not an instruction,
+     * or whose expression is outside the supported FEEL subset, are skipped.
+     */
+    private static VariableAssignment compileAssignment(String nodeId, String key, String value) {
+        if (value == null || !value.trim().startsWith("{")) {
+            return null;
+        }
+        try {
+            JsonNode instruction = OBJECT_MAPPER.readTree(value);
+            String target = instruction.path("target").asText(null);
+            String expression = instruction.path("expression").asText(null);
+            if (target == null || target.isEmpty() || expression == null) {
+                return null;
+            }
+            return new VariableAssignment(target, expression, FeelParser.parse(expression));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Unsupported task header " + key + " on " + nodeId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Compile a sequence flow condition. Conditions outside the supported FEEL
+     * subset never match, so the gateway falls through to its default flow.
+     */
+    private static FeelExpression compileCondition(String flowId, String condition) {
+        try {
+            return FeelParser.parse(condition);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unsupported condition on sequence flow " + flowId + ": " + e.getMessage());
+            return new FeelExpression.Literal(Boolean.FALSE);
+        }
+    }
+
+    /**
+     * Explicit default flow of an exclusive or inclusive gateway, or null.
+     */
+    private static SequenceFlow getDefaultFlow(FlowNode node) {
+        if (node instanceof ExclusiveGateway) {
+            return ((ExclusiveGateway) node).getDefault();
+        }
+        if (node instanceof InclusiveGateway) {
+            return ((InclusiveGateway) node).getDefault();
+        }
+        return null;
+    }
+
+    /**
+     * Find the inclusive gateway that joins the branches of an inclusive split:
+     * the converging inclusive gateway reachable from every outgoing branch
+     * with the smallest total distance. Returns -1 if there is none.
+     */
+    private static int findInclusiveJoin(int split, ExecutionPlan.NodeKind[] nodeKinds,
+                                         int[][] outgoingFlows, int[] flowTargets, int[] incomingCounts) {
+        int nodeCount = nodeKinds.length;
+        int[] totalDistance = new int[nodeCount];
+        int[] reachedBy = new int[nodeCount];
+        for (int flow : outgoingFlows[split]) {
+            int[] distance = new int[nodeCount];
+            Arrays.fill(distance, -1);
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            int start = flowTargets[flow];
+            distance[start] = 0;
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (int next : outgoingFlows[node]) {
+                    int target = flowTargets[next];
+                    if (distance[target] < 0 && target != split) {
+                        distance[target] = distance[node] + 1;
+                        queue.add(target);
+                    }
+                }
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                if (distance[node] >= 0) {
+                    reachedBy[node]++;
+                    totalDistance[node] += distance[node];
+                }
+            }
+        }
+        int join = -1;
+        for (int node = 0; node < nodeCount; node++) {
+            if (nodeKinds[node] == ExecutionPlan.NodeKind.INCLUSIVE_GATEWAY && incomingCounts[node] > 1
+                && reachedBy[node] == outgoingFlows[split].length
+                && (join < 0 || totalDistance[node] < totalDistance[join])) {
+                join = node;
+            }
+        }
+        return join;
+    }
+
+    /**
+     * Find the start event in a process.
+     */
+    private StartEvent findStartEvent(org.camunda.bpm.model.bpmn.instance.Process process, boolean anyStartEvent) {
+        Collection<StartEvent> startEvents = bpmnModelInstance.getModelElementsByType(StartEvent.class);
+        // Filter to only start events in this process
+        for (StartEvent startEvent : startEvents) {
+            if (startEvent.getParentElement() == process ||
+                startEvent.getScope() == process) {
+                return startEvent;
+            }
+        }
+        return !anyStartEvent || startEvents.isEmpty() ? null : startEvents.iterator().next();
+    }
+
+    /**
+     * Get node name for display.
+     */
+    private static String getNodeName(FlowNode node) {
+        if (node.getName() != null && !node.getName().isEmpty()) {
+            return node.getName();
+        }
+        if (node instanceof StartEvent) return "Start";
+        if (node instanceof EndEvent) return "End";
+        if (node instanceof ServiceTask) return "Service Task";
+        if (node instanceof Gateway) return "Gateway";
+        return node.getId();
+    }
+
+    private static ExecutionPlan.NodeKind getNodeKind(FlowNode node) {
+        if (node instanceof StartEvent) return ExecutionPlan.NodeKind.START_EVENT;
+        if (node instanceof EndEvent) return ExecutionPlan.NodeKind.END_EVENT;
+        if (node instanceof ServiceTask) return ExecutionPlan.NodeKind.SERVICE_TASK;
+        if (node instanceof BusinessRuleTask) return ExecutionPlan.NodeKind.BUSINESS_RULE_TASK;
+        if (node instanceof ExclusiveGateway) return ExecutionPlan.NodeKind.EXCLUSIVE_GATEWAY;
+        if (node instanceof ParallelGateway) return ExecutionPlan.NodeKind.PARALLEL_GATEWAY;
+        if (node instanceof InclusiveGateway) return ExecutionPlan.NodeKind.INCLUSIVE_GATEWAY;
+        return ExecutionPlan.NodeKind.OTHER;
+    }
+
+    /**
+     * Check if a service task is a DMN task.
+     */
+    private static boolean isDmnTask(ServiceTask task) {
+        String implementation = task.getImplementation();
+        String type = task.getCamundaType();
+        String name = task.getName();
+        // Check if it's a DMN task by type, implementation, or name
+        return "dmn".equals(type) ||
+               (implementation != null && implementation.contains("dmn")) ||
+               (name != null && (name.toLowerCase().contains("dmn") ||
+                                 name.toLowerCase().contains("decision") ||
+                                 name.toLowerCase().contains("look-up")));
+    }
+
+    /**
+     * Status written by "Set Status" tasks, derived from the task name.
+     */
+    private static String getStatusValue(String taskName) {
+        if (taskName == null || !taskName.contains("Set Status")) {
+            return null;
+        }
+        if (taskName.contains("3000") || taskName.contains("Valid")) {
+            return "Valid";
+        } else if (taskName.contains("4000") || taskName.contains("Invalid")) {
+            return "Invalid";
+        }
+        return null;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+}
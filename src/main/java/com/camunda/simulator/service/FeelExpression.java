@@ -0,0 +1,440 @@
+package com.camunda.simulator.service;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Compiled FEEL expression (subset used by Zeebe sequence flow conditions).
+ * Instances are built once by {@link FeelParser}; evaluating one is a walk
+ * over a few node objects, with no string processing. The only mutable state
+ * is the variable slot, bound by {@link ExecutionPlanCompiler} before the plan
+ * is published.
+ *
+ * Numbers are evaluated as Double. Comparisons involving null (other than
+ * equality) yield null, and and/or/not follow FEEL three-valued logic.
+ */
+public abstract class FeelExpression {
+
+    /**
+     * Source of variable values during evaluation.
+     */
+    interface Scope {
+        /**
+         * Value of a variable, normalized; null if it is not set.
+         */
+        Object resolve(Variable variable);
+
+        /**
+         * Compare a numeric variable with a constant; null if the variable does
+         * not hold a number. Scopes holding primitive numbers override this to
+         * avoid boxing the variable.
+         */
+        default Boolean compareNumber(Variable variable, Comparison.Operator operator, double constant) {
+            Object value = resolve(variable);
+            return value instanceof Double ? compareNumbers(operator, (Double) value, constant) : null;
+        }
+    }
+
+    /**
+     * Evaluate the expression against the given variables.
+     */
+    public Object evaluate(Map<String, Object> variables) {
+        return evaluate(variable -> variable.lookup(variables));
+    }
+
+    /**
+     * Evaluate as a condition: only a Boolean.TRUE result is true.
+     */
+    public boolean test(Map<String, Object> variables) {
+        return Boolean.TRUE.equals(evaluate(variables));
+    }
+
+    abstract Object evaluate(Scope scope);
+
+    boolean test(Scope scope) {
+        return Boolean.TRUE.equals(evaluate(scope));
+    }
+
+    /**
+     * Visit this node and, depth first, all nodes below it.
+     */
+    void accept(Consumer<FeelExpression> visitor) {
+        visitor.accept(this);
+    }
+
+    /** Literal value (number, string, boolean or null). */
+    static final class Literal extends FeelExpression {
+        private final Object value;
+
+        Literal(Object value) {
+            this.value = value;
+        }
+
+        Object getValue() {
+            return value;
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            return value;
+        }
+    }
+
+    /** Variable reference; dotted names read nested maps. */
+    static final class Variable extends FeelExpression {
+        private final String name;
+        private final String[] path;
+        private int slot = -1;
+
+        Variable(String name) {
+            this.name = name;
+            this.path = name.split("\\.");
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Name of the top-level variable, before any dotted path.
+         */
+        String getRootName() {
+            return path[0];
+        }
+
+        /**
+         * Frame slot of the root variable, or -1 if unbound.
+         */
+        int getSlot() {
+            return slot;
+        }
+
+        void bindSlot(int slot) {
+            this.slot = slot;
+        }
+
+        boolean isNested() {
+            return path.length > 1;
+        }
+
+        /**
+         * Read this variable from a map of top-level variables.
+         */
+        Object lookup(Map<String, ?> variables) {
+            return select(variables.get(path[0]));
+        }
+
+        /**
+         * Apply the dotted path below the root to the root variable's value, and normalize.
+         */
+        Object select(Object root) {
+            Object value = root;
+            for (int i = 1; i < path.length && value != null; i++) {
+                value = value instanceof Map ? ((Map<?, ?>) value).get(path[i]) : null;
+            }
+            return normalize(value);
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            return scope.resolve(this);
+        }
+    }
+
+    /** Comparison operator: =, !=, &lt;, &lt;=, &gt;, &gt;=. */
+    static final class Comparison extends FeelExpression {
+        enum Operator { EQ, NE, LT, LE, GT, GE }
+
+        private final Operator operator;
+        private final FeelExpression left;
+        private final FeelExpression right;
+        // Set for the common "variable < number" shape, compared without boxing
+        private final Variable numericVariable;
+        private final double numericConstant;
+
+        Comparison(Operator operator, FeelExpression left, FeelExpression right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            boolean numeric = left instanceof Variable && !((Variable) left).isNested()
+                && right instanceof Literal && ((Literal) right).getValue() instanceof Double;
+            this.numericVariable = numeric ? (Variable) left : null;
+            this.numericConstant = numeric ? (Double) ((Literal) right).getValue() : 0.0;
+        }
+
+        Operator getOperator() {
+            return operator;
+        }
+
+        FeelExpression getLeft() {
+            return left;
+        }
+
+        FeelExpression getRight() {
+            return right;
+        }
+
+        @Override
+        void accept(Consumer<FeelExpression> visitor) {
+            visitor.accept(this);
+            left.accept(visitor);
+            right.accept(visitor);
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            if (numericVariable != null) {
+                Boolean result = scope.compareNumber(numericVariable, operator, numericConstant);
+                if (result != null) {
+                    return result;
+                }
+            }
+            Object l = left.evaluate(scope);
+            Object r = right.evaluate(scope);
+            if (l instanceof Double && r instanceof Double) {
+                return compareNumbers(operator, (Double) l, (Double) r);
+            }
+            switch (operator) {
+                case EQ: return valueEquals(l, r);
+                case NE: {
+                    Boolean eq = valueEquals(l, r);
+                    return eq == null ? null : !eq;
+                }
+                default: {
+                    Integer cmp = compare(l, r);
+                    return cmp == null ? null : apply(cmp);
+                }
+            }
+        }
+
+        private Boolean apply(int cmp) {
+            switch (operator) {
+                case LT: return cmp < 0;
+                case LE: return cmp <= 0;
+                case GT: return cmp > 0;
+                default: return cmp >= 0;
+            }
+        }
+    }
+
+    /** Conjunction / disjunction with FEEL three-valued logic. */
+    static final class Logical extends FeelExpression {
+        private final boolean conjunction;
+        private final FeelExpression[] operands;
+
+        Logical(boolean conjunction, FeelExpression[] operands) {
+            this.conjunction = conjunction;
+            this.operands = operands;
+        }
+
+        boolean isConjunction() {
+            return conjunction;
+        }
+
+        FeelExpression[] getOperands() {
+            return operands;
+        }
+
+        @Override
+        void accept(Consumer<FeelExpression> visitor) {
+            visitor.accept(this);
+            for (FeelExpression operand : operands) {
+                operand.accept(visitor);
+            }
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            boolean unknown = false;
+            for (FeelExpression operand : operands) {
+                Object value = operand.evaluate(scope);
+                if (value instanceof Boolean) {
+                    if ((Boolean) value != conjunction) {
+                        return !conjunction;
+                    }
+                } else {
+                    unknown = true;
+                }
+            }
+            return unknown ? null : conjunction;
+        }
+    }
+
+    /** Negation: not(x). */
+    static final class Not extends FeelExpression {
+        private final FeelExpression operand;
+
+        Not(FeelExpression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        void accept(Consumer<FeelExpression> visitor) {
+            visitor.accept(this);
+            operand.accept(visitor);
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            Object value = operand.evaluate(scope);
+            return value instanceof Boolean ? !(Boolean) value : null;
+        }
+    }
+
+    /** Arithmetic operator: +, -, *, / (string concatenation for +). */
+    static final class Arithmetic extends FeelExpression {
+        private final char operator;
+        private final FeelExpression left;
+        private final FeelExpression right;
+
+        Arithmetic(char operator, FeelExpression left, FeelExpression right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void accept(Consumer<FeelExpression> visitor) {
+            visitor.accept(this);
+            left.accept(visitor);
+            right.accept(visitor);
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            Object l = left.evaluate(scope);
+            Object r = right.evaluate(scope);
+            if (operator == '+' && l instanceof String && r instanceof String) {
+                return (String) l + r;
+            }
+            if (!(l instanceof Double) || !(r instanceof Double)) {
+                return null;
+            }
+            double a = (Double) l;
+            double b = (Double) r;
+            switch (operator) {
+                case '+': return a + b;
+                case '-': return a - b;
+                case '*': return a * b;
+                default: return b == 0.0 ? null : a / b;
+            }
+        }
+    }
+
+    /** Unary minus. */
+    static final class Negate extends FeelExpression {
+        private final FeelExpression operand;
+
+        Negate(FeelExpression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        void accept(Consumer<FeelExpression> visitor) {
+            visitor.accept(this);
+            operand.accept(visitor);
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            Object value = operand.evaluate(scope);
+            return value instanceof Double ? -(Double) value : null;
+        }
+    }
+
+    /** Built-in numeric function: floor, ceiling, abs. */
+    static final class NumericFunction extends FeelExpression {
+        enum Function { FLOOR, CEILING, ABS }
+
+        private final Function function;
+        private final FeelExpression argument;
+
+        NumericFunction(Function function, FeelExpression argument) {
+            this.function = function;
+            this.argument = argument;
+        }
+
+        Function getFunction() {
+            return function;
+        }
+
+        FeelExpression getArgument() {
+            return argument;
+        }
+
+        @Override
+        void accept(Consumer<FeelExpression> visitor) {
+            visitor.accept(this);
+            argument.accept(visitor);
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            Object value = argument.evaluate(scope);
+            return value instanceof Double ? apply((Double) value) : null;
+        }
+
+        /**
+         * Apply the function to an unboxed number.
+         */
+        double apply(double d) {
+            switch (function) {
+                case FLOOR: return Math.floor(d);
+                case CEILING: return Math.ceil(d);
+                default: return Math.abs(d);
+            }
+        }
+    }
+
+    /**
+     * Normalize variable values to the types the evaluator works with:
+     * all numbers become Double.
+     */
+    static Object normalize(Object value) {
+        if (value instanceof Number && !(value instanceof Double)) {
+            return ((Number) value).doubleValue();
+        }
+        return value;
+    }
+
+    /**
+     * FEEL equality: null equals only null; values of different types yield null.
+     */
+    static Boolean valueEquals(Object l, Object r) {
+        if (l == null || r == null) {
+            return l == r;
+        }
+        if (l instanceof Double && r instanceof Double) {
+            return ((Double) l).doubleValue() == ((Double) r).doubleValue();
+        }
+        if (l.getClass() != r.getClass()) {
+            return null;
+        }
+        return l.equals(r);
+    }
+
+    /**
+     * Compare two numbers with primitive operators, like the cache key: -0.0
+     * equals 0.0, and every comparison with NaN is false except !=.
+     */
+    static boolean compareNumbers(Comparison.Operator operator, double l, double r) {
+        switch (operator) {
+            case EQ: return l == r;
+            case NE: return l != r;
+            case LT: return l < r;
+            case LE: return l <= r;
+            case GT: return l > r;
+            default: return l >= r;
+        }
+    }
+
+    /**
+     * Ordering of two strings; null for anything else.
+     */
+    static Integer compare(Object l, Object r) {
+        if (l instanceof String && r instanceof String) {
+            return ((String) l).compareTo((String) r);
+        }
+        return null;
+    }
+}
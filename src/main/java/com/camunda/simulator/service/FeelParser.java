@@ -0,0 +1,372 @@
+package com.camunda.simulator.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser for the FEEL subset used in gateway conditions.
+ * Supports comparisons (=, !=, &lt;, &lt;=, &gt;, &gt;=), and/or/not,
+ * arithmetic, number/string/boolean/null literals, dotted variable names and
+ * the floor/ceiling/abs functions. A leading "=" (Zeebe expression marker)
+ * is ignored.
+ *
+ * Also parses DMN unary tests (input entries such as {@code >=25},
+ * {@code [1..10]}, {@code "a","b"} or {@code not(true)}) into predicates over
+ * the {@link #INPUT_VARIABLE} variable.
+ */
+public final class FeelParser {
+
+    /** Variable holding the input value when evaluating compiled unary tests. */
+    public static final String INPUT_VARIABLE = "?";
+
+    private enum TokenType { NUMBER, STRING, NAME, SYMBOL, END }
+
+    private static final class Token {
+        final TokenType type;
+        final String text;
+        final int position;
+
+        Token(TokenType type, String text, int position) {
+            this.type = type;
+            this.text = text;
+            this.position = position;
+        }
+    }
+
+    private final String source;
+    private final List<Token> tokens;
+    private int index;
+
+    private FeelParser(String source) {
+        this.source = source;
+        this.tokens = tokenize(source);
+    }
+
+    /**
+     * Parse an expression.
+     *
+     * @throws IllegalArgumentException if the expression is not in the supported subset
+     */
+    public static FeelExpression parse(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("FEEL expression is null");
+        }
+        String text = expression.trim();
+        if (text.startsWith("=")) {
+            text = text.substring(1).trim();
+        }
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("FEEL expression is empty");
+        }
+        FeelParser parser = new FeelParser(text);
+        FeelExpression result = parser.parseDisjunction();
+        parser.expect(TokenType.END, null);
+        return result;
+    }
+
+    /**
+     * Parse DMN unary tests. Blank and "-" match any input.
+     *
+     * @throws IllegalArgumentException if the tests are not in the supported subset
+     */
+    public static FeelExpression parseUnaryTests(String tests) {
+        String text = tests == null ? "" : tests.trim();
+        if (text.isEmpty() || text.equals("-")) {
+            return new FeelExpression.Literal(Boolean.TRUE);
+        }
+        FeelParser parser = new FeelParser(text);
+        FeelExpression result;
+        Token token = parser.peek();
+        if (token.type == TokenType.NAME && token.text.equals("not")
+            && parser.tokens.get(parser.index + 1).text.equals("(")) {
+            parser.index += 2;
+            result = new FeelExpression.Not(parser.parseUnaryTestList());
+            parser.expect(TokenType.SYMBOL, ")");
+        } else {
+            result = parser.parseUnaryTestList();
+        }
+        parser.expect(TokenType.END, null);
+        return result;
+    }
+
+    private FeelExpression parseUnaryTestList() {
+        List<FeelExpression> tests = new ArrayList<>();
+        tests.add(parseUnaryTest());
+        while (peekSymbol(",")) {
+            index++;
+            tests.add(parseUnaryTest());
+        }
+        return tests.size() == 1 ? tests.get(0)
+            : new FeelExpression.Logical(false, tests.toArray(new FeelExpression[0]));
+    }
+
+    private FeelExpression parseUnaryTest() {
+        FeelExpression input = new FeelExpression.Variable(INPUT_VARIABLE);
+        Token token = peek();
+        if (token.type == TokenType.SYMBOL) {
+            switch (token.text) {
+                case "<":
+                case "<=":
+                case ">":
+                case ">=": {
+                    index++;
+                    FeelExpression.Comparison.Operator operator = token.text.equals("<")
+                        ? FeelExpression.Comparison.Operator.LT : token.text.equals("<=")
+                        ? FeelExpression.Comparison.Operator.LE : token.text.equals(">")
+                        ? FeelExpression.Comparison.Operator.GT : FeelExpression.Comparison.Operator.GE;
+                    return new FeelExpression.Comparison(operator, input, parseAdditive());
+                }
+                case "[":
+                case "]":
+                case "(":
+                    return parseRange(input);
+                default:
+                    break;
+            }
+        }
+        return new FeelExpression.Comparison(FeelExpression.Comparison.Operator.EQ, input, parseAdditive());
+    }
+
+    /**
+     * Range such as [1..10], ]1..10[ or (1..10). A parenthesized value without
+     * ".." is an equality test.
+     */
+    private FeelExpression parseRange(FeelExpression input) {
+        boolean lowerInclusive = next().text.equals("[");
+        FeelExpression lower = parseAdditive();
+        if (!peekSymbol("..")) {
+            expect(TokenType.SYMBOL, ")");
+            return new FeelExpression.Comparison(FeelExpression.Comparison.Operator.EQ, input, lower);
+        }
+        index++;
+        FeelExpression upper = parseAdditive();
+        Token close = next();
+        if (close.type != TokenType.SYMBOL || !(close.text.equals("]") || close.text.equals(")") || close.text.equals("["))) {
+            throw error(close, "Expected end of range");
+        }
+        return new FeelExpression.Logical(true, new FeelExpression[] {
+            new FeelExpression.Comparison(lowerInclusive
+                ? FeelExpression.Comparison.Operator.GE : FeelExpression.Comparison.Operator.GT, input, lower),
+            new FeelExpression.Comparison(close.text.equals("]")
+                ? FeelExpression.Comparison.Operator.LE : FeelExpression.Comparison.Operator.LT, input, upper)
+        });
+    }
+
+    private FeelExpression parseDisjunction() {
+        List<FeelExpression> operands = new ArrayList<>();
+        operands.add(parseConjunction());
+        while (acceptName("or")) {
+            operands.add(parseConjunction());
+        }
+        return operands.size() == 1 ? operands.get(0)
+            : new FeelExpression.Logical(false, operands.toArray(new FeelExpression[0]));
+    }
+
+    private FeelExpression parseConjunction() {
+        List<FeelExpression> operands = new ArrayList<>();
+        operands.add(parseComparison());
+        while (acceptName("and")) {
+            operands.add(parseComparison());
+        }
+        return operands.size() == 1 ? operands.get(0)
+            : new FeelExpression.Logical(true, operands.toArray(new FeelExpression[0]));
+    }
+
+    private FeelExpression parseComparison() {
+        FeelExpression left = parseAdditive();
+        Token token = peek();
+        if (token.type != TokenType.SYMBOL) {
+            return left;
+        }
+        FeelExpression.Comparison.Operator operator;
+        switch (token.text) {
+            case "=":
+            case "==": operator = FeelExpression.Comparison.Operator.EQ; break;
+            case "!=": operator = FeelExpression.Comparison.Operator.NE; break;
+            case "<": operator = FeelExpression.Comparison.Operator.LT; break;
+            case "<=": operator = FeelExpression.Comparison.Operator.LE; break;
+            case ">": operator = FeelExpression.Comparison.Operator.GT; break;
+            case ">=": operator = FeelExpression.Comparison.Operator.GE; break;
+            default: return left;
+        }
+        index++;
+        return new FeelExpression.Comparison(operator, left, parseAdditive());
+    }
+
+    private FeelExpression parseAdditive() {
+        FeelExpression left = parseMultiplicative();
+        while (peekSymbol("+") || peekSymbol("-")) {
+            char operator = next().text.charAt(0);
+            left = new FeelExpression.Arithmetic(operator, left, parseMultiplicative());
+        }
+        return left;
+    }
+
+    private FeelExpression parseMultiplicative() {
+        FeelExpression left = parseUnary();
+        while (peekSymbol("*") || peekSymbol("/")) {
+            char operator = next().text.charAt(0);
+            left = new FeelExpression.Arithmetic(operator, left, parseUnary());
+        }
+        return left;
+    }
+
+    private FeelExpression parseUnary() {
+        if (peekSymbol("-")) {
+            index++;
+            FeelExpression operand = parseUnary();
+            if (operand instanceof FeelExpression.Literal
+                && ((FeelExpression.Literal) operand).getValue() instanceof Double) {
+                return new FeelExpression.Literal(-(Double) ((FeelExpression.Literal) operand).getValue());
+            }
+            return new FeelExpression.Negate(operand);
+        }
+        return parsePrimary();
+    }
+
+    private FeelExpression parsePrimary() {
+        Token token = next();
+        switch (token.type) {
+            case NUMBER:
+                return new FeelExpression.Literal(Double.valueOf(token.text));
+            case STRING:
+                return new FeelExpression.Literal(token.text);
+            case SYMBOL:
+                if ("(".equals(token.text)) {
+                    FeelExpression inner = parseDisjunction();
+                    expect(TokenType.SYMBOL, ")");
+                    return inner;
+                }
+                throw error(token, "Unexpected '" + token.text + "'");
+            case NAME:
+                return parseName(token);
+            default:
+                throw error(token, "Unexpected end of expression");
+        }
+    }
+
+    private FeelExpression parseName(Token token) {
+        switch (token.text) {
+            case "true": return new FeelExpression.Literal(Boolean.TRUE);
+            case "false": return new FeelExpression.Literal(Boolean.FALSE);
+            case "null": return new FeelExpression.Literal(null);
+            default: break;
+        }
+        if (!peekSymbol("(")) {
+            return new FeelExpression.Variable(token.text);
+        }
+        index++;
+        FeelExpression argument = parseDisjunction();
+        expect(TokenType.SYMBOL, ")");
+        switch (token.text) {
+            case "not": return new FeelExpression.Not(argument);
+            case "floor":
+                return new FeelExpression.NumericFunction(FeelExpression.NumericFunction.Function.FLOOR, argument);
+            case "ceiling":
+                return new FeelExpression.NumericFunction(FeelExpression.NumericFunction.Function.CEILING, argument);
+            case "abs":
+                return new FeelExpression.NumericFunction(FeelExpression.NumericFunction.Function.ABS, argument);
+            default:
+                throw error(token, "Unsupported function '" + token.text + "'");
+        }
+    }
+
+    private Token peek() {
+        return tokens.get(index);
+    }
+
+    private Token next() {
+        Token token = tokens.get(index);
+        if (token.type != TokenType.END) {
+            index++;
+        }
+        return token;
+    }
+
+    private boolean peekSymbol(String symbol) {
+        Token token = peek();
+        return token.type == TokenType.SYMBOL && token.text.equals(symbol);
+    }
+
+    private boolean acceptName(String name) {
+        Token token = peek();
+        if (token.type == TokenType.NAME && token.text.equals(name)) {
+            index++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(TokenType type, String text) {
+        Token token = next();
+        if (token.type != type || (text != null && !text.equals(token.text))) {
+            throw error(token, "Expected " + (text != null ? "'" + text + "'" : "end of expression"));
+        }
+    }
+
+    private IllegalArgumentException error(Token token, String message) {
+        return new IllegalArgumentException(message + " at position " + token.position + " in: " + source);
+    }
+
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int length = source.length();
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(source.charAt(i + 1)))) {
+                int start = i;
+                while (i < length && Character.isDigit(source.charAt(i))) {
+                    i++;
+                }
+                if (i + 1 < length && source.charAt(i) == '.' && Character.isDigit(source.charAt(i + 1))) {
+                    i++;
+                    while (i < length && Character.isDigit(source.charAt(i))) {
+                        i++;
+                    }
+                }
+                tokens.add(new Token(TokenType.NUMBER, source.substring(start, i), start));
+            } else if (c == '"') {
+                int start = i++;
+                StringBuilder value = new StringBuilder();
+                while (i < length && source.charAt(i) != '"') {
+                    char ch = source.charAt(i++);
+                    if (ch == '\\' && i < length) {
+                        ch = source.charAt(i++);
+                    }
+                    value.append(ch);
+                }
+                if (i >= length) {
+                    throw new IllegalArgumentException("Unterminated string at position " + start + " in: " + source);
+                }
+                i++;
+                tokens.add(new Token(TokenType.STRING, value.toString(), start));
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                // A '.' continues the name only before another segment, so "low..high" is a range
+                while (i < length && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '_'
+                    || source.charAt(i) == '.' && i + 1 < length
+                        && (Character.isLetter(source.charAt(i + 1)) || source.charAt(i + 1) == '_'))) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.NAME, source.substring(start, i), start));
+            } else {
+                int start = i;
+                String two = i + 1 < length ? source.substring(i, i + 2) : "";
+                if (two.equals("<=") || two.equals(">=") || two.equals("!=") || two.equals("==") || two.equals("..")) {
+                    i += 2;
+                    tokens.add(new Token(TokenType.SYMBOL, two, start));
+                } else if ("=<>()[]+-*/,".indexOf(c) >= 0) {
+                    i++;
+                    tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c), start));
+                } else {
+                    throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + start + " in: " + source);
+                }
+            }
+        }
+        tokens.add(new Token(TokenType.END, "", length));
+        return tokens;
+    }
+}
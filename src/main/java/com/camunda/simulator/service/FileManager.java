@@ -1,132 +1,506 @@
 package com.camunda.simulator.service;
 
-import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Manages uploaded BPMN and DMN files in memory.
+ * Manages uploaded BPMN and DMN files as a content-addressed, versioned
+ * repository. File contents are stored once per SHA-256, however
+ * often and under however many names they are uploaded. Each upload of a
+ * file name with new content becomes the next version of that name; an
+ * upload of the content of its current version is not a new version.
+ *
+ * The default file of each kind is the one deployed last. Deployments are
+ * immutable, so a hash identifies its content for good: caches can key on it.
+ *
+ * Given a data directory, the repository is persisted in a {@link ModelStore}
+ * and restored from it on construction; contents are then served from
+ * memory mapped regions of the store rather than from the heap.
  */
-public class FileManager {
-    
-    private final Map<String, byte[]> bpmnFiles = new ConcurrentHashMap<>();
-    private final Map<String, byte[]> dmnFiles = new ConcurrentHashMap<>();
-    
+public class FileManager implements Closeable {
+
+    private static final String BPMN = "bpmn";
+    private static final String DMN = "dmn";
+
+    // Content by SHA-256 (hex); shared by all versions of both kinds of file
+    private final Map<String, ByteBuffer> blobs = new ConcurrentHashMap<>();
+    private final Repository bpmnFiles = new Repository(BPMN);
+    private final Repository dmnFiles = new Repository(DMN);
+    // Null when the files are held in memory only
+    private final ModelStore store;
+    // Orders deployments across names; guarded by this
+    private long deploymentSequence;
+
+    /**
+     * A repository held in memory only.
+     */
+    public FileManager() {
+        this.store = null;
+    }
+
+    /**
+     * A repository persisted in a data directory, restored with the files
+     * stored there before. No file is read or parsed until it is used.
+     *
+     * @throws IOException if the directory or its files cannot be opened
+     */
+    public FileManager(Path dataDirectory) throws IOException {
+        this.store = new ModelStore(dataDirectory);
+        try {
+            replay();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        releaseBlobs();
+    }
+
+    private void replay() throws IOException {
+        store.replay(new ModelStore.Replay() {
+            @Override
+            public void blob(String hash, ByteBuffer content) {
+                blobs.put(hash, content);
+            }
+
+            @Override
+            public void deploy(String kind, String name, String hash) {
+                // A content lost in a crash leaves its deployment out
+                if (blobs.containsKey(hash)) {
+                    apply(repository(kind), name, hash);
+                }
+            }
+
+            @Override
+            public void remove(String kind, String name) {
+                repository(kind).remove(name);
+            }
+
+            @Override
+            public void clear() {
+                bpmnFiles.clear();
+                dmnFiles.clear();
+            }
+        });
+    }
+
+    /**
+     * A version of a stored file.
+     */
+    public static final class Deployment {
+        private final String name;
+        private final int version;
+        private final String hash;
+        private final int size;
+        private final long sequence;
+
+        Deployment(String name, int version, String hash, int size, long sequence) {
+            this.name = name;
+            this.version = version;
+            this.hash = hash;
+            this.size = size;
+            this.sequence = sequence;
+        }
+
+        public String getName() { return name; }
+        public int getVersion() { return version; }
+        public String getHash() { return hash; }
+        public int getSize() { return size; }
+    }
+
+    /**
+     * Versions of the files of one kind. Mutated only under the FileManager lock.
+     */
+    private static final class Repository {
+        private final String kind;
+        // Versions of each file name, oldest first
+        private final Map<String, List<Deployment>> versions = new LinkedHashMap<>();
+        // Deployed last, of any name
+        private volatile Deployment latest;
+
+        Repository(String kind) {
+            this.kind = kind;
+        }
+
+        Deployment current(String name) {
+            List<Deployment> history = versions.get(name);
+            return history == null ? null : history.get(history.size() - 1);
+        }
+
+        Deployment version(String name, int version) {
+            List<Deployment> history = versions.get(name);
+            if (history == null || version < 1 || version > history.size()) {
+                throw new NoSuchElementException("No version " + version + " of file '" + name + "'");
+            }
+            return history.get(version - 1);
+        }
+
+        void remove(String name) {
+            versions.remove(name);
+            Deployment latest = null;
+            for (List<Deployment> history : versions.values()) {
+                Deployment current = history.get(history.size() - 1);
+                if (latest == null || current.sequence > latest.sequence) {
+                    latest = current;
+                }
+            }
+            this.latest = latest;
+        }
+
+        void clear() {
+            versions.clear();
+            latest = null;
+        }
+
+        void collectHashes(Set<String> hashes) {
+            for (List<Deployment> history : versions.values()) {
+                for (Deployment deployment : history) {
+                    hashes.add(deployment.hash);
+                }
+            }
+        }
+    }
+
     /**
      * Store a BPMN file.
      * @param filename The name of the file
      * @param content The file content
+     * @return the deployment holding the content: a new version, or the
+     *         current one if its content is identical
      */
-    public void storeBpmnFile(String filename, byte[] content) {
-        bpmnFiles.put(filename, content);
+    public Deployment storeBpmnFile(String filename, byte[] content) {
+        return deploy(bpmnFiles, filename, content);
     }
-    
+
     /**
      * Store a DMN file.
      * @param filename The name of the file
      * @param content The file content
+     * @return the deployment holding the content: a new version, or the
+     *         current one if its content is identical
+     */
+    public Deployment storeDmnFile(String filename, byte[] content) {
+        return deploy(dmnFiles, filename, content);
+    }
+
+    /**
+     * Make an earlier version of a BPMN file current again by deploying its
+     * content as the next version.
+     * @throws NoSuchElementException if there is no such version
      */
-    public void storeDmnFile(String filename, byte[] content) {
-        dmnFiles.put(filename, content);
+    public Deployment rollbackBpmnFile(String filename, int version) {
+        return rollback(bpmnFiles, filename, version);
     }
-    
+
+    /**
+     * Make an earlier version of a DMN file current again by deploying its
+     * content as the next version.
+     * @throws NoSuchElementException if there is no such version
+     */
+    public Deployment rollbackDmnFile(String filename, int version) {
+        return rollback(dmnFiles, filename, version);
+    }
+
     /**
      * Get a BPMN file as InputStream.
      * @param filename The name of the file
-     * @return InputStream of the file, or null if not found
+     * @return InputStream of the current version of the file, or null if not found
      */
     public InputStream getBpmnFile(String filename) {
-        byte[] content = bpmnFiles.get(filename);
-        if (content == null) {
-            return null;
-        }
-        return new ByteArrayInputStream(content);
+        return getContent(getBpmnDeployment(filename));
     }
-    
+
     /**
      * Get a DMN file as InputStream.
      * @param filename The name of the file
-     * @return InputStream of the file, or null if not found
+     * @return InputStream of the current version of the file, or null if not found
      */
     public InputStream getDmnFile(String filename) {
-        byte[] content = dmnFiles.get(filename);
-        if (content == null) {
+        return getContent(getDmnDeployment(filename));
+    }
+
+    /**
+     * Current version of a BPMN file, or null if not found.
+     */
+    public synchronized Deployment getBpmnDeployment(String filename) {
+        return bpmnFiles.current(filename);
+    }
+
+    /**
+     * Current version of a DMN file, or null if not found.
+     */
+    public synchronized Deployment getDmnDeployment(String filename) {
+        return dmnFiles.current(filename);
+    }
+
+    /**
+     * All versions of a BPMN file, oldest first; empty if not found.
+     */
+    public synchronized List<Deployment> getBpmnVersions(String filename) {
+        return List.copyOf(bpmnFiles.versions.getOrDefault(filename, Collections.emptyList()));
+    }
+
+    /**
+     * All versions of a DMN file, oldest first; empty if not found.
+     */
+    public synchronized List<Deployment> getDmnVersions(String filename) {
+        return List.copyOf(dmnFiles.versions.getOrDefault(filename, Collections.emptyList()));
+    }
+
+    /**
+     * All versions of all BPMN files, in the order they were deployed.
+     */
+    public synchronized List<Deployment> getBpmnHistory() {
+        List<Deployment> history = new ArrayList<>();
+        for (List<Deployment> versions : bpmnFiles.versions.values()) {
+            history.addAll(versions);
+        }
+        history.sort(Comparator.comparingLong(deployment -> deployment.sequence));
+        return history;
+    }
+
+    /**
+     * Content of a deployment, or null for a null deployment.
+     */
+    public InputStream getContent(Deployment deployment) {
+        if (deployment == null) {
             return null;
         }
-        return new ByteArrayInputStream(content);
+        return new BufferInputStream(blobs.get(deployment.hash).duplicate());
+    }
+
+    /**
+     * The BPMN file deployed last, or null if no files available.
+     */
+    public Deployment getDefaultBpmnDeployment() {
+        return bpmnFiles.latest;
     }
-    
+
+    /**
+     * The DMN file deployed last, or null if no files available.
+     */
+    public Deployment getDefaultDmnDeployment() {
+        return dmnFiles.latest;
+    }
+
     /**
-     * Get the default BPMN file (first one if available).
+     * Get the default BPMN file (the one deployed last).
      * @return InputStream of the file, or null if no files available
      */
     public InputStream getDefaultBpmnFile() {
-        if (bpmnFiles.isEmpty()) {
-            return null;
-        }
-        return getBpmnFile(bpmnFiles.keySet().iterator().next());
+        return getContent(getDefaultBpmnDeployment());
     }
-    
+
     /**
-     * Get the default DMN file (first one if available).
+     * Get the default DMN file (the one deployed last).
      * @return InputStream of the file, or null if no files available
      */
     public InputStream getDefaultDmnFile() {
-        if (dmnFiles.isEmpty()) {
-            return null;
-        }
-        return getDmnFile(dmnFiles.keySet().iterator().next());
+        return getContent(getDefaultDmnDeployment());
+    }
+
+    /**
+     * Name of the default DMN file, or null if no files available.
+     */
+    public String getDefaultDmnFileName() {
+        Deployment deployment = getDefaultDmnDeployment();
+        return deployment != null ? deployment.name : null;
     }
-    
+
+    /**
+     * SHA-256 (hex) of the default BPMN file, or null if no files available.
+     */
+    public String getDefaultBpmnHash() {
+        Deployment deployment = getDefaultBpmnDeployment();
+        return deployment != null ? deployment.hash : null;
+    }
+
+    /**
+     * SHA-256 (hex) of the default DMN file, or null if no files available.
+     */
+    public String getDefaultDmnHash() {
+        Deployment deployment = getDefaultDmnDeployment();
+        return deployment != null ? deployment.hash : null;
+    }
+
     /**
      * Check if any BPMN files are stored.
      */
     public boolean hasBpmnFiles() {
-        return !bpmnFiles.isEmpty();
+        return getDefaultBpmnDeployment() != null;
     }
-    
+
     /**
      * Check if any DMN files are stored.
      */
     public boolean hasDmnFiles() {
-        return !dmnFiles.isEmpty();
+        return getDefaultDmnDeployment() != null;
     }
-    
+
     /**
      * Get all BPMN file names.
      */
-    public java.util.Set<String> getBpmnFileNames() {
-        return bpmnFiles.keySet();
+    public synchronized Set<String> getBpmnFileNames() {
+        return Set.copyOf(bpmnFiles.versions.keySet());
     }
-    
+
     /**
      * Get all DMN file names.
      */
-    public java.util.Set<String> getDmnFileNames() {
-        return dmnFiles.keySet();
+    public synchronized Set<String> getDmnFileNames() {
+        return Set.copyOf(dmnFiles.versions.keySet());
     }
-    
+
     /**
-     * Remove a BPMN file.
+     * Remove a BPMN file with all its versions.
      */
-    public void removeBpmnFile(String filename) {
+    public synchronized void removeBpmnFile(String filename) {
+        if (store != null) {
+            store.remove(BPMN, filename);
+        }
         bpmnFiles.remove(filename);
+        releaseBlobs();
     }
-    
+
     /**
-     * Remove a DMN file.
+     * Remove a DMN file with all its versions.
      */
-    public void removeDmnFile(String filename) {
+    public synchronized void removeDmnFile(String filename) {
+        if (store != null) {
+            store.remove(DMN, filename);
+        }
         dmnFiles.remove(filename);
+        releaseBlobs();
     }
-    
+
     /**
      * Clear all stored files.
      */
-    public void clearAll() {
+    public synchronized void clearAll() {
+        if (store != null) {
+            store.clear();
+        }
         bpmnFiles.clear();
         dmnFiles.clear();
+        blobs.clear();
     }
-}
 
+    /**
+     * Close the data directory, if any. Stored contents stay readable; storing
+     * or removing files afterwards fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private synchronized Deployment deploy(Repository repository, String filename, byte[] content) {
+        String hash = sha256(content);
+        if (!blobs.containsKey(hash)) {
+            blobs.put(hash, store != null ? store.append(hash, content) : ByteBuffer.wrap(content));
+        }
+        if (store != null) {
+            store.deploy(repository.kind, filename, hash);
+        }
+        return apply(repository, filename, hash);
+    }
+
+    /**
+     * Record a deployment of a stored content in memory.
+     */
+    private Deployment apply(Repository repository, String filename, String hash) {
+        Deployment current = repository.current(filename);
+        if (current != null && current.hash.equals(hash)) {
+            // Same content as the current version: no new version, but it is the latest upload
+            repository.latest = current;
+            return current;
+        }
+        List<Deployment> history = repository.versions.computeIfAbsent(filename, name -> new ArrayList<>());
+        Deployment deployment = new Deployment(filename, history.size() + 1, hash, blobs.get(hash).capacity(),
+            ++deploymentSequence);
+        history.add(deployment);
+        repository.latest = deployment;
+        return deployment;
+    }
+
+    private synchronized Deployment rollback(Repository repository, String filename, int version) {
+        Deployment target = repository.version(filename, version);
+        if (store != null) {
+            store.deploy(repository.kind, filename, target.hash);
+        }
+        return apply(repository, filename, target.hash);
+    }
+
+    private Repository repository(String kind) {
+        return BPMN.equals(kind) ? bpmnFiles : dmnFiles;
+    }
+
+    /**
+     * Drop the contents no version refers to any more.
+     */
+    private void releaseBlobs() {
+        Set<String> referenced = new HashSet<>();
+        bpmnFiles.collectHashes(referenced);
+        dmnFiles.collectHashes(referenced);
+        blobs.keySet().retainAll(referenced);
+    }
+
+    /**
+     * Reads a buffer without copying it first; the buffer is not shared.
+     */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,996 @@
+package com.camunda.simulator.service;
+
+import org.camunda.bpm.model.dmn.HitPolicy;
+import org.camunda.bpm.model.dmn.instance.Decision;
+import org.camunda.bpm.model.dmn.instance.DecisionTable;
+import org.camunda.bpm.model.dmn.instance.Input;
+import org.camunda.bpm.model.dmn.instance.InputEntry;
+import org.camunda.bpm.model.dmn.instance.InputExpression;
+import org.camunda.bpm.model.dmn.instance.Output;
+import org.camunda.bpm.model.dmn.instance.OutputEntry;
+import org.camunda.bpm.model.dmn.instance.Rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decision table with FIRST or UNIQUE hit policy, indexed per input column so
+ * that finding the matching rule does not test every rule.
+ *
+ * Numeric unary tests ({@code >=25}, {@code <25}, {@code [1..10]}, numeric
+ * literals) become intervals in an interval tree; boolean, string and null
+ * literals map to the bitset of rules that accept them; "-" and blank entries
+ * go to a per-column wildcard bitset. Evaluating intersects the candidate
+ * bitsets of all columns, and the lowest remaining bit is the first rule.
+ *
+ * {@link #compile(Decision)} returns null for tables it cannot index exactly
+ * (other hit policies, {@code not(...)}, string ranges, non-constant outputs,
+ * non-FEEL expressions); those are evaluated by the DMN engine. At evaluation
+ * time, inputs the engine would convert or reject (missing variables, values
+ * not matching the input typeRef) also go to the engine.
+ *
+ * The result only depends on which equivalence class each column value
+ * falls in: for numbers, the interval between (or the point at) consecutive
+ * bounds of the column's numeric tests; otherwise the literal it equals, or
+ * "none of them". The matched rule is cached per tuple of classes, so a sweep
+ * over a continuous input (25.01, 25.1 and 25.9 after {@code floor}, or any
+ * value {@code >=25}) evaluates the rules once per class.
+ *
+ * Since the classes of each column are finite, a table whose combined class
+ * space is small can be materialized ({@link #materialize()}): the rule of
+ * every tuple of classes is computed up front into a dense array, and an
+ * evaluation becomes a binary search per column plus one array index.
+ *
+ * Otherwise, after {@link #GENERATE_AFTER} evaluations the table generates a
+ * hidden class testing the rules in straight-line bytecode (see
+ * {@link DecisionTableClassGenerator}) and matches with it from then on.
+ */
+public final class IndexedDecisionTable {
+
+    /** Evaluations after which a table is considered hot and gets a generated class. */
+    public static final int GENERATE_AFTER = 10_000;
+
+    /** Bound on cached equivalence classes; the cache is cleared when it is full. */
+    static final int MAX_CACHED_CLASSES = 4096;
+
+    /** Largest combined class space memoized in a dense array, by columnar evaluation or materialization. */
+    static final int DENSE_CLASS_LIMIT = 1 << 16;
+    private static final int UNKNOWN_RULE = Integer.MIN_VALUE;
+
+    /** Returned by {@link #evaluateRule(Map)} for inputs left to the DMN engine. */
+    static final int NOT_INDEXED = -3;
+
+    private static final Object NOT_CONSTANT = new Object();
+
+    private final String decisionKey;
+    private final boolean unique;
+    private final String[] ruleIds;
+    private final Column[] columns;
+    private final Cell[][] cells;
+    private final List<Map<String, Object>> outputs;
+    private final ConcurrentHashMap<ClassKey, Integer> classResults = new ConcurrentHashMap<>();
+
+    // Approximate under concurrency; it only decides when to generate
+    private int evaluations;
+    private volatile RuleMatcher matcher;
+    // Too large to generate a class for
+    private boolean generationDisabled;
+    // Generated class or materialized table disagreed with the engine: compile neither again
+    private boolean compilationDiscarded;
+    // Rule per tuple of classes, indexed by classIndex(); null unless materialized
+    private volatile int[] lookup;
+
+    private IndexedDecisionTable(String decisionKey, boolean unique, String[] ruleIds, Column[] columns,
+                                 Cell[][] cells, List<Map<String, Object>> outputs) {
+        this.decisionKey = decisionKey;
+        this.unique = unique;
+        this.ruleIds = ruleIds;
+        this.columns = columns;
+        this.cells = cells;
+        this.outputs = outputs;
+    }
+
+    /**
+     * Index the decision table of a decision.
+     *
+     * @return the indexed table, or null if the decision is not a decision
+     *         table that can be indexed with the same results as the engine
+     */
+    public static IndexedDecisionTable compile(Decision decision) {
+        if (!(decision.getExpression() instanceof DecisionTable)) {
+            return null;
+        }
+        DecisionTable table = (DecisionTable) decision.getExpression();
+        HitPolicy hitPolicy = table.getHitPolicy() != null ? table.getHitPolicy() : HitPolicy.UNIQUE;
+        if (hitPolicy != HitPolicy.FIRST && hitPolicy != HitPolicy.UNIQUE) {
+            return null;
+        }
+        try {
+            List<Input> inputs = new ArrayList<>(table.getInputs());
+            List<Output> outputClauses = new ArrayList<>(table.getOutputs());
+            List<Rule> rules = new ArrayList<>(table.getRules());
+
+            Column[] columns = new Column[inputs.size()];
+            List<List<Interval>> intervals = new ArrayList<>();
+            for (int column = 0; column < columns.length; column++) {
+                InputExpression inputExpression = inputs.get(column).getInputExpression();
+                if (!isFeel(inputExpression.getExpressionLanguage())) {
+                    return null;
+                }
+                columns[column] = new Column(FeelParser.parse(inputExpression.getTextContent()),
+                    inputExpression.getTypeRef());
+                intervals.add(new ArrayList<>());
+            }
+            for (Output output : outputClauses) {
+                if (output.getName() == null) {
+                    return null;
+                }
+            }
+
+            String[] ruleIds = new String[rules.size()];
+            Cell[][] cells = new Cell[rules.size()][columns.length];
+            List<Map<String, Object>> outputs = new ArrayList<>(rules.size());
+            for (int rule = 0; rule < rules.size(); rule++) {
+                ruleIds[rule] = rules.get(rule).getId();
+                List<InputEntry> entries = new ArrayList<>(rules.get(rule).getInputEntries());
+                if (entries.size() != columns.length) {
+                    return null;
+                }
+                for (int column = 0; column < columns.length; column++) {
+                    InputEntry entry = entries.get(column);
+                    cells[rule][column] = new Cell();
+                    if (!isFeel(entry.getExpressionLanguage())
+                        || !columns[column].index(FeelParser.parseUnaryTests(entry.getTextContent()), rule,
+                            intervals.get(column), cells[rule][column])) {
+                        return null;
+                    }
+                }
+                List<OutputEntry> outputEntries = new ArrayList<>(rules.get(rule).getOutputEntries());
+                if (outputEntries.size() != outputClauses.size()) {
+                    return null;
+                }
+                Map<String, Object> values = new LinkedHashMap<>();
+                for (int output = 0; output < outputClauses.size(); output++) {
+                    OutputEntry entry = outputEntries.get(output);
+                    if (!isFeel(entry.getExpressionLanguage())) {
+                        return null;
+                    }
+                    Object value = outputValue(entry.getTextContent(), outputClauses.get(output).getTypeRef());
+                    if (value == NOT_CONSTANT) {
+                        return null;
+                    }
+                    values.put(outputClauses.get(output).getName(), value);
+                }
+                outputs.add(Collections.unmodifiableMap(values));
+            }
+
+            for (int column = 0; column < columns.length; column++) {
+                columns[column].numbers = IntervalTree.build(intervals.get(column));
+                columns[column].buildClasses(intervals.get(column));
+            }
+            return new IndexedDecisionTable(decision.getId(), hitPolicy == HitPolicy.UNIQUE, ruleIds, columns,
+                cells, outputs);
+        } catch (IllegalArgumentException e) {
+            // Outside the FEEL subset of FeelParser
+            return null;
+        }
+    }
+
+    public String getDecisionKey() {
+        return decisionKey;
+    }
+
+    public int getRuleCount() {
+        return ruleIds.length;
+    }
+
+    int getColumnCount() {
+        return columns.length;
+    }
+
+    boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * Indexed unary tests of a rule in a column.
+     */
+    Cell getCell(int rule, int column) {
+        return cells[rule][column];
+    }
+
+    /**
+     * Whether rules are matched by a generated class.
+     */
+    public boolean isGenerated() {
+        return matcher != null;
+    }
+
+    /**
+     * Generate the class matching this table's rules now instead of waiting
+     * for the table to become hot.
+     *
+     * @return whether a generated class is in use
+     */
+    public synchronized boolean generateClass() {
+        if (matcher == null && !generationDisabled && !compilationDiscarded) {
+            matcher = DecisionTableClassGenerator.generate(this);
+            // Too large for one method: stay with the index
+            generationDisabled = matcher == null;
+        }
+        return matcher != null;
+    }
+
+    /**
+     * Whether rules are looked up in a materialized table.
+     */
+    public boolean isMaterialized() {
+        return lookup != null;
+    }
+
+    /**
+     * Compute the rule of every tuple of equivalence classes into a dense
+     * array, if there are at most {@link #DENSE_CLASS_LIMIT} tuples. Each rule
+     * is found by matching one representative value per class.
+     *
+     * @return whether a materialized table is in use
+     */
+    public synchronized boolean materialize() {
+        if (lookup != null || compilationDiscarded) {
+            return lookup != null;
+        }
+        long space = 1;
+        Object[][] representatives = new Object[columns.length][];
+        for (int column = 0; column < columns.length; column++) {
+            space *= columns[column].classCount();
+            if (space > DENSE_CLASS_LIMIT) {
+                return false;
+            }
+            representatives[column] = columns[column].representatives();
+        }
+        int[] table = new int[(int) space];
+        Object[] values = new Object[columns.length];
+        for (int index = 0; index < table.length; index++) {
+            int remainder = index;
+            for (int column = columns.length - 1; column >= 0; column--) {
+                int classCount = columns[column].classCount();
+                values[column] = representatives[column][remainder % classCount];
+                remainder /= classCount;
+            }
+            BitSet candidates = candidates(values);
+            int first = candidates.nextSetBit(0);
+            table[index] = unique && first >= 0 && candidates.nextSetBit(first + 1) >= 0 ? RuleMatcher.CONFLICT : first;
+        }
+        lookup = table;
+        return true;
+    }
+
+    /**
+     * Stop using the generated class and the materialized table, e.g. after
+     * one of them disagreed with the engine.
+     */
+    public synchronized void discardGeneratedClass() {
+        matcher = null;
+        lookup = null;
+        compilationDiscarded = true;
+        // Results matched by the generated class are suspect as well
+        classResults.clear();
+    }
+
+    /**
+     * Number of equivalence classes with a cached result.
+     */
+    public int getCachedClassCount() {
+        return classResults.size();
+    }
+
+    /**
+     * Evaluate the table.
+     *
+     * @return the output entries of the matched rule (empty if no rule
+     *         matches), or null if these variables must be evaluated by the
+     *         DMN engine
+     * @throws IllegalStateException if the hit policy is UNIQUE and several rules match
+     */
+    public Map<String, Object> evaluate(Map<String, Object> variables) {
+        int rule = evaluateRule(variables);
+        if (rule == NOT_INDEXED) {
+            return null;
+        }
+        return rule < 0 ? Collections.emptyMap() : outputs.get(rule);
+    }
+
+    /**
+     * Evaluate the table to the index of the matched rule.
+     *
+     * @return the matched rule, -1 if no rule matches, or NOT_INDEXED if these
+     *         variables must be evaluated by the DMN engine
+     * @throws IllegalStateException if the hit policy is UNIQUE and several rules match
+     */
+    int evaluateRule(Map<String, Object> variables) {
+        Object[] values = new Object[columns.length];
+        for (int column = 0; column < columns.length; column++) {
+            for (String name : columns[column].variableNames) {
+                if (!variables.containsKey(name)) {
+                    return NOT_INDEXED;
+                }
+            }
+            values[column] = columns[column].inputExpression.evaluate(variables);
+            if (!columns[column].accepts(values[column])) {
+                return NOT_INDEXED;
+            }
+        }
+
+        int[] classes = new int[values.length];
+        for (int column = 0; column < values.length; column++) {
+            classes[column] = columns[column].classOf(values[column]);
+        }
+        int[] table = lookup;
+        if (table != null) {
+            int rule = table[classIndex(classes)];
+            if (rule == RuleMatcher.CONFLICT) {
+                throw conflict(values);
+            }
+            return rule;
+        }
+        int rule = cachedRule(classes, values);
+        if (matcher == null && ++evaluations == GENERATE_AFTER) {
+            generateClass();
+        }
+        if (rule == RuleMatcher.CONFLICT) {
+            throw conflict(values);
+        }
+        return rule;
+    }
+
+    String getRuleId(int rule) {
+        return ruleIds[rule];
+    }
+
+    /**
+     * Output entries of a rule, by rule index; empty for -1.
+     */
+    Map<String, Object> getOutput(int rule) {
+        return rule < 0 ? Collections.emptyMap() : outputs.get(rule);
+    }
+
+    /**
+     * Evaluate the table over columns of inputs. Every variable read by an
+     * input expression is an array (double[], boolean[], int[], long[] or
+     * Object[]) with at least {@code rows} elements. Input expressions that
+     * are a double[] variable, or floor/ceiling/abs of one, are read without
+     * boxing, and the rule is matched once per combination of equivalence
+     * classes in the batch.
+     *
+     * @throws IllegalArgumentException if a column is missing or too short, or
+     *         a row holds a value the index cannot evaluate (NaN, or a value
+     *         the engine would convert for the input typeRef)
+     * @throws IllegalStateException if the hit policy is UNIQUE and several rules match a row
+     */
+    public ColumnarDecisionResult evaluateColumns(Map<String, ?> columnsByName, int rows) {
+        ColumnReader[] readers = new ColumnReader[columns.length];
+        int space = 1;
+        for (int column = 0; column < columns.length; column++) {
+            readers[column] = new ColumnReader(columns[column], columnsByName, rows);
+            space = (int) Math.min((long) space * columns[column].classCount(), DENSE_CLASS_LIMIT + 1L);
+        }
+        // The materialized table, else a dense memo over the class space; larger spaces use the class cache
+        int[] memo = lookup;
+        if (memo == null && space <= DENSE_CLASS_LIMIT) {
+            memo = new int[space];
+            Arrays.fill(memo, UNKNOWN_RULE);
+        }
+        int[] ruleIndices = new int[rows];
+        int[] classes = new int[columns.length];
+        for (int row = 0; row < rows; row++) {
+            int index = 0;
+            for (int column = 0; column < readers.length; column++) {
+                classes[column] = readers[column].classOf(row);
+                index = index * columns[column].classCount() + classes[column] + 1;
+            }
+            int rule = memo != null ? memo[index] : UNKNOWN_RULE;
+            if (rule == UNKNOWN_RULE) {
+                rule = cachedRule(classes.clone(), values(readers, row));
+                if (memo != null) {
+                    memo[index] = rule;
+                }
+            }
+            if (rule == RuleMatcher.CONFLICT) {
+                throw conflict(values(readers, row));
+            }
+            ruleIndices[row] = rule;
+        }
+        return new ColumnarDecisionResult(ruleIndices, ruleIds, outputs);
+    }
+
+    private static Object[] values(ColumnReader[] readers, int row) {
+        Object[] values = new Object[readers.length];
+        for (int column = 0; column < readers.length; column++) {
+            values[column] = readers[column].value(row);
+        }
+        return values;
+    }
+
+    /**
+     * Position of a tuple of classes in a dense array over the combined class space.
+     */
+    private int classIndex(int[] classes) {
+        int index = 0;
+        for (int column = 0; column < classes.length; column++) {
+            index = index * columns[column].classCount() + classes[column] + 1;
+        }
+        return index;
+    }
+
+    /**
+     * Rule for a tuple of equivalence classes, from the class cache or matched
+     * with these representative values.
+     */
+    private int cachedRule(int[] classes, Object[] values) {
+        ClassKey key = new ClassKey(classes);
+        Integer cached = classResults.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int rule = matchRule(values);
+        if (classResults.size() >= MAX_CACHED_CLASSES) {
+            classResults.clear();
+        }
+        classResults.put(key, rule);
+        return rule;
+    }
+
+    private IllegalStateException conflict(Object[] values) {
+        BitSet candidates = candidates(values);
+        int first = candidates.nextSetBit(0);
+        return new IllegalStateException("Hit policy UNIQUE of decision '" + decisionKey
+            + "' allows a single matching rule, but rules " + ruleIds[first] + " and "
+            + ruleIds[candidates.nextSetBit(first + 1)] + " match");
+    }
+
+    /**
+     * Index of the matching rule, -1 or {@link RuleMatcher#CONFLICT}, from the
+     * generated class if there is one and from the index otherwise.
+     */
+    private int matchRule(Object[] values) {
+        RuleMatcher generated = matcher;
+        if (generated != null) {
+            double[] numbers = new double[values.length];
+            for (int column = 0; column < values.length; column++) {
+                // -0.0 + 0.0 is 0.0; NaN fails every numeric test
+                numbers[column] = values[column] instanceof Double ? (Double) values[column] + 0.0 : Double.NaN;
+            }
+            return generated.match(numbers, values);
+        }
+        BitSet candidates = candidates(values);
+        int rule = candidates.nextSetBit(0);
+        if (rule >= 0 && unique && candidates.nextSetBit(rule + 1) >= 0) {
+            return RuleMatcher.CONFLICT;
+        }
+        return rule;
+    }
+
+    /**
+     * Rules matching the column values, from the index.
+     */
+    private BitSet candidates(Object[] values) {
+        BitSet candidates = new BitSet(ruleIds.length);
+        candidates.set(0, ruleIds.length);
+        for (int column = 0; column < columns.length; column++) {
+            candidates.and(columns[column].match(values[column]));
+        }
+        return candidates;
+    }
+
+    private static boolean isFeel(String expressionLanguage) {
+        return expressionLanguage == null || expressionLanguage.equalsIgnoreCase("feel")
+            || expressionLanguage.equalsIgnoreCase("https://www.omg.org/spec/DMN/20191111/FEEL/");
+    }
+
+    /**
+     * Constant value of an output entry, converted as the engine converts it
+     * for the output typeRef, or NOT_CONSTANT.
+     */
+    private static Object outputValue(String text, String typeRef) {
+        if (text == null || text.trim().isEmpty()) {
+            return NOT_CONSTANT;
+        }
+        Object value = constant(FeelParser.parse(text));
+        if (value == null || value == NOT_CONSTANT) {
+            return value;
+        }
+        String type = typeRef != null ? typeRef.toLowerCase() : null;
+        if (value instanceof String) {
+            return type == null || type.equals("string") ? value : NOT_CONSTANT;
+        }
+        if (value instanceof Boolean) {
+            return type == null || type.equals("boolean") ? value : NOT_CONSTANT;
+        }
+        double number = (Double) value;
+        if ("double".equals(type)) {
+            return value;
+        }
+        if ("integer".equals(type) && number == Math.rint(number) && Math.abs(number) <= Integer.MAX_VALUE) {
+            return (int) number;
+        }
+        if ("long".equals(type) && number == Math.rint(number) && Math.abs(number) <= Long.MAX_VALUE) {
+            return (long) number;
+        }
+        return NOT_CONSTANT;
+    }
+
+    /**
+     * Value of an expression without variables, or NOT_CONSTANT.
+     */
+    private static Object constant(FeelExpression expression) {
+        boolean[] variable = new boolean[1];
+        expression.accept(node -> variable[0] |= node instanceof FeelExpression.Variable);
+        return variable[0] ? NOT_CONSTANT : expression.evaluate(Collections.emptyMap());
+    }
+
+    /** One input column: input expression plus the index of its unary tests. */
+    private static final class Column {
+        final FeelExpression inputExpression;
+        final String typeRef;
+        final Set<String> variableNames = new HashSet<>();
+        final BitSet any = new BitSet();
+        final Map<Object, BitSet> values = new HashMap<>();
+        IntervalTree numbers;
+        // Equivalence classes: sorted finite interval bounds, then one class per literal
+        double[] bounds;
+        final Map<Object, Integer> keyClasses = new HashMap<>();
+
+        Column(FeelExpression inputExpression, String typeRef) {
+            this.inputExpression = inputExpression;
+            this.typeRef = typeRef != null ? typeRef.toLowerCase() : null;
+            inputExpression.accept(node -> {
+                if (node instanceof FeelExpression.Variable) {
+                    variableNames.add(((FeelExpression.Variable) node).getRootName());
+                }
+            });
+        }
+
+        /**
+         * Whether the indexed tests agree with the engine for this input value:
+         * a type the index knows that needs no typeRef conversion.
+         */
+        boolean accepts(Object value) {
+            if (value == null) {
+                return true;
+            }
+            if (value instanceof Double) {
+                return acceptsNumber((Double) value);
+            }
+            if (value instanceof Boolean) {
+                return typeRef == null || typeRef.equals("boolean");
+            }
+            if (value instanceof String) {
+                return typeRef == null || typeRef.equals("string");
+            }
+            return false;
+        }
+
+        void buildClasses(List<Interval> intervals) {
+            TreeSet<Double> points = new TreeSet<>();
+            for (Interval interval : intervals) {
+                for (double bound : new double[] { interval.low, interval.high }) {
+                    if (!Double.isInfinite(bound)) {
+                        points.add(bound);
+                    }
+                }
+            }
+            bounds = new double[points.size()];
+            int i = 0;
+            for (double point : points) {
+                bounds[i++] = point;
+            }
+            for (Object key : values.keySet()) {
+                keyClasses.put(key, 2 * bounds.length + 1 + keyClasses.size());
+            }
+        }
+
+        /**
+         * Equivalence class of a value: every test in this column gives the
+         * same result for all values of a class. Numbers map to 2i+1 when
+         * equal to bound i and to 2i when just below it; -1 is any other value.
+         */
+        int classOf(Object value) {
+            if (value instanceof Double) {
+                return classOfNumber((Double) value);
+            }
+            Integer keyClass = keyClasses.get(value);
+            return keyClass != null ? keyClass : -1;
+        }
+
+        int classOfNumber(double number) {
+            int index = Arrays.binarySearch(bounds, number + 0.0);
+            return index >= 0 ? 2 * index + 1 : 2 * (-index - 1);
+        }
+
+        /**
+         * A value of each class, by class + 1: a number inside each interval
+         * between bounds, each bound, each literal, and for -1 an object equal
+         * to no literal.
+         */
+        Object[] representatives() {
+            Object[] representatives = new Object[classCount()];
+            representatives[0] = new Object();
+            for (int i = 0; i <= bounds.length; i++) {
+                double below;
+                if (bounds.length == 0) {
+                    below = 0.0;
+                } else if (i == 0) {
+                    below = Math.nextDown(bounds[0]);
+                } else if (i == bounds.length) {
+                    below = Math.nextUp(bounds[i - 1]);
+                } else {
+                    below = bounds[i - 1] / 2 + bounds[i] / 2;
+                }
+                representatives[2 * i + 1] = below;
+                if (i < bounds.length) {
+                    representatives[2 * i + 2] = bounds[i];
+                }
+            }
+            for (Map.Entry<Object, Integer> key : keyClasses.entrySet()) {
+                representatives[key.getValue() + 1] = key.getKey();
+            }
+            return representatives;
+        }
+
+        /**
+         * Number of classes, including -1 for values equal to no literal.
+         */
+        int classCount() {
+            return 2 * bounds.length + 1 + keyClasses.size() + 1;
+        }
+
+        boolean acceptsNumber(double number) {
+            if (Double.isNaN(number)) {
+                return false;
+            }
+            if (typeRef == null || typeRef.equals("double") || typeRef.equals("number")) {
+                return true;
+            }
+            return (typeRef.equals("integer") || typeRef.equals("long")) && number == Math.rint(number);
+        }
+
+        /**
+         * Rules whose test in this column accepts the value.
+         */
+        BitSet match(Object value) {
+            BitSet result = (BitSet) any.clone();
+            if (value instanceof Double) {
+                if (numbers != null) {
+                    // -0.0 + 0.0 is 0.0: the engine compares numbers as decimals
+                    numbers.stab((Double) value + 0.0, result);
+                }
+            } else {
+                BitSet rules = values.get(value);
+                if (rules != null) {
+                    result.or(rules);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Add a rule's unary tests to the index.
+         *
+         * @return false if the tests cannot be indexed
+         */
+        boolean index(FeelExpression test, int rule, List<Interval> intervals, Cell cell) {
+            if (test instanceof FeelExpression.Literal && Boolean.TRUE.equals(((FeelExpression.Literal) test).getValue())) {
+                any.set(rule);
+                cell.any = true;
+                return true;
+            }
+            if (test instanceof FeelExpression.Logical && !((FeelExpression.Logical) test).isConjunction()) {
+                for (FeelExpression operand : ((FeelExpression.Logical) test).getOperands()) {
+                    if (!index(operand, rule, intervals, cell)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            if (test instanceof FeelExpression.Comparison
+                && ((FeelExpression.Comparison) test).getOperator() == FeelExpression.Comparison.Operator.EQ) {
+                Object value = constant(((FeelExpression.Comparison) test).getRight());
+                if (value == NOT_CONSTANT) {
+                    return false;
+                }
+                if (!(value instanceof Double)) {
+                    values.computeIfAbsent(value, key -> new BitSet()).set(rule);
+                    cell.keys.add(value);
+                    return true;
+                }
+            }
+            Interval interval = interval(test, rule);
+            if (interval == null) {
+                return false;
+            }
+            if (!interval.isEmpty()) {
+                intervals.add(interval);
+                cell.intervals.add(interval);
+            }
+            return true;
+        }
+
+        /**
+         * Interval of a numeric comparison or conjunction of numeric
+         * comparisons (a range), or null.
+         */
+        private static Interval interval(FeelExpression test, int rule) {
+            if (test instanceof FeelExpression.Logical && ((FeelExpression.Logical) test).isConjunction()) {
+                Interval result = new Interval(rule);
+                for (FeelExpression operand : ((FeelExpression.Logical) test).getOperands()) {
+                    Interval bound = interval(operand, rule);
+                    if (bound == null) {
+                        return null;
+                    }
+                    result.intersect(bound);
+                }
+                return result;
+            }
+            if (!(test instanceof FeelExpression.Comparison)) {
+                return null;
+            }
+            FeelExpression.Comparison comparison = (FeelExpression.Comparison) test;
+            Object constant = constant(comparison.getRight());
+            if (!(comparison.getLeft() instanceof FeelExpression.Variable)
+                || !FeelParser.INPUT_VARIABLE.equals(((FeelExpression.Variable) comparison.getLeft()).getName())
+                || !(constant instanceof Double) || Double.isNaN((Double) constant)) {
+                return null;
+            }
+            double bound = (Double) constant + 0.0;
+            Interval result = new Interval(rule);
+            switch (comparison.getOperator()) {
+                case EQ: result.intersect(bound, true, bound, true); break;
+                case LT: result.intersect(Double.NEGATIVE_INFINITY, true, bound, false); break;
+                case LE: result.intersect(Double.NEGATIVE_INFINITY, true, bound, true); break;
+                case GT: result.intersect(bound, false, Double.POSITIVE_INFINITY, true); break;
+                case GE: result.intersect(bound, true, Double.POSITIVE_INFINITY, true); break;
+                default: return null;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Reads the value of one table column for a row of columnar input.
+     */
+    private static final class ColumnReader {
+        private final Column column;
+        private final Map<String, ?> columnsByName;
+        // Unboxed path: a double[] variable, optionally inside floor/ceiling/abs
+        private final double[] numbers;
+        private final FeelExpression.NumericFunction function;
+
+        ColumnReader(Column column, Map<String, ?> columnsByName, int rows) {
+            this.column = column;
+            this.columnsByName = columnsByName;
+            for (String name : column.variableNames) {
+                Object array = columnsByName.get(name);
+                if (array == null || !array.getClass().isArray()) {
+                    throw new IllegalArgumentException("No column for variable " + name);
+                }
+                if (java.lang.reflect.Array.getLength(array) < rows) {
+                    throw new IllegalArgumentException("Column " + name + " has fewer than " + rows + " rows");
+                }
+            }
+            FeelExpression expression = column.inputExpression;
+            FeelExpression.NumericFunction numericFunction = null;
+            if (expression instanceof FeelExpression.NumericFunction) {
+                numericFunction = (FeelExpression.NumericFunction) expression;
+                expression = numericFunction.getArgument();
+            }
+            if (expression instanceof FeelExpression.Variable && !((FeelExpression.Variable) expression).isNested()
+                && columnsByName.get(((FeelExpression.Variable) expression).getRootName()) instanceof double[]) {
+                this.numbers = (double[]) columnsByName.get(((FeelExpression.Variable) expression).getRootName());
+                this.function = numericFunction;
+            } else {
+                this.numbers = null;
+                this.function = null;
+            }
+        }
+
+        int classOf(int row) {
+            if (numbers != null) {
+                double number = function != null ? function.apply(numbers[row]) : numbers[row];
+                if (!column.acceptsNumber(number)) {
+                    throw unsupported(row, number);
+                }
+                return column.classOfNumber(number);
+            }
+            Object value = value(row);
+            if (!column.accepts(value)) {
+                throw unsupported(row, value);
+            }
+            return column.classOf(value);
+        }
+
+        Object value(int row) {
+            if (numbers != null) {
+                return function != null ? function.apply(numbers[row]) : numbers[row];
+            }
+            return column.inputExpression.evaluate(variable ->
+                variable.select(java.lang.reflect.Array.get(columnsByName.get(variable.getRootName()), row)));
+        }
+
+        private IllegalArgumentException unsupported(int row, Object value) {
+            return new IllegalArgumentException("Row " + row + ": input value " + value
+                + " cannot be evaluated by the index" + (column.typeRef != null ? " for type " + column.typeRef : ""));
+        }
+    }
+
+    /** Tuple of the equivalence classes of all column values. */
+    private static final class ClassKey {
+        private final int[] classes;
+        private final int hash;
+
+        ClassKey(int[] classes) {
+            this.classes = classes;
+            this.hash = Arrays.hashCode(classes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ClassKey && Arrays.equals(classes, ((ClassKey) other).classes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Unary tests of one rule in one column: any value, or one of the keys
+     * (boolean, string or null), or a number in one of the intervals.
+     */
+    static final class Cell {
+        boolean any;
+        final List<Object> keys = new ArrayList<>();
+        final List<Interval> intervals = new ArrayList<>();
+    }
+
+    /** Numeric interval accepted by one rule. */
+    static final class Interval {
+        final int rule;
+        double low = Double.NEGATIVE_INFINITY;
+        boolean lowInclusive = true;
+        double high = Double.POSITIVE_INFINITY;
+        boolean highInclusive = true;
+
+        Interval(int rule) {
+            this.rule = rule;
+        }
+
+        void intersect(Interval other) {
+            intersect(other.low, other.lowInclusive, other.high, other.highInclusive);
+        }
+
+        void intersect(double otherLow, boolean otherLowInclusive, double otherHigh, boolean otherHighInclusive) {
+            if (otherLow > low || (otherLow == low && !otherLowInclusive)) {
+                low = otherLow;
+                lowInclusive = otherLowInclusive;
+            }
+            if (otherHigh < high || (otherHigh == high && !otherHighInclusive)) {
+                high = otherHigh;
+                highInclusive = otherHighInclusive;
+            }
+        }
+
+        boolean isEmpty() {
+            return low > high || (low == high && !(lowInclusive && highInclusive));
+        }
+
+        boolean contains(double x) {
+            return (x > low || (x == low && lowInclusive)) && (x < high || (x == high && highInclusive));
+        }
+    }
+
+    /**
+     * Centered interval tree: each node holds the intervals containing its
+     * center, sorted by lower bound and by upper bound, so a stabbing query
+     * visits one path of nodes plus the intervals it reports.
+     */
+    private static final class IntervalTree {
+        private final double center;
+        private final Interval[] byLow;
+        private final Interval[] byHigh;
+        private final IntervalTree left;
+        private final IntervalTree right;
+
+        private IntervalTree(double center, Interval[] byLow, Interval[] byHigh, IntervalTree left,
+                             IntervalTree right) {
+            this.center = center;
+            this.byLow = byLow;
+            this.byHigh = byHigh;
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Build a tree of non-empty intervals; null if there are none.
+         */
+        static IntervalTree build(List<Interval> intervals) {
+            if (intervals.isEmpty()) {
+                return null;
+            }
+            double[] endpoints = new double[intervals.size() * 2];
+            for (int i = 0; i < intervals.size(); i++) {
+                endpoints[2 * i] = intervals.get(i).low;
+                endpoints[2 * i + 1] = intervals.get(i).high;
+            }
+            Arrays.sort(endpoints);
+            // The median endpoint lies in the closure of its (non-empty) interval,
+            // so every node keeps at least one interval
+            double center = endpoints[endpoints.length / 2];
+            List<Interval> lower = new ArrayList<>();
+            List<Interval> upper = new ArrayList<>();
+            List<Interval> here = new ArrayList<>();
+            for (Interval interval : intervals) {
+                if (interval.high < center) {
+                    lower.add(interval);
+                } else if (interval.low > center) {
+                    upper.add(interval);
+                } else {
+                    here.add(interval);
+                }
+            }
+            Interval[] byLow = here.toArray(new Interval[0]);
+            Arrays.sort(byLow, Comparator.comparingDouble(interval -> interval.low));
+            Interval[] byHigh = here.toArray(new Interval[0]);
+            Arrays.sort(byHigh, Comparator.comparingDouble((Interval interval) -> interval.high).reversed());
+            return new IntervalTree(center, byLow, byHigh, build(lower), build(upper));
+        }
+
+        /**
+         * Set the rule bits of all intervals containing x.
+         */
+        void stab(double x, BitSet hits) {
+            IntervalTree node = this;
+            while (node != null) {
+                if (x < node.center) {
+                    for (Interval interval : node.byLow) {
+                        if (interval.low > x) {
+                            break;
+                        }
+                        if (interval.contains(x)) {
+                            hits.set(interval.rule);
+                        }
+                    }
+                    node = node.left;
+                } else if (x > node.center) {
+                    for (Interval interval : node.byHigh) {
+                        if (interval.high < x) {
+                            break;
+                        }
+                        if (interval.contains(x)) {
+                            hits.set(interval.rule);
+                        }
+                    }
+                    node = node.right;
+                } else {
+                    for (Interval interval : node.byLow) {
+                        if (interval.contains(x)) {
+                            hits.set(interval.rule);
+                        }
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
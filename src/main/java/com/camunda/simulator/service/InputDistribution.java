@@ -0,0 +1,158 @@
+package com.camunda.simulator.service;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Distribution of a simulation input for Monte Carlo runs, e.g.
+ * {@code Normal(27, 4)}, {@code Uniform(0, 50)}, {@code Bernoulli(0.1)} or a
+ * constant. Instances are immutable; randomness comes from the caller's
+ * per-thread {@link SplittableRandom}.
+ */
+public abstract class InputDistribution {
+
+    private static final Pattern SPEC = Pattern.compile("~?\\s*([A-Za-z]+)\\s*\\(([^)]*)\\)");
+
+    /**
+     * Draw a numeric value.
+     */
+    public abstract double sample(SplittableRandom random);
+
+    /**
+     * Draw a boolean value; numeric distributions are true when non-zero.
+     */
+    public boolean sampleBoolean(SplittableRandom random) {
+        return sample(random) != 0.0;
+    }
+
+    /**
+     * Parse a distribution spec: Normal(mean, sd), Uniform(min, max),
+     * Bernoulli(p), Constant(value), or a plain number/true/false.
+     *
+     * @throws IllegalArgumentException if the spec is not recognized or its parameters are invalid
+     */
+    public static InputDistribution parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            throw new IllegalArgumentException("Distribution is empty");
+        }
+        String text = spec.trim();
+        if (text.equalsIgnoreCase("true") || text.equalsIgnoreCase("false")) {
+            return constant(Boolean.parseBoolean(text.toLowerCase(Locale.ROOT)) ? 1.0 : 0.0);
+        }
+        Matcher matcher = SPEC.matcher(text);
+        if (!matcher.matches()) {
+            return constant(parseNumber(text, spec));
+        }
+        String[] parts = matcher.group(2).split(",");
+        double[] params = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            params[i] = parseNumber(parts[i].trim(), spec);
+        }
+        switch (matcher.group(1).toLowerCase(Locale.ROOT)) {
+            case "normal":
+                requireParams(params, 2, spec);
+                if (params[1] < 0) {
+                    throw new IllegalArgumentException("Standard deviation must not be negative: " + spec);
+                }
+                return new Normal(params[0], params[1]);
+            case "uniform":
+                requireParams(params, 2, spec);
+                if (params[1] < params[0]) {
+                    throw new IllegalArgumentException("Uniform max must not be below min: " + spec);
+                }
+                return new Uniform(params[0], params[1]);
+            case "bernoulli":
+                requireParams(params, 1, spec);
+                if (params[0] < 0 || params[0] > 1) {
+                    throw new IllegalArgumentException("Bernoulli probability must be in [0, 1]: " + spec);
+                }
+                return new Bernoulli(params[0]);
+            case "constant":
+                requireParams(params, 1, spec);
+                return constant(params[0]);
+            default:
+                throw new IllegalArgumentException("Unknown distribution '" + matcher.group(1) + "' in: " + spec);
+        }
+    }
+
+    public static InputDistribution constant(double value) {
+        return new Constant(value);
+    }
+
+    private static double parseNumber(String text, String spec) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid distribution: " + spec);
+        }
+    }
+
+    private static void requireParams(double[] params, int count, String spec) {
+        if (params.length != count) {
+            throw new IllegalArgumentException("Expected " + count + " parameter(s) in: " + spec);
+        }
+    }
+
+    static final class Constant extends InputDistribution {
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double sample(SplittableRandom random) {
+            return value;
+        }
+    }
+
+    static final class Normal extends InputDistribution {
+        private final double mean;
+        private final double standardDeviation;
+
+        Normal(double mean, double standardDeviation) {
+            this.mean = mean;
+            this.standardDeviation = standardDeviation;
+        }
+
+        @Override
+        public double sample(SplittableRandom random) {
+            return mean + standardDeviation * random.nextGaussian();
+        }
+    }
+
+    static final class Uniform extends InputDistribution {
+        private final double min;
+        private final double max;
+
+        Uniform(double min, double max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public double sample(SplittableRandom random) {
+            return min + (max - min) * random.nextDouble();
+        }
+    }
+
+    static final class Bernoulli extends InputDistribution {
+        private final double probability;
+
+        Bernoulli(double probability) {
+            this.probability = probability;
+        }
+
+        @Override
+        public double sample(SplittableRandom random) {
+            return sampleBoolean(random) ? 1.0 : 0.0;
+        }
+
+        @Override
+        public boolean sampleBoolean(SplittableRandom random) {
+            return random.nextDouble() < probability;
+        }
+    }
+}
@@ -35,6 +35,17 @@ public class InputValidator {
             return errors;
         }
 
+        return validate(root);
+    }
+
+    /**
+     * Validates one already parsed simulation input, e.g. an element of a batch.
+     *
+     * @param root parsed JSON value
+     * @return list of error messages (empty if valid)
+     */
+    public static List<String> validate(JsonNode root) {
+        List<String> errors = new ArrayList<>();
         if (root == null || !root.isObject()) {
             errors.add("Request body must be a JSON object");
             return errors;
@@ -61,6 +72,20 @@ public class InputValidator {
             }
         }
 
+        // processId and version are optional; a version needs a processId
+        JsonNode processId = root.get("processId");
+        if (processId != null && !processId.isNull() && !processId.isTextual()) {
+            errors.add("processId must be a string");
+        }
+        JsonNode version = root.get("version");
+        if (version != null && !version.isNull()) {
+            if (!version.isIntegralNumber() || !version.canConvertToInt() || version.intValue() < 1) {
+                errors.add("version must be a positive integer");
+            } else if (processId == null || processId.isNull()) {
+                errors.add("version requires a processId");
+            }
+        }
+
         return errors;
     }
 
@@ -0,0 +1,165 @@
+package com.camunda.simulator.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * On-disk persistence of a {@link FileManager} in a data directory. File
+ * contents are appended to a segment file and read back through memory
+ * mapped regions of it, so a stored model is never copied onto the heap.
+ * An index file logs, one line per change, where each content lives and
+ * which name and kind it was deployed under; replaying it on startup
+ * rebuilds the repository without reading any model.
+ *
+ * Contents are written and forced before the index line referring to them,
+ * so a crash leaves at most an unreferenced tail of the segment and a
+ * partial last index line, both ignored on replay. Removed contents are not
+ * reclaimed from the segment.
+ */
+final class ModelStore implements Closeable {
+
+    static final String SEGMENT_FILE = "models.seg";
+    static final String INDEX_FILE = "models.idx";
+
+    /**
+     * Receives the changes of the index in the order they were made.
+     */
+    interface Replay {
+        void blob(String hash, ByteBuffer content);
+
+        void deploy(String kind, String name, String hash);
+
+        void remove(String kind, String name);
+
+        void clear();
+    }
+
+    private final Path directory;
+    private final FileChannel segment;
+    private final FileChannel index;
+
+    ModelStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.segment = FileChannel.open(directory.resolve(SEGMENT_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.index = FileChannel.open(directory.resolve(INDEX_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Replay the complete lines of the index, and cut off a partial last line
+     * so the next change starts a line of its own.
+     */
+    void replay(Replay replay) throws IOException {
+        long segmentSize = segment.size();
+        byte[] log = Files.readAllBytes(directory.resolve(INDEX_FILE));
+        int end = log.length;
+        while (end > 0 && log[end - 1] != '\n') {
+            end--;
+        }
+        if (end < log.length) {
+            index.truncate(end);
+        }
+        if (end == 0) {
+            return;
+        }
+        for (String line : new String(log, 0, end - 1, StandardCharsets.UTF_8).split("\n")) {
+            String[] fields = line.split(" ");
+            switch (fields[0]) {
+                case "blob": {
+                    long offset = Long.parseLong(fields[2]);
+                    long length = Long.parseLong(fields[3]);
+                    if (offset + length <= segmentSize) {
+                        replay.blob(fields[1], segment.map(FileChannel.MapMode.READ_ONLY, offset, length));
+                    }
+                    break;
+                }
+                case "deploy":
+                    replay.deploy(fields[1], decode(fields[3]), fields[2]);
+                    break;
+                case "remove":
+                    replay.remove(fields[1], decode(fields[2]));
+                    break;
+                case "clear":
+                    replay.clear();
+                    break;
+                default:
+                    // Written by a newer version; skip
+            }
+        }
+    }
+
+    /**
+     * Append a content to the segment and return a mapped view of it.
+     */
+    ByteBuffer append(String hash, byte[] content) {
+        try {
+            long offset = segment.size();
+            ByteBuffer source = ByteBuffer.wrap(content);
+            while (source.hasRemaining()) {
+                segment.write(source, offset + source.position());
+            }
+            segment.force(false);
+            log("blob " + hash + " " + offset + " " + content.length);
+            return segment.map(FileChannel.MapMode.READ_ONLY, offset, content.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store model content", e);
+        }
+    }
+
+    void deploy(String kind, String name, String hash) {
+        log("deploy " + kind + " " + hash + " " + encode(name));
+    }
+
+    void remove(String kind, String name) {
+        log("remove " + kind + " " + encode(name));
+    }
+
+    void clear() {
+        log("clear");
+    }
+
+    private void log(String line) {
+        try {
+            long offset = index.size();
+            ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                index.write(bytes, offset + bytes.position());
+            }
+            index.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write model index", e);
+        }
+    }
+
+    /**
+     * Close the segment and index files. Regions mapped before stay readable.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            segment.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    // File names may hold spaces, which separate the fields of a line
+    private static String encode(String name) {
+        return URLEncoder.encode(name, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String name) {
+        return URLDecoder.decode(name, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,266 @@
+package com.camunda.simulator.service;
+
+import com.camunda.simulator.model.SimulationInput;
+import com.camunda.simulator.model.SimulationResult;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs a process many times with inputs drawn from distributions and reports
+ * outcome probabilities and sequence flow frequencies with 95% confidence
+ * intervals.
+ *
+ * The iteration range is split into fork/join tasks; each task draws from its
+ * own SplittableRandom (split from the parent, so a seed reproduces the run)
+ * and counts into a private tally. Tallies are merged as tasks join, so the
+ * hot loop shares no mutable state and takes no locks.
+ */
+public class MonteCarloSimulator {
+
+    /** Upper bound on iterations accepted for one run. */
+    public static final long MAX_ITERATIONS = 10_000_000L;
+
+    /** Iterations run sequentially by one task before splitting stops. */
+    private static final int LEAF_ITERATIONS = 512;
+
+    /** Two-sided 95% normal quantile. */
+    private static final double Z_95 = 1.959963984540054;
+
+    private static final Set<String> INPUT_NAMES = Set.of("manualPriceCost", "dealMarginPercent");
+
+    private final ProcessEngine processEngine;
+    private final ForkJoinPool forkJoinPool;
+
+    public MonteCarloSimulator(ProcessEngine processEngine) {
+        this(processEngine, ForkJoinPool.commonPool());
+    }
+
+    public MonteCarloSimulator(ProcessEngine processEngine, ForkJoinPool forkJoinPool) {
+        this.processEngine = processEngine;
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Run a Monte Carlo simulation.
+     *
+     * @param inputs distribution per input name (manualPriceCost, dealMarginPercent)
+     * @param iterations number of process executions
+     * @param seed seed of the root random generator
+     * @throws IllegalArgumentException if an input is missing or unknown, or iterations is out of range
+     */
+    public MonteCarloResult run(Map<String, InputDistribution> inputs, long iterations, long seed) {
+        if (iterations <= 0 || iterations > MAX_ITERATIONS) {
+            throw new IllegalArgumentException("iterations must be between 1 and " + MAX_ITERATIONS);
+        }
+        for (String name : inputs.keySet()) {
+            if (!INPUT_NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown input: " + name);
+            }
+        }
+        for (String name : INPUT_NAMES) {
+            if (!inputs.containsKey(name)) {
+                throw new IllegalArgumentException("Missing distribution for input: " + name);
+            }
+        }
+
+        // Pin one deployment for the whole run
+        EngineSnapshot snapshot = processEngine.getSnapshot();
+        ExecutionPlan plan = snapshot.getPlan();
+        long start = System.nanoTime();
+        Tally tally = forkJoinPool.invoke(new SimulationTask(snapshot,
+            inputs.get("manualPriceCost"), inputs.get("dealMarginPercent"),
+            0, iterations, new SplittableRandom(seed)));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        List<OutcomeEstimate> outcomes = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : tally.outcomes.entrySet()) {
+            outcomes.add(new OutcomeEstimate(entry.getKey(), entry.getValue()[0], iterations));
+        }
+        outcomes.sort(Comparator.comparingLong(OutcomeEstimate::getCount).reversed());
+
+        List<FlowEstimate> flows = new ArrayList<>();
+        if (plan != null) {
+            for (int flow = 0; flow < plan.getFlowCount(); flow++) {
+                flows.add(new FlowEstimate(plan.getFlowId(flow), plan.getNodeName(plan.getFlowTarget(flow)),
+                    tally.flowCounts[flow], iterations));
+            }
+        }
+        return new MonteCarloResult(plan != null ? plan.getProcessId() : null, iterations, seed,
+            elapsedMillis, outcomes, flows);
+    }
+
+    /**
+     * Per-task counters; merged pairwise when tasks join.
+     */
+    private static final class Tally {
+        final Map<String, long[]> outcomes = new HashMap<>();
+        final long[] flowCounts;
+
+        Tally(int flowCount) {
+            this.flowCounts = new long[flowCount];
+        }
+
+        void countOutcome(String status) {
+            outcomes.computeIfAbsent(status, s -> new long[1])[0]++;
+        }
+
+        Tally merge(Tally other) {
+            for (Map.Entry<String, long[]> entry : other.outcomes.entrySet()) {
+                outcomes.computeIfAbsent(entry.getKey(), s -> new long[1])[0] += entry.getValue()[0];
+            }
+            for (int i = 0; i < flowCounts.length; i++) {
+                flowCounts[i] += other.flowCounts[i];
+            }
+            return this;
+        }
+    }
+
+    @SuppressWarnings("serial") // Fork/join tasks are never serialized
+    private final class SimulationTask extends RecursiveTask<Tally> {
+        private final EngineSnapshot snapshot;
+        private final InputDistribution manualPriceCost;
+        private final InputDistribution dealMarginPercent;
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+
+        SimulationTask(EngineSnapshot snapshot, InputDistribution manualPriceCost, InputDistribution dealMarginPercent,
+                       long from, long to, SplittableRandom random) {
+            this.snapshot = snapshot;
+            this.manualPriceCost = manualPriceCost;
+            this.dealMarginPercent = dealMarginPercent;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from > LEAF_ITERATIONS) {
+                long mid = from + (to - from) / 2;
+                SimulationTask left = new SimulationTask(snapshot, manualPriceCost, dealMarginPercent,
+                    from, mid, random.split());
+                left.fork();
+                Tally right = new SimulationTask(snapshot, manualPriceCost, dealMarginPercent,
+                    mid, to, random).compute();
+                return right.merge(left.join());
+            }
+
+            ExecutionPlan plan = snapshot.getPlan();
+            int flowCount = plan != null ? plan.getFlowCount() : 0;
+            Tally tally = new Tally(flowCount);
+            boolean[] traversedFlows = new boolean[flowCount];
+            for (long i = from; i < to; i++) {
+                SimulationInput input = new SimulationInput(
+                    manualPriceCost.sampleBoolean(random), dealMarginPercent.sample(random));
+                Arrays.fill(traversedFlows, false);
+                SimulationResult result = processEngine.execute(snapshot, input, traversedFlows);
+                for (int flow = 0; flow < flowCount; flow++) {
+                    if (traversedFlows[flow]) {
+                        tally.flowCounts[flow]++;
+                    }
+                }
+                tally.countOutcome(String.valueOf(result.getFinalStatus()));
+            }
+            return tally;
+        }
+    }
+
+    /**
+     * Wilson score interval bounds for count successes out of n trials.
+     */
+    private static double[] wilsonInterval(long count, long n) {
+        double p = (double) count / n;
+        double z2 = Z_95 * Z_95;
+        double denominator = 1.0 + z2 / n;
+        double center = (p + z2 / (2.0 * n)) / denominator;
+        double halfWidth = Z_95 * Math.sqrt(p * (1.0 - p) / n + z2 / (4.0 * n * n)) / denominator;
+        return new double[] { Math.max(0.0, center - halfWidth), Math.min(1.0, center + halfWidth) };
+    }
+
+    /**
+     * Estimated probability of a final status.
+     */
+    public static class OutcomeEstimate {
+        private final String finalStatus;
+        private final long count;
+        private final double probability;
+        private final double lower95;
+        private final double upper95;
+
+        OutcomeEstimate(String finalStatus, long count, long iterations) {
+            this.finalStatus = finalStatus;
+            this.count = count;
+            this.probability = (double) count / iterations;
+            double[] interval = wilsonInterval(count, iterations);
+            this.lower95 = interval[0];
+            this.upper95 = interval[1];
+        }
+
+        public String getFinalStatus() { return finalStatus; }
+        public long getCount() { return count; }
+        public double getProbability() { return probability; }
+        public double getLower95() { return lower95; }
+        public double getUpper95() { return upper95; }
+    }
+
+    /**
+     * Estimated probability that an execution traverses a sequence flow.
+     */
+    public static class FlowEstimate {
+        private final String flowId;
+        private final String targetName;
+        private final long count;
+        private final double frequency;
+        private final double lower95;
+        private final double upper95;
+
+        FlowEstimate(String flowId, String targetName, long count, long iterations) {
+            this.flowId = flowId;
+            this.targetName = targetName;
+            this.count = count;
+            this.frequency = (double) count / iterations;
+            double[] interval = wilsonInterval(count, iterations);
+            this.lower95 = interval[0];
+            this.upper95 = interval[1];
+        }
+
+        public String getFlowId() { return flowId; }
+        public String getTargetName() { return targetName; }
+        public long getCount() { return count; }
+        public double getFrequency() { return frequency; }
+        public double getLower95() { return lower95; }
+        public double getUpper95() { return upper95; }
+    }
+
+    /**
+     * Report of one Monte Carlo run.
+     */
+    public static class MonteCarloResult {
+        private final String processId;
+        private final long iterations;
+        private final long seed;
+        private final long elapsedMillis;
+        private final List<OutcomeEstimate> outcomes;
+        private final List<FlowEstimate> flows;
+
+        public MonteCarloResult(String processId, long iterations, long seed, long elapsedMillis,
+                                List<OutcomeEstimate> outcomes, List<FlowEstimate> flows) {
+            this.processId = processId;
+            this.iterations = iterations;
+            this.seed = seed;
+            this.elapsedMillis = elapsedMillis;
+            this.outcomes = Collections.unmodifiableList(outcomes);
+            this.flows = Collections.unmodifiableList(flows);
+        }
+
+        public String getProcessId() { return processId; }
+        public long getIterations() { return iterations; }
+        public long getSeed() { return seed; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public List<OutcomeEstimate> getOutcomes() { return outcomes; }
+        public List<FlowEstimate> getFlows() { return flows; }
+    }
+}
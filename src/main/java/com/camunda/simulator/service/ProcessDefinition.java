@@ -0,0 +1,50 @@
+package com.camunda.simulator.service;
+
+/**
+ * One version of a deployed process: the compiled plan of a {@code bpmn:process}
+ * as found in a version of an uploaded BPMN file. Versions are numbered per
+ * process id, like Zeebe's: a process gets its next version whenever a file
+ * holding it is deployed with content other than its latest version's.
+ * The plan is compiled when the definition is first run.
+ */
+public final class ProcessDefinition {
+
+    private final String processId;
+    private final int version;
+    private final BpmnResource resource;
+
+    ProcessDefinition(String processId, int version, BpmnResource resource) {
+        this.processId = processId;
+        this.version = version;
+        this.resource = resource;
+    }
+
+    public String getProcessId() {
+        return processId;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Name of the BPMN file the process was deployed in.
+     */
+    public String getResourceName() {
+        return resource.getName();
+    }
+
+    /**
+     * Hash of the BPMN file content the plan was compiled from.
+     */
+    public String getBpmnHash() {
+        return resource.getHash();
+    }
+
+    /**
+     * Compiled plan, compiling the BPMN content on first use; null if it does not compile.
+     */
+    ExecutionPlan getPlan() {
+        return resource.getPlan(processId);
+    }
+}
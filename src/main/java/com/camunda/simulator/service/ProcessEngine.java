@@ -3,153 +3,376 @@ package com.camunda.simulator.service;
 import com.camunda.simulator.model.DMNResult;
 import com.camunda.simulator.model.SimulationInput;
 import com.camunda.simulator.model.SimulationResult;
-import org.camunda.bpm.model.bpmn.Bpmn;
-import org.camunda.bpm.model.bpmn.BpmnModelInstance;
-import org.camunda.bpm.model.bpmn.instance.*;
-import org.camunda.bpm.model.xml.instance.ModelElementInstance;
+import com.camunda.simulator.model.TraceEvent;
 
-import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
  * Simulates process execution by parsing and executing actual BPMN files.
+ *
+ * The compiled BPMN plan and the DMN decisions are published together as an
+ * {@link EngineSnapshot} through an AtomicReference. Each simulation pins one
+ * snapshot for its whole run, so it never sees half of an upload, and no
+ * simulation waits for a file being compiled.
  */
 public class ProcessEngine {
     
+    /** Default number of batch inputs simulated concurrently. */
+    public static final int DEFAULT_BATCH_CHUNK_SIZE = 256;
+    
     private final DMNEvaluator dmnEvaluator;
     private final FileManager fileManager;
-    private BpmnModelInstance bpmnModelInstance;
+    private final ForkJoinPool forkJoinPool;
+    private final SimulationResultCache resultCache;
+    private final AtomicReference<EngineSnapshot> snapshot = new AtomicReference<>(EngineSnapshot.EMPTY);
+    // Each BPMN content deployed, by hash; guarded by this
+    private Map<String, BpmnResource> resources = Map.of();
+    private final AtomicLong compiledBpmnBytes = new AtomicLong();
     
     public ProcessEngine(FileManager fileManager, DMNEvaluator dmnEvaluator) {
+        this(fileManager, dmnEvaluator, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * @param forkJoinPool pool running the concurrent branches of parallel and inclusive splits
+     */
+    public ProcessEngine(FileManager fileManager, DMNEvaluator dmnEvaluator, ForkJoinPool forkJoinPool) {
+        this(fileManager, dmnEvaluator, forkJoinPool, null);
+    }
+    
+    /**
+     * @param resultCache memoizes {@link #execute(SimulationInput)} results; null disables caching
+     */
+    public ProcessEngine(FileManager fileManager, DMNEvaluator dmnEvaluator, ForkJoinPool forkJoinPool,
+                         SimulationResultCache resultCache) {
         this.fileManager = fileManager;
         this.dmnEvaluator = dmnEvaluator;
+        this.forkJoinPool = forkJoinPool;
+        this.resultCache = resultCache;
         loadBpmnFile();
     }
     
     /**
-     * Load the BPMN file from FileManager.
+     * Load the BPMN files from FileManager: compile the default file into the
+     * execution plan, and index every process of every deployed version by
+     * process id. Contents not seen before are only scanned for their process
+     * ids; a non-default version is compiled when it is first run.
      */
-    public void loadBpmnFile() {
-        InputStream bpmnStream = fileManager.getDefaultBpmnFile();
-        if (bpmnStream != null) {
-            try {
-                this.bpmnModelInstance = Bpmn.readModelFromStream(bpmnStream);
-            } catch (Exception e) {
-                System.err.println("Failed to load BPMN file: " + e.getMessage());
-                this.bpmnModelInstance = null;
+    public synchronized void loadBpmnFile() {
+        Map<String, BpmnResource> scanned = new HashMap<>();
+        Map<String, List<ProcessDefinition>> versions = new HashMap<>();
+        long bpmnBytes = 0;
+        for (FileManager.Deployment deployment : fileManager.getBpmnHistory()) {
+            BpmnResource resource = scanned.get(deployment.getHash());
+            if (resource == null) {
+                resource = resources.get(deployment.getHash());
+                if (resource == null) {
+                    resource = new BpmnResource(fileManager, deployment, compiledBpmnBytes);
+                } else if (resource.isCompiled()) {
+                    bpmnBytes += resource.getSize();
+                }
+                scanned.put(deployment.getHash(), resource);
             }
-        } else {
-            this.bpmnModelInstance = null;
+            for (String processId : resource.getProcessIds()) {
+                List<ProcessDefinition> processVersions = versions.computeIfAbsent(processId, id -> new ArrayList<>());
+                ProcessDefinition latest = processVersions.isEmpty() ? null
+                    : processVersions.get(processVersions.size() - 1);
+                // Deploying the content of the latest version again is not a new version
+                if (latest == null || !latest.getBpmnHash().equals(deployment.getHash())) {
+                    processVersions.add(new ProcessDefinition(processId, processVersions.size() + 1, resource));
+                }
+            }
+        }
+        Map<String, ProcessDefinition[]> processes = new HashMap<>();
+        versions.forEach((processId, definitions) ->
+            processes.put(processId, definitions.toArray(new ProcessDefinition[0])));
+        resources = scanned;
+        // Contents compiled from here on add their size themselves
+        compiledBpmnBytes.set(bpmnBytes);
+        
+        FileManager.Deployment deployment = fileManager.getDefaultBpmnDeployment();
+        BpmnResource defaultResource = deployment != null ? scanned.get(deployment.getHash()) : null;
+        ExecutionPlan plan = defaultResource != null ? defaultResource.getFirstPlan() : null;
+        String bpmnHash = deployment != null ? deployment.getHash() : null;
+        // Compiled before publishing, so simulations keep running on the previous plans meanwhile
+        Map<String, ProcessDefinition[]> index = Collections.unmodifiableMap(processes);
+        snapshot.updateAndGet(current -> current.withPlans(plan, bpmnHash, index));
+    }
+    
+    /**
+     * Total size of the distinct BPMN contents compiled into plans, in bytes.
+     */
+    long getCompiledBpmnBytes() {
+        return compiledBpmnBytes.get();
+    }
+    
+    /**
+     * The current deployment: the last compiled BPMN plan and the decisions of
+     * the current DMN file. Pin it once per simulation.
+     */
+    public EngineSnapshot getSnapshot() {
+        EngineSnapshot current = snapshot.get();
+        DMNEvaluator.LoadedDecisions decisions = dmnEvaluator.current();
+        if (current.getDecisions() == decisions) {
+            return current;
         }
+        EngineSnapshot next = current.withDecisions(decisions);
+        // Losing the race to another publish is fine; this simulation still runs on a consistent pair
+        snapshot.compareAndSet(current, next);
+        return next;
     }
     
     /**
-     * Execute the process using the uploaded BPMN file.
+     * Get the compiled execution plan of the loaded BPMN file, or null if none is loaded.
+     */
+    public ExecutionPlan getExecutionPlan() {
+        return snapshot.get().getPlan();
+    }
+    
+    /**
+     * Execute the process using the uploaded BPMN file, or the deployed
+     * process the input names by processId and optional version.
      * Falls back to hardcoded logic if no BPMN file is available.
+     * With a result cache, repeated inputs against unchanged files are served
+     * from the cache.
+     *
+     * @throws NoSuchElementException if the input names a process or version that is not deployed
      */
     public SimulationResult execute(SimulationInput inputs) {
-        if (bpmnModelInstance != null) {
-            return executeBpmnProcess(inputs);
+        EngineSnapshot pinned = resolve(getSnapshot(), inputs);
+        if (resultCache != null) {
+            // Keyed by the hashes of the pinned snapshot, so a result is never filed under another deployment
+            return resultCache.get(pinned.getBpmnHash(), pinned.getDmnHash(), inputs,
+                () -> execute(pinned, inputs, false));
+        }
+        return execute(pinned, inputs, false);
+    }
+    
+    /**
+     * Execute the process, optionally attaching the trace events of this one
+     * execution to the result regardless of the global trace level. Never
+     * served from the result cache.
+     */
+    public SimulationResult execute(SimulationInput inputs, boolean captureTrace) {
+        return execute(resolve(getSnapshot(), inputs), inputs, captureTrace);
+    }
+    
+    /**
+     * The snapshot running the process the input names, or the default plan
+     * if it names none: one map lookup, plus compiling the version's BPMN
+     * content if it has not been run since the engine was built.
+     *
+     * @throws NoSuchElementException if the process or version is not deployed or does not compile
+     */
+    private static EngineSnapshot resolve(EngineSnapshot pinned, SimulationInput inputs) {
+        String processId = inputs.getProcessId();
+        if (processId == null) {
+            return pinned;
+        }
+        ProcessDefinition definition = pinned.getProcess(processId, inputs.getVersion());
+        if (definition == null) {
+            throw new NoSuchElementException(inputs.getVersion() == null
+                ? "Process not deployed: " + processId
+                : "Process not deployed: " + processId + " version " + inputs.getVersion());
+        }
+        if (definition.getPlan() == null) {
+            throw new NoSuchElementException("Process " + processId + " version " + definition.getVersion()
+                + " does not compile");
+        }
+        return pinned.forProcess(definition);
+    }
+    
+    private SimulationResult execute(EngineSnapshot pinned, SimulationInput inputs, boolean captureTrace) {
+        if (pinned.getPlan() != null) {
+            return executeBpmnProcess(pinned, inputs, null, captureTrace);
         } else {
-            return executeDefaultProcess(inputs);
+            return executeDefaultProcess(pinned, inputs);
         }
     }
     
     /**
-     * Execute process from BPMN file.
+     * Execute a batch of simulations on the pool with the default chunk size.
+     *
+     * @see #executeBatch(Iterator, int, BatchConsumer)
      */
-    private SimulationResult executeBpmnProcess(SimulationInput inputs) {
-        List<String> executionPath = new ArrayList<>();
-        Map<String, Object> processVariables = new HashMap<>();
-        
-        // Initialize process variables from inputs
-        processVariables.put("bi_dealMarginPercent", inputs.getDealMarginPercent());
-        processVariables.put("bi_manualPriceCost", inputs.getManualPriceCost());
-        
-        // Find the process definition
-        Collection<org.camunda.bpm.model.bpmn.instance.Process> processes = bpmnModelInstance.getModelElementsByType(org.camunda.bpm.model.bpmn.instance.Process.class);
-        if (processes.isEmpty()) {
-            return executeDefaultProcess(inputs);
+    public void executeBatch(Iterator<BatchInput> inputs, BatchConsumer consumer) {
+        executeBatch(inputs, DEFAULT_BATCH_CHUNK_SIZE, consumer);
+    }
+    
+    /**
+     * Execute a batch of simulations on the pool. Inputs are pulled lazily and at
+     * most chunkSize of them are in flight at once, so memory stays flat however
+     * long the batch is. Outcomes are handed to the consumer on the calling thread
+     * in completion order, not input order, each with the index of its input.
+     * An input naming a process that is not deployed fails on its own; the
+     * batch goes on.
+     *
+     * @param inputs lazily read inputs; only accessed from the calling thread
+     * @param chunkSize maximum number of simulations in flight
+     * @param consumer receives each outcome as soon as it is available
+     * @throws RuntimeException if a simulation fails otherwise; the batch stops at that point
+     */
+    public void executeBatch(Iterator<BatchInput> inputs, int chunkSize, BatchConsumer consumer) {
+        CompletionService<BatchOutcome> completionService = new ExecutorCompletionService<>(forkJoinPool);
+        int inFlight = 0;
+        while (inputs.hasNext()) {
+            BatchInput input = inputs.next();
+            completionService.submit(() -> {
+                try {
+                    return new BatchOutcome(input.index, execute(input.input), null);
+                } catch (NoSuchElementException e) {
+                    return new BatchOutcome(input.index, null, e);
+                }
+            });
+            if (++inFlight >= chunkSize) {
+                takeOutcome(completionService).handTo(consumer);
+                inFlight--;
+            }
+        }
+        for (; inFlight > 0; inFlight--) {
+            takeOutcome(completionService).handTo(consumer);
+        }
+    }
+    
+    private static BatchOutcome takeOutcome(CompletionService<BatchOutcome> completionService) {
+        try {
+            return completionService.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch simulation interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause
+                : new RuntimeException("Batch simulation failed: " + cause.getMessage(), cause);
         }
+    }
+    
+    /**
+     * One input of a batch, with the index the caller reports it by, e.g. its
+     * position in the request.
+     */
+    public static final class BatchInput {
+        private final long index;
+        private final SimulationInput input;
         
-        org.camunda.bpm.model.bpmn.instance.Process process = processes.iterator().next();
+        public BatchInput(long index, SimulationInput input) {
+            this.index = index;
+            this.input = input;
+        }
+    }
+    
+    /**
+     * Receives the outcome of each input of a batch.
+     */
+    public interface BatchConsumer {
+        void accept(long index, SimulationResult result);
+        
+        /**
+         * The input names a process or version that is not deployed, or does
+         * not compile. Rethrows by default, stopping the batch.
+         */
+        default void notDeployed(long index, NoSuchElementException e) {
+            throw e;
+        }
+    }
+    
+    private static final class BatchOutcome {
+        private final long index;
+        private final SimulationResult result;
+        private final NoSuchElementException notDeployed;
+        
+        BatchOutcome(long index, SimulationResult result, NoSuchElementException notDeployed) {
+            this.index = index;
+            this.result = result;
+            this.notDeployed = notDeployed;
+        }
         
-        // Find start event
-        StartEvent startEvent = findStartEvent(process);
-        if (startEvent == null) {
-            return executeDefaultProcess(inputs);
+        void handTo(BatchConsumer consumer) {
+            if (notDeployed != null) {
+                consumer.notDeployed(index, notDeployed);
+            } else {
+                consumer.accept(index, result);
+            }
+        }
+    }
+    
+    /**
+     * Execute against a pinned snapshot and record which sequence flows were
+     * taken. Never served from the result cache.
+     *
+     * @param traversedFlows set to true for every flow taken, indexed by flow; length
+     *        {@code plan.getFlowCount()}, or null if the snapshot has no plan
+     */
+    SimulationResult execute(EngineSnapshot pinned, SimulationInput inputs, boolean[] traversedFlows) {
+        if (pinned.getPlan() == null) {
+            return executeDefaultProcess(pinned, inputs);
+        }
+        return executeBpmnProcess(pinned, inputs, traversedFlows, false);
+    }
+    
+    /**
+     * Execute process from the compiled BPMN execution plan.
+     * A token starts at the start event; plans with concurrency run their
+     * branches as fork/join tasks on the pool.
+     */
+    private SimulationResult executeBpmnProcess(EngineSnapshot pinned, SimulationInput inputs,
+                                                boolean[] traversedFlows, boolean captureTrace) {
+        ExecutionPlan plan = pinned.getPlan();
+        ProcessInstance instance = new ProcessInstance(plan, pinned.getDecisions());
+        instance.trackFlows(traversedFlows);
+        if (captureTrace) {
+            instance.captureTrace();
         }
+        VariableFrame processVariables = instance.getVariables();
         
-        executionPath.add(startEvent.getName() != null ? startEvent.getName() : "Start");
+        // Initialize process variables from inputs
+        processVariables.set(VariableLayout.BI_DEAL_MARGIN_PERCENT, inputs.getDealMarginPercent());
+        processVariables.set(VariableLayout.BI_MANUAL_PRICE_COST, inputs.getManualPriceCost());
         
         // Traverse the process flow
-        FlowNode currentNode = getOutgoingFlowNode(startEvent);
-        DMNResult dmnResult = null;
-        String finalStatus = null;
-        
-        while (currentNode != null) {
-            String nodeName = getNodeName(currentNode);
-            executionPath.add(nodeName);
-            
-            // Handle different node types
-            if (currentNode instanceof ServiceTask) {
-                ServiceTask serviceTask = (ServiceTask) currentNode;
-                handleServiceTask(serviceTask, processVariables);
-                
-                // Check if it's a DMN task
-                if (isDmnTask(serviceTask)) {
-                    dmnResult = evaluateDmnTask(serviceTask, processVariables);
-                    if (dmnResult != null) {
-                        processVariables.put("quoteValidity", dmnResult.getQuoteValidity());
-                    }
-                }
-            } else if (currentNode instanceof BusinessRuleTask) {
-                // Handle BusinessRuleTask (DMN decision tasks)
-                BusinessRuleTask businessRuleTask = (BusinessRuleTask) currentNode;
-                dmnResult = evaluateBusinessRuleTask(businessRuleTask, processVariables);
-                if (dmnResult != null) {
-                    processVariables.put("quoteValidity", dmnResult.getQuoteValidity());
-                }
-            } else if (currentNode instanceof ExclusiveGateway) {
-                ExclusiveGateway gateway = (ExclusiveGateway) currentNode;
-                currentNode = evaluateGateway(gateway, processVariables);
-                if (currentNode == null) {
-                    break;
-                }
-                continue; // Skip adding the next node twice
-            } else if (currentNode instanceof EndEvent) {
-                // Extract final status from process variables
-                finalStatus = (String) processVariables.getOrDefault("cim_Status", "Completed");
-                break;
+        if (plan.isConcurrent()) {
+            TokenTask root = new TokenTask(plan, instance, plan.getStartNode(), null);
+            if (ForkJoinTask.inForkJoinPool()) {
+                root.invoke(); // Already on a pool worker, e.g. inside a batch
+            } else {
+                forkJoinPool.invoke(root);
             }
-            
-            currentNode = getOutgoingFlowNode(currentNode);
+        } else {
+            runToken(plan, instance, plan.getStartNode(), null, false);
+        }
+        
+        List<String> executionPath = instance.getExecutionPath();
+        DMNResult dmnResult = instance.getDmnResult();
+        String finalStatus = null;
+        if (instance.isEndReached()) {
+            // Extract final status from process variables
+            finalStatus = processVariables.isSet(VariableLayout.CIM_STATUS)
+                ? (String) processVariables.get(VariableLayout.CIM_STATUS) : "Completed";
         }
         
         // If no DMN result was found, try to evaluate using DMN file
         if (dmnResult == null) {
             try {
                 // Prepare variables for DMN (use mapped variables if available)
-                Map<String, Object> dmnVars = new HashMap<>();
-                if (processVariables.containsKey("manualPriceCost")) {
-                    dmnVars.put("manualPriceCost", processVariables.get("manualPriceCost"));
-                } else if (processVariables.containsKey("bi_manualPriceCost")) {
-                    dmnVars.put("manualPriceCost", processVariables.get("bi_manualPriceCost"));
-                } else {
+                Map<String, Object> dmnVars = dmnInputs(processVariables);
+                if (!dmnVars.containsKey("manualPriceCost")) {
                     dmnVars.put("manualPriceCost", inputs.getManualPriceCost());
                 }
-                
-                if (processVariables.containsKey("dealMarginPercent")) {
-                    dmnVars.put("dealMarginPercent", processVariables.get("dealMarginPercent"));
-                } else if (processVariables.containsKey("bi_dealMarginPercent")) {
-                    dmnVars.put("dealMarginPercent", processVariables.get("bi_dealMarginPercent"));
-                } else {
+                if (!dmnVars.containsKey("dealMarginPercent")) {
                     dmnVars.put("dealMarginPercent", inputs.getDealMarginPercent());
                 }
                 
-                dmnResult = dmnEvaluator.evaluate(dmnEvaluator.getDecisionKey(), dmnVars);
-                processVariables.put("quoteValidity", dmnResult.getQuoteValidity());
+                dmnResult = evaluateDecision(instance, pinned.getDecisionKey(), dmnVars);
+                setDecisionOutputs(processVariables, dmnResult);
             } catch (Exception e) {
                 System.err.println("Failed to evaluate DMN: " + e.getMessage());
                 // If DMN evaluation fails, we can't proceed - this is a design-time simulator
@@ -161,22 +384,24 @@ public class ProcessEngine {
         // If no final status, determine from quoteValidity
         if (finalStatus == null) {
             finalStatus = dmnResult.getQuoteValidity();
-            processVariables.put("cim_Status", finalStatus);
+            processVariables.set(VariableLayout.CIM_STATUS, finalStatus);
         }
         
-        return new SimulationResult(
+        SimulationResult result = new SimulationResult(
             inputs,
             dmnResult,
             executionPath,
             finalStatus,
-            processVariables
+            processVariables.toMap()
         );
+        result.setTrace(instance.getCapturedTrace());
+        return result;
     }
     
     /**
      * Execute default hardcoded process (fallback).
      */
-    private SimulationResult executeDefaultProcess(SimulationInput inputs) {
+    private SimulationResult executeDefaultProcess(EngineSnapshot pinned, SimulationInput inputs) {
         List<String> executionPath = new ArrayList<>();
         Map<String, Object> processVariables = new HashMap<>();
         
@@ -190,10 +415,11 @@ public class ProcessEngine {
         
         // Step 3: Look-up Results (DMN decision call)
         executionPath.add("Look-up Results");
-        DMNResult dmnResult = dmnEvaluator.evaluateEntryLevelExercise(
-            inputs.getManualPriceCost(),
-            inputs.getDealMarginPercent()
+        Map<String, Object> dmnVariables = Map.of(
+            "manualPriceCost", inputs.getManualPriceCost() != null ? inputs.getManualPriceCost() : false,
+            "dealMarginPercent", inputs.getDealMarginPercent() != null ? inputs.getDealMarginPercent() : 0.0
         );
+        DMNResult dmnResult = dmnEvaluator.evaluate(pinned.getDecisions(), null, dmnVariables);
         processVariables.put("quoteValidity", dmnResult.getQuoteValidity());
         
         // Step 4: Result / Decision Gateway
@@ -224,237 +450,345 @@ public class ProcessEngine {
     }
     
     /**
-     * Find the start event in a process.
+     * Move one token through the plan until it is consumed by a join or an end
+     * event, or splits. On a split the branches are forked and this token waits
+     * for them.
+     *
+     * @param open paired joins the token has yet to reach, innermost first
+     * @param joined whether the token already passed the join at the given node
      */
-    private StartEvent findStartEvent(org.camunda.bpm.model.bpmn.instance.Process process) {
-        Collection<StartEvent> startEvents = bpmnModelInstance.getModelElementsByType(StartEvent.class);
-        // Filter to only start events in this process
-        for (StartEvent startEvent : startEvents) {
-            if (startEvent.getParentElement() == process || 
-                startEvent.getScope() == process) {
-                return startEvent;
+    private void runToken(ExecutionPlan plan, ProcessInstance instance, int node, ProcessInstance.OpenJoin open,
+                          boolean joined) {
+        VariableFrame processVariables = instance.getVariables();
+        while (node >= 0 && !instance.isTerminated()) {
+            if (plan.getIncomingCount(node) > 1 && !joined) {
+                if (!instance.arrive(node)) {
+                    if (open != null && open.getJoin() != node) {
+                        // Merged into the token that continues, which the open join still waits for
+                        instance.leave(open.getJoin());
+                    }
+                    return; // Token consumed by the join
+                }
+                if (open != null && open.getJoin() == node) {
+                    open = open.getOuter();
+                }
+            }
+            joined = false;
+            instance.visit(node);
+            if (instance.traces(Tracer.Level.DEBUG)) {
+                instance.trace(Tracer.Level.DEBUG, TraceEvent.Type.NODE_ENTERED,
+                    plan.getNodeId(node), plan.getNodeName(node));
+            }
+            
+            // Handle different node types
+            int flow;
+            switch (plan.getNodeKind(node)) {
+                case SERVICE_TASK:
+                    handleServiceTask(plan, instance, node);
+                    
+                    // Check if it's a DMN task
+                    if (plan.isDmnTask(node)) {
+                        applyDmnResult(instance, evaluateDmnTask(instance));
+                    }
+                    flow = plan.getNextFlow(node);
+                    break;
+                case BUSINESS_RULE_TASK:
+                    // Handle BusinessRuleTask (DMN decision tasks)
+                    applyDmnResult(instance, evaluateBusinessRuleTask(instance));
+                    flow = plan.getNextFlow(node);
+                    break;
+                case EXCLUSIVE_GATEWAY:
+                    flow = evaluateGateway(plan, instance, node);
+                    break;
+                case END_EVENT:
+                    instance.endAt(node);
+                    endToken(plan, instance, open);
+                    return;
+                default:
+                    flow = plan.getNextFlow(node);
+                    break;
+            }
+            
+            int[] outgoing = plan.getOutgoingFlows(node);
+            if (outgoing.length > 1 && plan.getNodeKind(node) != ExecutionPlan.NodeKind.EXCLUSIVE_GATEWAY) {
+                int[] branches = selectBranches(plan, node, processVariables);
+                if (branches.length == 0) {
+                    endToken(plan, instance, open);
+                    return;
+                }
+                if (plan.getNodeKind(node) == ExecutionPlan.NodeKind.INCLUSIVE_GATEWAY
+                        && plan.getInclusiveJoin(node) >= 0) {
+                    instance.activateTokens(plan.getInclusiveJoin(node), branches.length);
+                    open = new ProcessInstance.OpenJoin(plan.getInclusiveJoin(node), open);
+                } else if (open != null) {
+                    // The branches replace this token among those the open join waits for
+                    instance.activateTokens(open.getJoin(), branches.length - 1);
+                }
+                if (branches.length > 1) {
+                    forkBranches(plan, instance, branches, open);
+                    return;
+                }
+                flow = branches[0];
+            }
+            if (flow < 0) {
+                endToken(plan, instance, open);
+                return;
             }
+            instance.traverse(flow);
+            node = plan.getFlowTarget(flow);
+        }
+    }
+    
+    /**
+     * Run the branches of a split concurrently and wait for all of them.
+     */
+    private void forkBranches(ExecutionPlan plan, ProcessInstance instance, int[] flows,
+                              ProcessInstance.OpenJoin open) {
+        List<TokenTask> branches = new ArrayList<>(flows.length);
+        for (int flow : flows) {
+            instance.traverse(flow);
+            branches.add(new TokenTask(plan, instance, plan.getFlowTarget(flow), open));
         }
-        return startEvents.isEmpty() ? null : startEvents.iterator().next();
+        ForkJoinTask.invokeAll(branches);
     }
     
     /**
-     * Get the outgoing flow node from a flow node.
+     * A token ended without reaching the paired joins it has yet to reach.
+     * The innermost one stops waiting for it; if that completes the join, the
+     * tokens that arrived there continue past it, or, if none did, the join
+     * is abandoned and its own outer join stops waiting for it in turn.
      */
-    private FlowNode getOutgoingFlowNode(FlowNode node) {
-        Collection<SequenceFlow> outgoingFlows = node.getOutgoing();
-        if (outgoingFlows.isEmpty()) {
-            return null;
+    private void endToken(ExecutionPlan plan, ProcessInstance instance, ProcessInstance.OpenJoin open) {
+        for (; open != null && !instance.isTerminated(); open = open.getOuter()) {
+            int arrived = instance.leave(open.getJoin());
+            if (arrived < 0) {
+                return; // The join still waits for other tokens
+            }
+            if (arrived > 0) {
+                runToken(plan, instance, open.getJoin(), open.getOuter(), true);
+                return;
+            }
         }
-        SequenceFlow flow = outgoingFlows.iterator().next();
-        return (FlowNode) flow.getTarget();
     }
     
     /**
-     * Get node name for display.
+     * Flows activated by a splitting node: every outgoing flow of a parallel
+     * gateway, the unconditional and matching flows other than the default of
+     * an inclusive gateway (or else its default flow), and the unconditional or
+     * matching flows of an implicit split on any other node.
      */
-    private String getNodeName(FlowNode node) {
-        if (node.getName() != null && !node.getName().isEmpty()) {
-            return node.getName();
+    private int[] selectBranches(ExecutionPlan plan, int node, VariableFrame variables) {
+        int[] outgoing = plan.getOutgoingFlows(node);
+        int[] branches = new int[outgoing.length];
+        int count = 0;
+        ExecutionPlan.NodeKind kind = plan.getNodeKind(node);
+        for (int flow : outgoing) {
+            FeelExpression predicate = plan.getFlowPredicate(flow);
+            boolean taken;
+            if (kind == ExecutionPlan.NodeKind.PARALLEL_GATEWAY) {
+                taken = true;
+            } else if (kind == ExecutionPlan.NodeKind.INCLUSIVE_GATEWAY) {
+                taken = flow != plan.getDefaultFlow(node) && (predicate == null || predicate.test(variables));
+            } else {
+                taken = predicate == null || predicate.test(variables);
+            }
+            if (taken) {
+                branches[count++] = flow;
+            }
+        }
+        if (count == 0 && kind == ExecutionPlan.NodeKind.INCLUSIVE_GATEWAY && plan.getDefaultFlow(node) >= 0) {
+            branches[count++] = plan.getDefaultFlow(node);
+        }
+        return count == branches.length ? branches : Arrays.copyOf(branches, count);
+    }
+    
+    private void applyDmnResult(ProcessInstance instance, DMNResult dmnResult) {
+        if (dmnResult != null) {
+            instance.setDmnResult(dmnResult);
+            setDecisionOutputs(instance.getVariables(), dmnResult);
         }
-        if (node instanceof StartEvent) return "Start";
-        if (node instanceof EndEvent) return "End";
-        if (node instanceof ServiceTask) return "Service Task";
-        if (node instanceof ExclusiveGateway) return "Gateway";
-        return node.getId();
     }
     
     /**
-     * Check if a service task is a DMN task.
+     * Write the decision outputs to the frame with the types the decision
+     * produced. A single result sets one variable per output; several results
+     * (RULE ORDER, OUTPUT ORDER, COLLECT) set each output to the list of its
+     * values. quoteValidity is always set, from the result summary unless the
+     * decision has such an output.
      */
-    private boolean isDmnTask(ServiceTask task) {
-        String implementation = task.getImplementation();
-        String type = task.getCamundaType();
-        String name = task.getName();
-        // Check if it's a DMN task by type, implementation, or name
-        return "dmn".equals(type) || 
-               (implementation != null && implementation.contains("dmn")) ||
-               (name != null && (name.toLowerCase().contains("dmn") || 
-                                 name.toLowerCase().contains("decision") ||
-                                 name.toLowerCase().contains("look-up")));
+    private static void setDecisionOutputs(VariableFrame variables, DMNResult dmnResult) {
+        variables.set(VariableLayout.QUOTE_VALIDITY, dmnResult.getQuoteValidity());
+        List<Map<String, Object>> results = dmnResult.getResults();
+        if (results.size() == 1) {
+            for (Map.Entry<String, Object> entry : results.get(0).entrySet()) {
+                variables.set(entry.getKey(), entry.getValue());
+            }
+        } else if (results.size() > 1) {
+            Map<String, List<Object>> columns = new LinkedHashMap<>();
+            for (Map<String, Object> result : results) {
+                for (Map.Entry<String, Object> entry : result.entrySet()) {
+                    columns.computeIfAbsent(entry.getKey(), name -> new ArrayList<>()).add(entry.getValue());
+                }
+            }
+            for (Map.Entry<String, List<Object>> column : columns.entrySet()) {
+                variables.set(column.getKey(), column.getValue());
+            }
+        }
+    }
+    
+    /**
+     * One token of a concurrent process instance, run as a fork/join task.
+     */
+    @SuppressWarnings("serial") // Fork/join tasks are never serialized
+    private final class TokenTask extends RecursiveAction {
+        private final ExecutionPlan plan;
+        private final ProcessInstance instance;
+        private final int node;
+        private final ProcessInstance.OpenJoin open;
+        
+        TokenTask(ExecutionPlan plan, ProcessInstance instance, int node, ProcessInstance.OpenJoin open) {
+            this.plan = plan;
+            this.instance = instance;
+            this.node = node;
+            this.open = open;
+        }
+        
+        @Override
+        protected void compute() {
+            runToken(plan, instance, node, open, false);
+        }
     }
     
     /**
      * Handle a service task execution.
      */
-    private void handleServiceTask(ServiceTask task, Map<String, Object> variables) {
-        String taskName = task.getName();
+    private void handleServiceTask(ExecutionPlan plan, ProcessInstance instance, int node) {
+        VariableFrame variables = instance.getVariables();
+        // Data-manipulation tasks: run the instructions compiled from their task headers
+        VariableAssignment[] assignments = plan.getAssignments(node);
+        if (assignments != null) {
+            for (VariableAssignment assignment : assignments) {
+                assignment.apply(variables);
+            }
+            if (instance.traces(Tracer.Level.INFO) && assignments.length > 0) {
+                StringBuilder detail = new StringBuilder();
+                for (VariableAssignment assignment : assignments) {
+                    detail.append(detail.length() > 0 ? ", " : "").append(assignment.getTarget())
+                        .append('=').append(variables.get(assignment.getTarget()));
+                }
+                instance.trace(Tracer.Level.INFO, TraceEvent.Type.VARIABLES_MAPPED, plan.getNodeId(node),
+                    detail.toString());
+            }
+        }
         
         // Handle "Prepare Values for DMN" task - map variables
-        if (taskName != null && taskName.contains("Prepare Values")) {
+        if (plan.isPrepareValuesTask(node)) {
             // Map bi_ variables to regular variables for DMN
             // Based on the BPMN: bi_dealMarginPercent -> dealMarginPercent, bi_manualPriceCost -> manualPriceCost
-            if (variables.containsKey("bi_dealMarginPercent")) {
-                variables.put("dealMarginPercent", variables.get("bi_dealMarginPercent"));
+            variables.copy(VariableLayout.BI_DEAL_MARGIN_PERCENT, VariableLayout.DEAL_MARGIN_PERCENT);
+            variables.copy(VariableLayout.BI_MANUAL_PRICE_COST, VariableLayout.MANUAL_PRICE_COST);
+            if (instance.traces(Tracer.Level.INFO)) {
+                instance.trace(Tracer.Level.INFO, TraceEvent.Type.VARIABLES_MAPPED, plan.getNodeId(node),
+                    "dealMarginPercent=" + variables.get(VariableLayout.DEAL_MARGIN_PERCENT)
+                        + ", manualPriceCost=" + variables.get(VariableLayout.MANUAL_PRICE_COST));
             }
-            if (variables.containsKey("bi_manualPriceCost")) {
-                variables.put("manualPriceCost", variables.get("bi_manualPriceCost"));
-            }
-            System.out.println("Mapped variables for DMN: dealMarginPercent=" + variables.get("dealMarginPercent") + 
-                             ", manualPriceCost=" + variables.get("manualPriceCost"));
         }
         
         // Handle "Set Status" tasks - set cim_Status variable
-        if (taskName != null && taskName.contains("Set Status")) {
-            // Extract status from task name or determine from context
-            if (taskName.contains("3000") || taskName.contains("Valid")) {
-                variables.put("cim_Status", "Valid");
-            } else if (taskName.contains("4000") || taskName.contains("Invalid")) {
-                variables.put("cim_Status", "Invalid");
-            }
+        String status = plan.getStatusValue(node);
+        if (status != null) {
+            variables.set(VariableLayout.CIM_STATUS, status);
         }
     }
     
     /**
      * Evaluate a DMN task.
      */
-    private DMNResult evaluateDmnTask(ServiceTask task, Map<String, Object> variables) {
-        // Ensure variables are mapped correctly for DMN
-        // DMN expects: manualPriceCost, dealMarginPercent (not bi_*)
-        Map<String, Object> dmnVariables = new HashMap<>();
-        if (variables.containsKey("manualPriceCost")) {
-            dmnVariables.put("manualPriceCost", variables.get("manualPriceCost"));
-        } else if (variables.containsKey("bi_manualPriceCost")) {
-            dmnVariables.put("manualPriceCost", variables.get("bi_manualPriceCost"));
-        }
-        
-        if (variables.containsKey("dealMarginPercent")) {
-            dmnVariables.put("dealMarginPercent", variables.get("dealMarginPercent"));
-        } else if (variables.containsKey("bi_dealMarginPercent")) {
-            dmnVariables.put("dealMarginPercent", variables.get("bi_dealMarginPercent"));
-        }
-        
-        System.out.println("Evaluating DMN with variables: " + dmnVariables);
-        
-        return dmnEvaluator.evaluate(dmnEvaluator.getDecisionKey(), dmnVariables);
+    private DMNResult evaluateDmnTask(ProcessInstance instance) {
+        return evaluateDecision(instance, instance.getDecisions().decisionKey, dmnInputs(instance.getVariables()));
     }
     
     /**
      * Evaluate a BusinessRuleTask (DMN decision task).
      */
-    private DMNResult evaluateBusinessRuleTask(BusinessRuleTask task, Map<String, Object> variables) {
+    private DMNResult evaluateBusinessRuleTask(ProcessInstance instance) {
         // Extract decision ID from zeebe:calledDecision extension element
         // For now, use the default decision key from the uploaded DMN file
-        String decisionKey = dmnEvaluator.getDecisionKey();
+        String decisionKey = instance.getDecisions().decisionKey;
         
-        // Ensure variables are mapped correctly for DMN
-        // DMN expects: manualPriceCost, dealMarginPercent (not bi_*)
-        Map<String, Object> dmnVariables = new HashMap<>();
-        if (variables.containsKey("manualPriceCost")) {
-            dmnVariables.put("manualPriceCost", variables.get("manualPriceCost"));
-        } else if (variables.containsKey("bi_manualPriceCost")) {
-            dmnVariables.put("manualPriceCost", variables.get("bi_manualPriceCost"));
+        return evaluateDecision(instance, decisionKey, dmnInputs(instance.getVariables()));
+    }
+    
+    /**
+     * Decision inputs taken from the frame. DMN expects manualPriceCost and
+     * dealMarginPercent (not bi_*); the mapped variables win over the bi_ inputs.
+     */
+    private static Map<String, Object> dmnInputs(VariableFrame variables) {
+        Map<String, Object> dmnVariables = new HashMap<>(4);
+        if (variables.isSet(VariableLayout.MANUAL_PRICE_COST)) {
+            dmnVariables.put("manualPriceCost", variables.get(VariableLayout.MANUAL_PRICE_COST));
+        } else if (variables.isSet(VariableLayout.BI_MANUAL_PRICE_COST)) {
+            dmnVariables.put("manualPriceCost", variables.get(VariableLayout.BI_MANUAL_PRICE_COST));
         }
         
-        if (variables.containsKey("dealMarginPercent")) {
-            dmnVariables.put("dealMarginPercent", variables.get("dealMarginPercent"));
-        } else if (variables.containsKey("bi_dealMarginPercent")) {
-            dmnVariables.put("dealMarginPercent", variables.get("bi_dealMarginPercent"));
+        if (variables.isSet(VariableLayout.DEAL_MARGIN_PERCENT)) {
+            dmnVariables.put("dealMarginPercent", variables.get(VariableLayout.DEAL_MARGIN_PERCENT));
+        } else if (variables.isSet(VariableLayout.BI_DEAL_MARGIN_PERCENT)) {
+            dmnVariables.put("dealMarginPercent", variables.get(VariableLayout.BI_DEAL_MARGIN_PERCENT));
         }
-        
-        System.out.println("Evaluating DMN with variables: " + dmnVariables);
-        
-        return dmnEvaluator.evaluate(decisionKey, dmnVariables);
+        return dmnVariables;
     }
     
     /**
-     * Evaluate a gateway and return the next flow node.
+     * Evaluate a decision, tracing its inputs and result.
      */
-    private FlowNode evaluateGateway(ExclusiveGateway gateway, Map<String, Object> variables) {
-        Collection<SequenceFlow> outgoingFlows = gateway.getOutgoing();
-        SequenceFlow defaultFlow = null;
-        
-        // First, identify the default flow and collect all conditional flows
-        List<SequenceFlow> conditionalFlows = new ArrayList<>();
-        for (SequenceFlow flow : outgoingFlows) {
-            String conditionExpression = flow.getConditionExpression() != null ? 
-                flow.getConditionExpression().getTextContent() : null;
-            
-            if (conditionExpression == null || conditionExpression.isEmpty()) {
-                // This is the default flow (no condition)
-                defaultFlow = flow;
-            } else {
-                // This is a conditional flow
-                conditionalFlows.add(flow);
-            }
-        }
-        
-        // First, check all conditional flows
-        for (SequenceFlow flow : conditionalFlows) {
-            String conditionExpression = flow.getConditionExpression().getTextContent();
-            
-            // Evaluate condition
-            if (evaluateCondition(conditionExpression, variables)) {
-                System.out.println("Gateway condition matched: " + conditionExpression + " -> " + getNodeName((FlowNode) flow.getTarget()));
-                return (FlowNode) flow.getTarget();
-            }
+    private DMNResult evaluateDecision(ProcessInstance instance, String decisionKey, Map<String, Object> dmnVariables) {
+        if (instance.traces(Tracer.Level.INFO)) {
+            instance.trace(Tracer.Level.INFO, TraceEvent.Type.DMN_EVALUATION, decisionKey, dmnVariables.toString());
         }
-        
-        // If no condition matched, use the default flow
-        if (defaultFlow != null) {
-            System.out.println("Using default flow -> " + getNodeName((FlowNode) defaultFlow.getTarget()));
-            return (FlowNode) defaultFlow.getTarget();
+        DMNResult result = dmnEvaluator.evaluate(instance.getDecisions(), decisionKey, dmnVariables);
+        if (instance.traces(Tracer.Level.INFO)) {
+            instance.trace(Tracer.Level.INFO, TraceEvent.Type.DMN_RESULT, decisionKey, result.getQuoteValidity());
         }
-        
-        // Fallback: return first flow if no default is specified
-        return outgoingFlows.isEmpty() ? null : (FlowNode) outgoingFlows.iterator().next().getTarget();
+        return result;
     }
     
     /**
-     * Evaluate a condition expression (simplified implementation).
+     * Evaluate a gateway and return the flow to take (-1 if there is none).
      */
-    private boolean evaluateCondition(String expression, Map<String, Object> variables) {
-        if (expression == null || expression.trim().isEmpty()) {
-            return false; // Empty conditions are handled as default flows
+    private int evaluateGateway(ExecutionPlan plan, ProcessInstance instance, int gateway) {
+        VariableFrame variables = instance.getVariables();
+        // First, check all conditional flows
+        for (int flow : plan.getConditionalFlows(gateway)) {
+            // Evaluate the condition compiled at model load
+            if (plan.getFlowPredicate(flow).test(variables)) {
+                if (instance.traces(Tracer.Level.INFO)) {
+                    instance.trace(Tracer.Level.INFO, TraceEvent.Type.GATEWAY_CONDITION_MATCHED, plan.getFlowId(flow),
+                        plan.getFlowCondition(flow) + " -> " + plan.getNodeName(plan.getFlowTarget(flow)));
+                }
+                return flow;
+            }
         }
         
-        // Remove leading = if present (Zeebe/Camunda format: =expression)
-        String cleanExpression = expression.trim();
-        if (cleanExpression.startsWith("=")) {
-            cleanExpression = cleanExpression.substring(1).trim();
+        // If no condition matched, use the default flow
+        int defaultFlow = plan.getDefaultFlow(gateway);
+        if (defaultFlow >= 0) {
+            if (instance.traces(Tracer.Level.INFO)) {
+                instance.trace(Tracer.Level.INFO, TraceEvent.Type.GATEWAY_DEFAULT_FLOW, plan.getFlowId(defaultFlow),
+                    "-> " + plan.getNodeName(plan.getFlowTarget(defaultFlow)));
+            }
+            return defaultFlow;
         }
         
-        System.out.println("Evaluating condition: " + cleanExpression);
-        
-        // Check for common patterns like: quoteValidity = "Invalid" or quoteValidity == "Invalid"
-        if (cleanExpression.contains("quoteValidity")) {
-            String quoteValidity = (String) variables.get("quoteValidity");
-            System.out.println("  quoteValidity value: " + quoteValidity);
-            
-            // Handle both = and == operators
-            if (cleanExpression.contains("= \"Invalid\"") || cleanExpression.contains("== \"Invalid\"")) {
-                boolean result = "Invalid".equals(quoteValidity);
-                System.out.println("  Condition result: " + result);
-                return result;
-            }
-            if (cleanExpression.contains("= \"Valid\"") || cleanExpression.contains("== \"Valid\"")) {
-                boolean result = "Valid".equals(quoteValidity);
-                System.out.println("  Condition result: " + result);
-                return result;
-            }
-            
-            // Handle without quotes: quoteValidity = Invalid
-            if (cleanExpression.contains("= Invalid") || cleanExpression.contains("== Invalid")) {
-                boolean result = "Invalid".equals(quoteValidity);
-                System.out.println("  Condition result: " + result);
-                return result;
-            }
-            if (cleanExpression.contains("= Valid") || cleanExpression.contains("== Valid")) {
-                boolean result = "Valid".equals(quoteValidity);
-                System.out.println("  Condition result: " + result);
-                return result;
+        // A flow without a condition that is not the default is always taken
+        for (int flow : plan.getOutgoingFlows(gateway)) {
+            if (plan.getFlowPredicate(flow) == null) {
+                return flow;
             }
         }
         
-        // Try to evaluate as a simple expression
-        // For now, return false if we can't evaluate
-        System.out.println("  Could not evaluate condition, returning false");
-        return false;
+        // Fallback: return first flow if no default is specified
+        return plan.getNextFlow(gateway);
     }
 }
 
@@ -0,0 +1,209 @@
+package com.camunda.simulator.service;
+
+import com.camunda.simulator.model.DMNResult;
+import com.camunda.simulator.model.TraceEvent;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Runtime state of one simulated process instance, shared by all of its tokens.
+ * For concurrent plans the variable frame and execution path are synchronized
+ * and joins are synchronized with lock-free per-node counters; sequential
+ * plans use an unsynchronized frame, a plain list and no counters.
+ */
+final class ProcessInstance {
+
+    private final ExecutionPlan plan;
+    // Decisions of the snapshot the instance runs on
+    private final DMNEvaluator.LoadedDecisions decisions;
+    private final VariableFrame variables;
+    private final List<String> executionPath;
+    private final AtomicIntegerArray joinArrivals;
+    private final AtomicIntegerArray inclusiveTokens;
+    private final AtomicIntegerArray inclusiveArrivals;
+    private boolean[] traversedFlows;
+    private List<TraceEvent> capturedTrace;
+    private volatile DMNResult dmnResult;
+    private volatile boolean endReached;
+    private volatile boolean terminated;
+
+    ProcessInstance(ExecutionPlan plan, DMNEvaluator.LoadedDecisions decisions) {
+        this.plan = plan;
+        this.decisions = decisions;
+        this.variables = VariableFrame.forPlan(plan);
+        if (plan.isConcurrent()) {
+            this.executionPath = Collections.synchronizedList(new ArrayList<>());
+            this.joinArrivals = new AtomicIntegerArray(plan.getNodeCount());
+            this.inclusiveTokens = new AtomicIntegerArray(plan.getNodeCount());
+            this.inclusiveArrivals = new AtomicIntegerArray(plan.getNodeCount());
+        } else {
+            this.executionPath = new ArrayList<>();
+            this.joinArrivals = null;
+            this.inclusiveTokens = null;
+            this.inclusiveArrivals = null;
+        }
+    }
+
+    DMNEvaluator.LoadedDecisions getDecisions() {
+        return decisions;
+    }
+
+    VariableFrame getVariables() {
+        return variables;
+    }
+
+    List<String> getExecutionPath() {
+        return executionPath;
+    }
+
+    void visit(int node) {
+        executionPath.add(plan.getNodeName(node));
+    }
+
+    /**
+     * Record the sequence flows taken by this instance into the given array,
+     * indexed by flow. Distinct tokens only ever write true, so concurrent
+     * branches need no synchronization.
+     */
+    void trackFlows(boolean[] traversedFlows) {
+        this.traversedFlows = traversedFlows;
+    }
+
+    void traverse(int flow) {
+        if (traversedFlows != null) {
+            traversedFlows[flow] = true;
+        }
+    }
+
+    /**
+     * Also collect this instance's trace events, whatever the global trace level.
+     */
+    void captureTrace() {
+        this.capturedTrace = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    List<TraceEvent> getCapturedTrace() {
+        return capturedTrace;
+    }
+
+    /**
+     * Whether events of the given level are wanted; check before building event details.
+     */
+    boolean traces(Tracer.Level level) {
+        return capturedTrace != null || Tracer.isEnabled(level);
+    }
+
+    void trace(Tracer.Level level, TraceEvent.Type type, String subject, String detail) {
+        TraceEvent event = Tracer.event(type, subject, detail);
+        if (Tracer.isEnabled(level)) {
+            Tracer.record(event);
+        }
+        if (capturedTrace != null) {
+            capturedTrace.add(event);
+        }
+    }
+
+    /**
+     * Register a token arriving at a converging gateway.
+     *
+     * @return true if this token completes the join and continues, false if it is consumed
+     */
+    boolean arrive(int node) {
+        if (joinArrivals == null) {
+            // Sequential plan: a single token, nothing to wait for
+            return true;
+        }
+        switch (plan.getNodeKind(node)) {
+            case PARALLEL_GATEWAY: {
+                int required = plan.getIncomingCount(node);
+                return required <= 1 || joinArrivals.incrementAndGet(node) % required == 0;
+            }
+            case INCLUSIVE_GATEWAY: {
+                if (!plan.isPairedJoin(node)) {
+                    return true;
+                }
+                inclusiveArrivals.incrementAndGet(node);
+                return completeInclusiveJoin(node) >= 0;
+            }
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * A token the paired join waits for ended, or merged into another one,
+     * without reaching it.
+     *
+     * @return the number of tokens that arrived at the join if this completes
+     *         it, or -1 if it still waits for others
+     */
+    int leave(int join) {
+        return completeInclusiveJoin(join);
+    }
+
+    private int completeInclusiveJoin(int join) {
+        if (inclusiveTokens.decrementAndGet(join) != 0) {
+            return -1;
+        }
+        // Every other token arrived or left already, so the count is final
+        return inclusiveArrivals.getAndSet(join, 0);
+    }
+
+    /**
+     * Record tokens a paired join is to wait for, arriving or leaving, before
+     * they start: the branches activated by its inclusive split, or the extra
+     * branches of a split nested inside it.
+     */
+    void activateTokens(int join, int tokens) {
+        inclusiveTokens.addAndGet(join, tokens);
+    }
+
+    DMNResult getDmnResult() {
+        return dmnResult;
+    }
+
+    void setDmnResult(DMNResult dmnResult) {
+        this.dmnResult = dmnResult;
+    }
+
+    /**
+     * A token reached an end event; a terminate end event stops all other tokens.
+     */
+    void endAt(int node) {
+        endReached = true;
+        if (plan.isTerminateEvent(node)) {
+            terminated = true;
+        }
+    }
+
+    boolean isEndReached() {
+        return endReached;
+    }
+
+    boolean isTerminated() {
+        return terminated;
+    }
+
+    /**
+     * A paired join a token has yet to reach, and the ones after it: one per
+     * inclusive split the token was activated by, innermost first.
+     */
+    static final class OpenJoin {
+        private final int join;
+        private final OpenJoin outer;
+
+        OpenJoin(int join, OpenJoin outer) {
+            this.join = join;
+            this.outer = outer;
+        }
+
+        int getJoin() {
+            return join;
+        }
+
+        OpenJoin getOuter() {
+            return outer;
+        }
+    }
+}
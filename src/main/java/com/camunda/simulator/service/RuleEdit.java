@@ -0,0 +1,77 @@
+package com.camunda.simulator.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A rule added to, changed in or deleted from a decision table by
+ * {@link DMNEvaluator}, with what is needed to tell which earlier
+ * evaluations it can change.
+ */
+public final class RuleEdit {
+
+    public enum Type { ADDED, UPDATED, DELETED }
+
+    private final Type type;
+    private final String decisionKey;
+    private final String ruleId;
+    private final boolean firstHitPolicy;
+    // Rule ids of the table after the edit
+    private final List<String> ruleOrder;
+    // Hash of the DMN content the edit was applied to
+    private final String previousDmnHash;
+
+    RuleEdit(Type type, String decisionKey, String ruleId, boolean firstHitPolicy, List<String> ruleOrder,
+             String previousDmnHash) {
+        this.type = type;
+        this.decisionKey = decisionKey;
+        this.ruleId = ruleId;
+        this.firstHitPolicy = firstHitPolicy;
+        this.ruleOrder = ruleOrder;
+        this.previousDmnHash = previousDmnHash;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getDecisionKey() {
+        return decisionKey;
+    }
+
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    /**
+     * Hash of the DMN file content before the edit. Only evaluations of that
+     * content can be judged by {@link #affects(Map)}.
+     */
+    public String getPreviousDmnHash() {
+        return previousDmnHash;
+    }
+
+    /**
+     * Whether an evaluation with these matched rules (decision key to rule
+     * ids, see {@link com.camunda.simulator.model.DMNResult#getMatchedRules()})
+     * can turn out differently after the edit: it matched the rule, or, unless
+     * the rule was deleted, it evaluated the table and the rule could now
+     * match before (FIRST) or besides (other hit policies) what it matched.
+     */
+    public boolean affects(Map<String, List<String>> matchedRules) {
+        List<String> matched = matchedRules.get(decisionKey);
+        if (matched == null) {
+            return false;
+        }
+        if (matched.contains(ruleId)) {
+            return true;
+        }
+        if (type == Type.DELETED) {
+            return false;
+        }
+        if (!firstHitPolicy || matched.isEmpty()) {
+            return true;
+        }
+        return ruleOrder.indexOf(matched.get(0)) > ruleOrder.indexOf(ruleId);
+    }
+}
@@ -0,0 +1,19 @@
+package com.camunda.simulator.service;
+
+/**
+ * Finds the matching rule of a decision table. Implemented by the hidden
+ * classes {@link DecisionTableClassGenerator} generates per table.
+ */
+interface RuleMatcher {
+
+    /** Returned for a UNIQUE table when more than one rule matches. */
+    int CONFLICT = -2;
+
+    /**
+     * Index of the first matching rule, -1 if no rule matches, or CONFLICT.
+     *
+     * @param numbers column values as numbers; NaN where the value is not a number
+     * @param values  column values
+     */
+    int match(double[] numbers, Object[] values);
+}
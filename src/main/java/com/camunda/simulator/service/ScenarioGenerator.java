@@ -0,0 +1,390 @@
+package com.camunda.simulator.service;
+
+import com.camunda.simulator.model.SimulationInput;
+import com.camunda.simulator.model.SimulationResult;
+import com.camunda.simulator.model.TestScenario;
+import org.camunda.bpm.model.dmn.DmnModelInstance;
+import org.camunda.bpm.model.dmn.HitPolicy;
+import org.camunda.bpm.model.dmn.instance.Decision;
+import org.camunda.bpm.model.dmn.instance.DecisionTable;
+import org.camunda.bpm.model.dmn.instance.Input;
+import org.camunda.bpm.model.dmn.instance.InputEntry;
+import org.camunda.bpm.model.dmn.instance.Rule;
+
+import java.util.*;
+
+/**
+ * Generates a small set of test scenarios that together hit every rule of the
+ * loaded decision table and traverse every sequence flow of the loaded process.
+ *
+ * Boundary points come from the numeric literals in the DMN unary tests and
+ * the compiled gateway conditions. Candidate values around them are grouped
+ * into equivalence classes (values on which every test agrees), one
+ * representative per class is executed, and a greedy set cover picks the
+ * scenarios. The number of executions grows with the number of partitions,
+ * not with the input range.
+ */
+public class ScenarioGenerator {
+
+    /** Offsets tried around each boundary; earlier ones are preferred as class representatives. */
+    private static final double[] BOUNDARY_OFFSETS = { 0.0, -0.01, 0.01, -1.0, 1.0 };
+
+    /** Upper bound on executed input combinations. */
+    private static final int MAX_COMBINATIONS = 10_000;
+
+    /** Process variables written from inputs carry this prefix (bi_dealMarginPercent). */
+    private static final String INPUT_PREFIX = "bi_";
+
+    private static final String[] FIELDS = { "manualPriceCost", "dealMarginPercent" };
+    private static final boolean[] BOOLEAN_FIELDS = { true, false };
+
+    private final ProcessEngine processEngine;
+
+    public ScenarioGenerator(ProcessEngine processEngine) {
+        this.processEngine = processEngine;
+    }
+
+    /**
+     * Generate scenarios for the currently loaded BPMN and DMN files.
+     * Expected results and paths are those observed when generating, so the
+     * scenarios serve as a minimal regression suite for later model changes.
+     */
+    public GenerationResult generate() {
+        // One deployment for the table, the plan and every candidate run
+        EngineSnapshot snapshot = processEngine.getSnapshot();
+        ExecutionPlan plan = snapshot.getPlan();
+        CompiledTable table = compileTable(snapshot.getDecisions().modelInstance, snapshot.getDecisionKey());
+        int ruleCount = table != null ? table.ruleIds.length : 0;
+        int flowCount = plan != null ? plan.getFlowCount() : 0;
+
+        // Equivalence classes per input field
+        List<List<Object>> representatives = new ArrayList<>();
+        for (int field = 0; field < FIELDS.length; field++) {
+            representatives.add(partition(field, table, plan));
+        }
+
+        // Execute every combination of class representatives
+        List<Candidate> candidates = new ArrayList<>();
+        int[] choice = new int[FIELDS.length];
+        boolean[] traversedFlows = new boolean[flowCount];
+        do {
+            Object[] values = new Object[FIELDS.length];
+            for (int field = 0; field < FIELDS.length; field++) {
+                values[field] = representatives.get(field).get(choice[field]);
+            }
+            candidates.add(execute(values, snapshot, table, ruleCount, traversedFlows));
+        } while (nextCombination(choice, representatives) && candidates.size() < MAX_COMBINATIONS);
+
+        // Greedy set cover over rules and flows
+        BitSet uncovered = new BitSet();
+        for (Candidate candidate : candidates) {
+            uncovered.or(candidate.covered);
+        }
+        BitSet reachable = (BitSet) uncovered.clone();
+        List<TestScenario> scenarios = new ArrayList<>();
+        while (!uncovered.isEmpty()) {
+            Candidate best = null;
+            int bestGain = 0;
+            for (Candidate candidate : candidates) {
+                BitSet gain = (BitSet) candidate.covered.clone();
+                gain.and(uncovered);
+                if (gain.cardinality() > bestGain) {
+                    best = candidate;
+                    bestGain = gain.cardinality();
+                }
+            }
+            uncovered.andNot(best.covered);
+            scenarios.add(toScenario(scenarios.size() + 1, best, table, plan, ruleCount));
+        }
+
+        List<String> uncoveredRules = new ArrayList<>();
+        for (int rule = 0; rule < ruleCount; rule++) {
+            if (!reachable.get(rule)) {
+                uncoveredRules.add(table.ruleIds[rule]);
+            }
+        }
+        List<String> uncoveredFlows = new ArrayList<>();
+        for (int flow = 0; flow < flowCount; flow++) {
+            if (!reachable.get(ruleCount + flow)) {
+                uncoveredFlows.add(plan.getFlowId(flow));
+            }
+        }
+        return new GenerationResult(scenarios, candidates.size(), uncoveredRules, uncoveredFlows);
+    }
+
+    /**
+     * Candidate values of one input field, reduced to one representative per
+     * equivalence class of the tests that read the field.
+     */
+    private static List<Object> partition(int field, CompiledTable table, ExecutionPlan plan) {
+        String name = FIELDS[field];
+        List<FeelExpression> expressions = new ArrayList<>();
+        List<Integer> columns = new ArrayList<>();
+        if (table != null) {
+            for (int column = 0; column < table.inputExpressions.length; column++) {
+                if (table.inputExpressions[column] != null && readsField(table.inputExpressions[column], name)) {
+                    columns.add(column);
+                    for (FeelExpression[] rule : table.tests) {
+                        expressions.add(rule[column]);
+                    }
+                }
+            }
+        }
+        List<FeelExpression> conditions = new ArrayList<>();
+        if (plan != null) {
+            for (int flow = 0; flow < plan.getFlowCount(); flow++) {
+                FeelExpression predicate = plan.getFlowPredicate(flow);
+                if (predicate != null && readsField(predicate, name)) {
+                    conditions.add(predicate);
+                    expressions.add(predicate);
+                }
+            }
+        }
+
+        List<Object> values = new ArrayList<>();
+        if (BOOLEAN_FIELDS[field]) {
+            values.add(Boolean.FALSE);
+            values.add(Boolean.TRUE);
+        } else {
+            TreeSet<Double> boundaries = new TreeSet<>();
+            for (FeelExpression expression : expressions) {
+                expression.accept(node -> {
+                    if (node instanceof FeelExpression.Literal
+                        && ((FeelExpression.Literal) node).getValue() instanceof Double) {
+                        boundaries.add((Double) ((FeelExpression.Literal) node).getValue());
+                    }
+                });
+            }
+            if (boundaries.isEmpty()) {
+                boundaries.add(0.0);
+            }
+            for (double offset : BOUNDARY_OFFSETS) {
+                for (double boundary : boundaries) {
+                    values.add(boundary + offset);
+                }
+            }
+            Double previous = null;
+            for (double boundary : boundaries) {
+                if (previous != null) {
+                    values.add((previous + boundary) / 2.0);
+                }
+                previous = boundary;
+            }
+        }
+
+        // Signature: the result of every test that reads this field
+        Map<List<Object>, Object> classes = new LinkedHashMap<>();
+        Map<String, Object> variables = new HashMap<>();
+        for (Object value : values) {
+            variables.put(name, value);
+            variables.put(INPUT_PREFIX + name, value);
+            List<Object> signature = new ArrayList<>();
+            for (int column : columns) {
+                Map<String, Object> input = Collections.singletonMap(FeelParser.INPUT_VARIABLE,
+                    table.inputExpressions[column].evaluate(variables));
+                for (FeelExpression[] rule : table.tests) {
+                    signature.add(rule[column].evaluate(input));
+                }
+            }
+            for (FeelExpression condition : conditions) {
+                signature.add(condition.evaluate(variables));
+            }
+            classes.putIfAbsent(signature, value);
+        }
+        return new ArrayList<>(classes.values());
+    }
+
+    private Candidate execute(Object[] values, EngineSnapshot snapshot, CompiledTable table, int ruleCount,
+                              boolean[] traversedFlows) {
+        SimulationInput input = new SimulationInput((Boolean) values[0], (Double) values[1]);
+        BitSet covered = new BitSet();
+        Arrays.fill(traversedFlows, false);
+        SimulationResult result = processEngine.execute(snapshot, input, traversedFlows);
+        for (int flow = 0; flow < traversedFlows.length; flow++) {
+            if (traversedFlows[flow]) {
+                covered.set(ruleCount + flow);
+            }
+        }
+        if (table != null) {
+            Map<String, Object> variables = new HashMap<>();
+            for (int field = 0; field < FIELDS.length; field++) {
+                variables.put(FIELDS[field], FeelExpression.normalize(values[field]));
+            }
+            table.matchRules(variables, covered);
+        }
+        return new Candidate(input, result, covered);
+    }
+
+    private static TestScenario toScenario(int number, Candidate candidate, CompiledTable table,
+                                           ExecutionPlan plan, int ruleCount) {
+        List<String> rules = new ArrayList<>();
+        List<String> flows = new ArrayList<>();
+        for (int item = candidate.covered.nextSetBit(0); item >= 0; item = candidate.covered.nextSetBit(item + 1)) {
+            if (item < ruleCount) {
+                rules.add(table.ruleIds[item]);
+            } else {
+                flows.add(plan.getFlowId(item - ruleCount));
+            }
+        }
+        SimulationInput input = candidate.input;
+        String name = "Generated " + number + " - manualPriceCost=" + input.getManualPriceCost()
+            + ", dealMarginPercent=" + input.getDealMarginPercent();
+        String description = "Covers rules " + (rules.isEmpty() ? "none" : String.join(", ", rules))
+            + "; flows " + (flows.isEmpty() ? "none" : String.join(", ", flows));
+        return new TestScenario(name, description, input, candidate.result.getFinalStatus(),
+            candidate.result.getExecutionPath());
+    }
+
+    private static boolean readsField(FeelExpression expression, String field) {
+        boolean[] found = new boolean[1];
+        expression.accept(node -> {
+            if (node instanceof FeelExpression.Variable) {
+                String name = ((FeelExpression.Variable) node).getName();
+                found[0] |= name.equals(field) || name.equals(INPUT_PREFIX + field);
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Advance an odometer over the representatives of every field.
+     */
+    private static boolean nextCombination(int[] choice, List<List<Object>> representatives) {
+        for (int field = choice.length - 1; field >= 0; field--) {
+            if (++choice[field] < representatives.get(field).size()) {
+                return true;
+            }
+            choice[field] = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Compile the decision table of the given decision: input expressions and
+     * unary tests. Entries outside the supported FEEL subset match any input.
+     */
+    private static CompiledTable compileTable(DmnModelInstance model, String decisionKey) {
+        if (model == null) {
+            return null;
+        }
+        DecisionTable decisionTable = null;
+        for (Decision decision : model.getModelElementsByType(Decision.class)) {
+            if ((decisionKey == null || decisionKey.equals(decision.getId()))
+                && decision.getExpression() instanceof DecisionTable) {
+                decisionTable = (DecisionTable) decision.getExpression();
+                break;
+            }
+        }
+        if (decisionTable == null) {
+            return null;
+        }
+
+        List<Input> inputs = new ArrayList<>(decisionTable.getInputs());
+        FeelExpression[] inputExpressions = new FeelExpression[inputs.size()];
+        for (int column = 0; column < inputs.size(); column++) {
+            String text = inputs.get(column).getInputExpression().getTextContent();
+            try {
+                inputExpressions[column] = FeelParser.parse(text);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Scenario generation ignores input expression " + text + ": " + e.getMessage());
+            }
+        }
+        List<Rule> rules = new ArrayList<>(decisionTable.getRules());
+        String[] ruleIds = new String[rules.size()];
+        FeelExpression[][] tests = new FeelExpression[rules.size()][];
+        for (int rule = 0; rule < rules.size(); rule++) {
+            ruleIds[rule] = rules.get(rule).getId();
+            List<InputEntry> entries = new ArrayList<>(rules.get(rule).getInputEntries());
+            tests[rule] = new FeelExpression[inputs.size()];
+            for (int column = 0; column < inputs.size(); column++) {
+                String text = column < entries.size() ? entries.get(column).getTextContent() : null;
+                try {
+                    tests[rule][column] = FeelParser.parseUnaryTests(text);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Scenario generation ignores input entry " + text + ": " + e.getMessage());
+                    tests[rule][column] = FeelParser.parseUnaryTests(null);
+                }
+            }
+        }
+        boolean firstHit = decisionTable.getHitPolicy() == HitPolicy.FIRST
+            || decisionTable.getHitPolicy() == HitPolicy.UNIQUE
+            || decisionTable.getHitPolicy() == HitPolicy.ANY;
+        return new CompiledTable(inputExpressions, ruleIds, tests, firstHit);
+    }
+
+    private static final class CompiledTable {
+        final FeelExpression[] inputExpressions;
+        final String[] ruleIds;
+        final FeelExpression[][] tests;
+        final boolean firstHit;
+
+        CompiledTable(FeelExpression[] inputExpressions, String[] ruleIds, FeelExpression[][] tests,
+                      boolean firstHit) {
+            this.inputExpressions = inputExpressions;
+            this.ruleIds = ruleIds;
+            this.tests = tests;
+            this.firstHit = firstHit;
+        }
+
+        /**
+         * Set the bits of the rules hit for these variables: the first matching
+         * rule for single-hit policies, every matching rule otherwise.
+         */
+        void matchRules(Map<String, Object> variables, BitSet hits) {
+            Object[] columnValues = new Object[inputExpressions.length];
+            for (int column = 0; column < columnValues.length; column++) {
+                columnValues[column] = inputExpressions[column] != null
+                    ? inputExpressions[column].evaluate(variables) : null;
+            }
+            for (int rule = 0; rule < tests.length; rule++) {
+                boolean matches = true;
+                for (int column = 0; column < columnValues.length && matches; column++) {
+                    matches = tests[rule][column].test(
+                        Collections.singletonMap(FeelParser.INPUT_VARIABLE, columnValues[column]));
+                }
+                if (matches) {
+                    hits.set(rule);
+                    if (firstHit) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Candidate {
+        final SimulationInput input;
+        final SimulationResult result;
+        final BitSet covered;
+
+        Candidate(SimulationInput input, SimulationResult result, BitSet covered) {
+            this.input = input;
+            this.result = result;
+            this.covered = covered;
+        }
+    }
+
+    /**
+     * Generated scenarios plus the rules and flows no input combination reaches
+     * (e.g. rules shadowed by earlier rules under the FIRST hit policy).
+     */
+    public static class GenerationResult {
+        private final List<TestScenario> scenarios;
+        private final int executions;
+        private final List<String> unreachableRules;
+        private final List<String> unreachableFlows;
+
+        public GenerationResult(List<TestScenario> scenarios, int executions,
+                                List<String> unreachableRules, List<String> unreachableFlows) {
+            this.scenarios = Collections.unmodifiableList(scenarios);
+            this.executions = executions;
+            this.unreachableRules = Collections.unmodifiableList(unreachableRules);
+            this.unreachableFlows = Collections.unmodifiableList(unreachableFlows);
+        }
+
+        public List<TestScenario> getScenarios() { return scenarios; }
+        public int getExecutions() { return executions; }
+        public List<String> getUnreachableRules() { return unreachableRules; }
+        public List<String> getUnreachableFlows() { return unreachableFlows; }
+    }
+}
@@ -0,0 +1,234 @@
+package com.camunda.simulator.service;
+
+import com.camunda.simulator.model.SimulationInput;
+import com.camunda.simulator.model.SimulationResult;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, concurrent cache of simulation results keyed by the BPMN and DMN
+ * content hashes, the process run and the canonicalized inputs.
+ *
+ * Lookups are a ConcurrentHashMap get. Eviction follows the CLOCK policy:
+ * entries are queued in insertion order and a hit only sets a flag, so entries
+ * hit since their last pass get a second chance instead of being evicted.
+ * The cache is bounded both by entry count and by an estimated weight in bytes.
+ *
+ * Cached results are shared between callers and must be treated as read-only.
+ */
+public class SimulationResultCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final long DEFAULT_MAX_WEIGHT = 16L * 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicLong weight = new AtomicLong();
+    // Bumped by invalidate(); results computed before that are not stored
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SimulationResultCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * @param maxEntries maximum number of cached results
+     * @param maxWeight maximum total estimated size of cached results, in bytes
+     */
+    public SimulationResultCache(int maxEntries, long maxWeight) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache bounds must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Return the cached result for these models and inputs, or compute and
+     * cache it. Concurrent misses on the same key may both compute.
+     */
+    public SimulationResult get(String bpmnHash, String dmnHash, SimulationInput input,
+                                Supplier<SimulationResult> compute) {
+        Key key = new Key(bpmnHash, dmnHash, input);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.result;
+        }
+        misses.increment();
+        long startGeneration = generation.get();
+        SimulationResult result = compute.get();
+        put(key, result, startGeneration);
+        return result;
+    }
+
+    private void put(Key key, SimulationResult result, long startGeneration) {
+        Entry entry = new Entry(key, result, weigh(result));
+        if (entry.weight > maxWeight || entries.putIfAbsent(key, entry) != null) {
+            return;
+        }
+        clock.add(entry);
+        weight.addAndGet(entry.weight);
+        if (generation.get() != startGeneration) {
+            // Models changed while computing; the result may be stale
+            remove(entry);
+            return;
+        }
+        evictOverflow();
+    }
+
+    private void evictOverflow() {
+        while (entries.size() > maxEntries || weight.get() > maxWeight) {
+            Entry candidate = clock.poll();
+            if (candidate == null) {
+                return;
+            }
+            if (candidate.referenced && entries.get(candidate.key) == candidate) {
+                candidate.referenced = false;
+                clock.add(candidate);
+            } else if (remove(candidate)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private boolean remove(Entry entry) {
+        if (entries.remove(entry.key, entry)) {
+            weight.addAndGet(-entry.weight);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drop all cached results; called whenever a BPMN or DMN file is uploaded.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        // Drain the clock before the map: a concurrent put then leaves at worst
+        // a stale clock node, never a cached entry that eviction cannot reach
+        Entry entry;
+        while ((entry = clock.poll()) != null) {
+            remove(entry);
+        }
+        for (Entry remaining : entries.values()) {
+            remove(remaining);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(entries.size(), weight.get(), hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * Rough retained size of a result: the fixed objects plus path entries and variables.
+     */
+    private static long weigh(SimulationResult result) {
+        long weight = 256;
+        if (result.getExecutionPath() != null) {
+            weight += 16L * result.getExecutionPath().size();
+        }
+        if (result.getProcessVariables() != null) {
+            weight += 64L * result.getProcessVariables().size();
+        }
+        return weight;
+    }
+
+    private static final class Entry {
+        final Key key;
+        final SimulationResult result;
+        final long weight;
+        volatile boolean referenced;
+
+        Entry(Key key, SimulationResult result, long weight) {
+            this.key = key;
+            this.result = result;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Models plus canonical inputs: -0.0 is folded into 0.0 and all NaNs are equal.
+     */
+    private static final class Key {
+        private final String bpmnHash;
+        // One BPMN content may hold several processes
+        private final String processId;
+        private final String dmnHash;
+        private final Boolean manualPriceCost;
+        private final long dealMarginBits;
+        private final boolean dealMarginSet;
+
+        Key(String bpmnHash, String dmnHash, SimulationInput input) {
+            this.bpmnHash = bpmnHash;
+            this.processId = input.getProcessId();
+            this.dmnHash = dmnHash;
+            this.manualPriceCost = input.getManualPriceCost();
+            Double margin = input.getDealMarginPercent();
+            this.dealMarginSet = margin != null;
+            this.dealMarginBits = margin != null ? Double.doubleToLongBits(margin + 0.0) : 0L;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return dealMarginBits == other.dealMarginBits && dealMarginSet == other.dealMarginSet
+                && Objects.equals(manualPriceCost, other.manualPriceCost)
+                && Objects.equals(bpmnHash, other.bpmnHash) && Objects.equals(processId, other.processId)
+                && Objects.equals(dmnHash, other.dmnHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bpmnHash, processId, dmnHash, manualPriceCost, dealMarginBits, dealMarginSet);
+        }
+    }
+
+    /**
+     * Point-in-time cache counters.
+     */
+    public static class Stats {
+        private final int entries;
+        private final long weight;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        Stats(int entries, long weight, long hits, long misses, long evictions) {
+            this.entries = entries;
+            this.weight = weight;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        public int getEntries() { return entries; }
+        public long getWeight() { return weight; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.camunda.simulator.service;
+
+import com.camunda.simulator.model.TraceEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide execution tracing into per-thread ring buffers.
+ *
+ * Call sites guard event construction with {@link #isEnabled(Level)}, a single
+ * volatile read, so tracing costs nothing beyond that check when it is off
+ * (the default). Enabled events go to a fixed-size ring owned by the recording
+ * thread; no lock or shared write is involved. {@link #snapshot()} merges the
+ * rings on demand.
+ *
+ * The initial level can be set with the system property simulator.trace.level
+ * (OFF, INFO, DEBUG).
+ */
+public final class Tracer {
+
+    /** Trace verbosity; each level includes the ones before it. */
+    public enum Level { OFF, INFO, DEBUG }
+
+    /** Events kept per thread; older events are overwritten. */
+    public static final int RING_SIZE = 1024;
+
+    private static volatile int level = initialLevel().ordinal();
+
+    private static final Set<Ring> RINGS = ConcurrentHashMap.newKeySet();
+    private static final ThreadLocal<Ring> RING = ThreadLocal.withInitial(() -> {
+        RINGS.removeIf(ring -> !ring.owner.isAlive());
+        Ring ring = new Ring(Thread.currentThread());
+        RINGS.add(ring);
+        return ring;
+    });
+
+    private Tracer() {
+    }
+
+    /**
+     * Whether events of this level are recorded.
+     */
+    public static boolean isEnabled(Level eventLevel) {
+        return eventLevel.ordinal() <= level && eventLevel != Level.OFF;
+    }
+
+    public static Level getLevel() {
+        return Level.values()[level];
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel.ordinal();
+    }
+
+    /**
+     * Record an event into the current thread's ring. Callers check
+     * {@link #isEnabled(Level)} first so that disabled events are never built.
+     */
+    public static void record(TraceEvent event) {
+        RING.get().add(event);
+    }
+
+    /**
+     * Build an event stamped with the current time and thread.
+     */
+    public static TraceEvent event(TraceEvent.Type type, String subject, String detail) {
+        return new TraceEvent(System.nanoTime(), Thread.currentThread().getName(), type, subject, detail);
+    }
+
+    /**
+     * Events currently held by all rings, oldest first. Rings are read while
+     * their owners may still write, so the very latest events can be missing.
+     */
+    public static List<TraceEvent> snapshot() {
+        List<TraceEvent> events = new ArrayList<>();
+        for (Ring ring : RINGS) {
+            ring.copyTo(events);
+        }
+        events.sort(Comparator.comparingLong(TraceEvent::getTimeNanos));
+        return events;
+    }
+
+    /**
+     * Drop all recorded events.
+     */
+    public static void clear() {
+        for (Ring ring : RINGS) {
+            ring.clear();
+        }
+        RINGS.removeIf(ring -> !ring.owner.isAlive());
+    }
+
+    private static Level initialLevel() {
+        String configured = System.getProperty("simulator.trace.level");
+        if (configured == null) {
+            return Level.OFF;
+        }
+        try {
+            return Level.valueOf(configured.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown simulator.trace.level " + configured + ", tracing is off");
+            return Level.OFF;
+        }
+    }
+
+    /**
+     * Single-writer ring buffer. The volatile count publishes each slot write
+     * to readers; events are immutable, so a reader never sees a partial one.
+     */
+    private static final class Ring {
+        private final Thread owner;
+        private final TraceEvent[] events = new TraceEvent[RING_SIZE];
+        private volatile long count;
+
+        Ring(Thread owner) {
+            this.owner = owner;
+        }
+
+        void add(TraceEvent event) {
+            long next = count;
+            events[(int) (next % RING_SIZE)] = event;
+            count = next + 1;
+        }
+
+        void copyTo(List<TraceEvent> target) {
+            long end = count;
+            for (long i = Math.max(0, end - RING_SIZE); i < end; i++) {
+                TraceEvent event = events[(int) (i % RING_SIZE)];
+                if (event != null) {
+                    target.add(event);
+                }
+            }
+        }
+
+        void clear() {
+            Arrays.fill(events, null);
+        }
+    }
+}
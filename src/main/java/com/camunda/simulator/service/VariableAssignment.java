@@ -0,0 +1,52 @@
+package com.camunda.simulator.service;
+
+/**
+ * One compiled data-manipulation instruction: evaluate an expression and store
+ * the result in a frame slot. An expression that is just another variable is
+ * compiled to a slot copy, so it neither evaluates nor boxes; copying an unset
+ * variable leaves the target untouched.
+ */
+final class VariableAssignment {
+
+    private final String target;
+    private final String expressionText;
+    private final FeelExpression expression;
+    private int targetSlot = -1;
+    private int sourceSlot = -1;
+
+    VariableAssignment(String target, String expressionText, FeelExpression expression) {
+        this.target = target;
+        this.expressionText = expressionText;
+        this.expression = expression;
+    }
+
+    String getTarget() {
+        return target;
+    }
+
+    String getExpressionText() {
+        return expressionText;
+    }
+
+    FeelExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Bind the target slot, after the expression's variables have been bound.
+     */
+    void bind(VariableLayout layout) {
+        this.targetSlot = layout.slotOf(target);
+        if (expression instanceof FeelExpression.Variable && !((FeelExpression.Variable) expression).isNested()) {
+            this.sourceSlot = ((FeelExpression.Variable) expression).getSlot();
+        }
+    }
+
+    void apply(VariableFrame frame) {
+        if (sourceSlot >= 0) {
+            frame.copy(sourceSlot, targetSlot);
+        } else {
+            frame.set(targetSlot, expression.evaluate(frame));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.camunda.simulator.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process variables of one running instance, stored by slot of a
+ * {@link VariableLayout}. Doubles and booleans live in primitive arrays, so
+ * setting and testing them neither boxes nor hashes. Names outside the layout
+ * go to an overflow map. A Map view is only built for the result, by
+ * {@link #toMap()}.
+ */
+class VariableFrame implements FeelExpression.Scope {
+
+    private static final byte UNSET = 0;
+    private static final byte NUMBER = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte OBJECT = 3;
+
+    private final VariableLayout layout;
+    private final byte[] types;
+    private final double[] numbers;
+    private final boolean[] booleans;
+    private final Object[] objects;
+    private Map<String, Object> overflow;
+
+    VariableFrame(VariableLayout layout) {
+        this.layout = layout;
+        int size = layout.size();
+        this.types = new byte[size];
+        this.numbers = new double[size];
+        this.booleans = new boolean[size];
+        this.objects = new Object[size];
+    }
+
+    /**
+     * A frame for the given plan; frames of concurrent plans are synchronized,
+     * since sibling branches share them.
+     */
+    static VariableFrame forPlan(ExecutionPlan plan) {
+        return plan.isConcurrent()
+            ? new SynchronizedVariableFrame(plan.getVariableLayout())
+            : new VariableFrame(plan.getVariableLayout());
+    }
+
+    void setNumber(int slot, double value) {
+        types[slot] = NUMBER;
+        numbers[slot] = value;
+        objects[slot] = null;
+    }
+
+    void setBoolean(int slot, boolean value) {
+        types[slot] = BOOLEAN;
+        booleans[slot] = value;
+        objects[slot] = null;
+    }
+
+    /**
+     * Set a slot from a boxed value; Double and Boolean values are stored unboxed.
+     */
+    void set(int slot, Object value) {
+        if (value instanceof Double) {
+            setNumber(slot, (Double) value);
+        } else if (value instanceof Boolean) {
+            setBoolean(slot, (Boolean) value);
+        } else {
+            types[slot] = OBJECT;
+            objects[slot] = value;
+        }
+    }
+
+    void set(String name, Object value) {
+        int slot = layout.slotOf(name);
+        if (slot >= 0) {
+            set(slot, value);
+        } else {
+            if (overflow == null) {
+                overflow = new HashMap<>();
+            }
+            overflow.put(name, value);
+        }
+    }
+
+    /**
+     * Copy a slot's value, if set, without boxing it.
+     */
+    void copy(int from, int to) {
+        if (types[from] != UNSET) {
+            types[to] = types[from];
+            numbers[to] = numbers[from];
+            booleans[to] = booleans[from];
+            objects[to] = objects[from];
+        }
+    }
+
+    boolean isSet(int slot) {
+        return types[slot] != UNSET;
+    }
+
+    /**
+     * Boxed value of a slot; null if unset.
+     */
+    Object get(int slot) {
+        switch (types[slot]) {
+            case NUMBER: return numbers[slot];
+            case BOOLEAN: return booleans[slot];
+            default: return objects[slot];
+        }
+    }
+
+    Object get(String name) {
+        int slot = layout.slotOf(name);
+        if (slot >= 0) {
+            return get(slot);
+        }
+        return overflow != null ? overflow.get(name) : null;
+    }
+
+    @Override
+    public Object resolve(FeelExpression.Variable variable) {
+        int slot = variable.getSlot();
+        Object root = slot >= 0 ? get(slot) : get(variable.getRootName());
+        return variable.select(root);
+    }
+
+    @Override
+    public Boolean compareNumber(FeelExpression.Variable variable, FeelExpression.Comparison.Operator operator,
+                                 double constant) {
+        int slot = variable.getSlot();
+        if (slot < 0) {
+            return FeelExpression.Scope.super.compareNumber(variable, operator, constant);
+        }
+        // Boolean.valueOf returns the cached constants
+        return types[slot] == NUMBER ? Boolean.valueOf(FeelExpression.compareNumbers(operator, numbers[slot], constant))
+            : null;
+    }
+
+    /**
+     * All set variables as a new map.
+     */
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        for (int slot = 0; slot < types.length; slot++) {
+            if (types[slot] != UNSET) {
+                map.put(layout.getName(slot), get(slot));
+            }
+        }
+        if (overflow != null) {
+            map.putAll(overflow);
+        }
+        return map;
+    }
+
+    /**
+     * Frame shared by concurrent tokens; every access holds the frame's lock.
+     */
+    private static final class SynchronizedVariableFrame extends VariableFrame {
+
+        SynchronizedVariableFrame(VariableLayout layout) {
+            super(layout);
+        }
+
+        @Override
+        synchronized void setNumber(int slot, double value) {
+            super.setNumber(slot, value);
+        }
+
+        @Override
+        synchronized void setBoolean(int slot, boolean value) {
+            super.setBoolean(slot, value);
+        }
+
+        @Override
+        synchronized void set(int slot, Object value) {
+            super.set(slot, value);
+        }
+
+        @Override
+        synchronized void set(String name, Object value) {
+            super.set(name, value);
+        }
+
+        @Override
+        synchronized void copy(int from, int to) {
+            super.copy(from, to);
+        }
+
+        @Override
+        synchronized boolean isSet(int slot) {
+            return super.isSet(slot);
+        }
+
+        @Override
+        synchronized Object get(int slot) {
+            return super.get(slot);
+        }
+
+        @Override
+        synchronized Object get(String name) {
+            return super.get(name);
+        }
+
+        @Override
+        public synchronized Object resolve(FeelExpression.Variable variable) {
+            return super.resolve(variable);
+        }
+
+        @Override
+        public synchronized Boolean compareNumber(FeelExpression.Variable variable,
+                                                  FeelExpression.Comparison.Operator operator, double constant) {
+            return super.compareNumber(variable, operator, constant);
+        }
+
+        @Override
+        synchronized Map<String, Object> toMap() {
+            return super.toMap();
+        }
+    }
+}
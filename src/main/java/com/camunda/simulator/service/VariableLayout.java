@@ -0,0 +1,63 @@
+package com.camunda.simulator.service;
+
+import java.util.*;
+
+/**
+ * Assignment of process variable names to frame slots, fixed when a plan is
+ * compiled. The variables the engine itself reads and writes always occupy
+ * the first slots, so engine code addresses them by constant; variables
+ * referenced by gateway conditions follow.
+ */
+final class VariableLayout {
+
+    static final int BI_DEAL_MARGIN_PERCENT = 0;
+    static final int BI_MANUAL_PRICE_COST = 1;
+    static final int DEAL_MARGIN_PERCENT = 2;
+    static final int MANUAL_PRICE_COST = 3;
+    static final int QUOTE_VALIDITY = 4;
+    static final int CIM_STATUS = 5;
+
+    private static final String[] ENGINE_VARIABLES = {
+        "bi_dealMarginPercent", "bi_manualPriceCost", "dealMarginPercent", "manualPriceCost",
+        "quoteValidity", "cim_Status"
+    };
+
+    private final String[] names;
+    private final Map<String, Integer> slots;
+
+    /**
+     * @param referencedNames further variable names; duplicates and engine variables are ignored
+     */
+    VariableLayout(Collection<String> referencedNames) {
+        Map<String, Integer> slots = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (String name : ENGINE_VARIABLES) {
+            slots.put(name, names.size());
+            names.add(name);
+        }
+        for (String name : referencedNames) {
+            if (!slots.containsKey(name)) {
+                slots.put(name, names.size());
+                names.add(name);
+            }
+        }
+        this.names = names.toArray(new String[0]);
+        this.slots = slots;
+    }
+
+    /**
+     * Slot of a variable, or -1 if the name has none.
+     */
+    int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    String getName(int slot) {
+        return names[slot];
+    }
+
+    int size() {
+        return names.length;
+    }
+}
@@ -0,0 +1,78 @@
+package com.camunda.simulator.service;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The compiled engine of one workspace: DMN evaluator, process engine and
+ * the services and caches built on them, all over the workspace's
+ * {@link FileManager}. Built from the stored files, so it can be dropped
+ * at any time and built again.
+ */
+public final class WorkspaceEngine {
+
+    // Parsed models and engine structures per byte of model XML; an estimate
+    static final int PARSED_BYTES_PER_MODEL_BYTE = 16;
+    // Fixed cost of an engine without models: engines, pools of generated classes, metrics
+    static final long BASE_WEIGHT = 256L * 1024;
+
+    private final FileManager fileManager;
+    private final DMNEvaluator dmnEvaluator;
+    private final ProcessEngine processEngine;
+    private final SimulationResultCache resultCache;
+    private final long resultCacheWeight;
+    private final MonteCarloSimulator monteCarloSimulator;
+    private final BpmnValidationRunner validationRunner;
+
+    /**
+     * @param requiredDecisionPool pool evaluating independent required decisions, or null
+     * @param differentialSampleRate see {@link DMNEvaluator#setDifferentialTesting(int)}
+     * @param resultCacheWeight maximum estimated weight of the result cache, in bytes
+     */
+    WorkspaceEngine(FileManager fileManager, ForkJoinPool requiredDecisionPool, int differentialSampleRate,
+                    long resultCacheWeight) {
+        this.fileManager = fileManager;
+        this.dmnEvaluator = new DMNEvaluator(fileManager, requiredDecisionPool);
+        this.dmnEvaluator.setDifferentialTesting(differentialSampleRate);
+        this.resultCache = new SimulationResultCache(SimulationResultCache.DEFAULT_MAX_ENTRIES, resultCacheWeight);
+        this.resultCacheWeight = resultCacheWeight;
+        this.processEngine = new ProcessEngine(fileManager, dmnEvaluator, ForkJoinPool.commonPool(), resultCache);
+        this.monteCarloSimulator = new MonteCarloSimulator(processEngine);
+        // Keeps the last run of each scenario, so a rule edit re-runs only the scenarios it can change
+        this.validationRunner = new BpmnValidationRunner(processEngine);
+    }
+
+    public FileManager getFileManager() {
+        return fileManager;
+    }
+
+    public DMNEvaluator getDmnEvaluator() {
+        return dmnEvaluator;
+    }
+
+    public ProcessEngine getProcessEngine() {
+        return processEngine;
+    }
+
+    public SimulationResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public MonteCarloSimulator getMonteCarloSimulator() {
+        return monteCarloSimulator;
+    }
+
+    public BpmnValidationRunner getValidationRunner() {
+        return validationRunner;
+    }
+
+    /**
+     * Estimated memory held by the engine, in bytes: the compiled BPMN
+     * contents and the parsed default DMN file plus the bound of the result
+     * cache. Follows uploads.
+     */
+    public long getWeight() {
+        FileManager.Deployment dmn = fileManager.getDefaultDmnDeployment();
+        long modelBytes = processEngine.getCompiledBpmnBytes() + (dmn != null ? dmn.getSize() : 0);
+        return BASE_WEIGHT + PARSED_BYTES_PER_MODEL_BYTE * modelBytes + resultCacheWeight;
+    }
+}
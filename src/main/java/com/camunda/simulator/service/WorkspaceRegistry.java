@@ -0,0 +1,286 @@
+package com.camunda.simulator.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Workspaces by name, each with its own model repository and compiled
+ * engine. A workspace is created by the first file stored in it, and its
+ * repository then lives as long as the registry; compiled engines are
+ * held in an LRU bounded by their estimated total weight, and one evicted
+ * is compiled again from the stored files on its next use.
+ *
+ * With a data directory, the default workspace keeps its files in the
+ * directory itself and workspace NAME in workspaces/NAME below it.
+ */
+public final class WorkspaceRegistry implements Closeable {
+
+    public static final String DEFAULT_WORKSPACE = "default";
+    public static final long DEFAULT_MAX_WEIGHT = 256L * 1024 * 1024;
+    public static final long DEFAULT_RESULT_CACHE_WEIGHT = 4L * 1024 * 1024;
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String WORKSPACES_DIRECTORY = "workspaces";
+
+    private final Path dataDirectory;
+    private final long maxWeight;
+    private final long resultCacheWeight;
+    private final ForkJoinPool requiredDecisionPool;
+    private final int differentialSampleRate;
+    private final Map<String, Workspace> workspaces = new ConcurrentHashMap<>();
+    // Workspaces with a compiled engine and its weight, least recently used first; guarded by itself
+    private final LinkedHashMap<Workspace, Long> compiled = new LinkedHashMap<>(16, 0.75f, true);
+    private long compiledWeight;
+    private final LongAdder compilations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param dataDirectory directory persisting the files of all workspaces, or null to keep them in memory
+     * @param maxWeight maximum total estimated weight of compiled engines, in bytes
+     */
+    public WorkspaceRegistry(Path dataDirectory, long maxWeight) {
+        this(dataDirectory, maxWeight, DEFAULT_RESULT_CACHE_WEIGHT, null, 0);
+    }
+
+    /**
+     * @param resultCacheWeight maximum estimated weight of the result cache of each engine, in bytes
+     * @param requiredDecisionPool see {@link DMNEvaluator#DMNEvaluator(FileManager, ForkJoinPool)}
+     * @param differentialSampleRate see {@link DMNEvaluator#setDifferentialTesting(int)}
+     */
+    public WorkspaceRegistry(Path dataDirectory, long maxWeight, long resultCacheWeight,
+                             ForkJoinPool requiredDecisionPool, int differentialSampleRate) {
+        if (maxWeight <= 0 || resultCacheWeight <= 0) {
+            throw new IllegalArgumentException("Workspace bounds must be positive");
+        }
+        this.dataDirectory = dataDirectory;
+        this.maxWeight = maxWeight;
+        this.resultCacheWeight = resultCacheWeight;
+        this.requiredDecisionPool = requiredDecisionPool;
+        this.differentialSampleRate = differentialSampleRate;
+    }
+
+    public static boolean isValidName(String name) {
+        return name != null && NAME.matcher(name).matches();
+    }
+
+    /**
+     * Compiled engine of an existing workspace, compiling it if it is not held.
+     * The default workspace always exists.
+     *
+     * @throws IllegalArgumentException if the name is not 1 to 64 letters, digits, '-' or '_'
+     * @throws NoSuchElementException if no file was ever stored in the workspace
+     * @throws IOException if the workspace's data directory cannot be opened
+     */
+    public WorkspaceEngine engine(String name) throws IOException {
+        return engine(name, false);
+    }
+
+    /**
+     * Compiled engine of a workspace, creating the workspace if it does not
+     * exist. For storing files only, so other requests cannot create workspaces.
+     *
+     * @throws IllegalArgumentException if the name is not 1 to 64 letters, digits, '-' or '_'
+     * @throws IOException if the workspace's data directory cannot be opened
+     */
+    public WorkspaceEngine createEngine(String name) throws IOException {
+        return engine(name, true);
+    }
+
+    private WorkspaceEngine engine(String name, boolean create) throws IOException {
+        Workspace workspace = workspace(name, create);
+        WorkspaceEngine engine = workspace.engine();
+        touch(workspace, engine);
+        return engine;
+    }
+
+    private Workspace workspace(String name, boolean create) throws IOException {
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Invalid workspace name: " + name);
+        }
+        Workspace open = workspaces.get(name);
+        if (open != null) {
+            return open;
+        }
+        if (!create && !isStored(name)) {
+            throw new NoSuchElementException("Workspace not found: " + name);
+        }
+        try {
+            return workspaces.computeIfAbsent(name, key -> {
+                try {
+                    return new Workspace(openFileManager(key));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Whether a workspace that is not open exists: the default one, or one
+     * persisted in the data directory.
+     */
+    private boolean isStored(String name) {
+        return DEFAULT_WORKSPACE.equals(name)
+            || dataDirectory != null && Files.isDirectory(workspaceDirectory(name));
+    }
+
+    private Path workspaceDirectory(String name) {
+        return dataDirectory.resolve(WORKSPACES_DIRECTORY).resolve(name);
+    }
+
+    private FileManager openFileManager(String name) throws IOException {
+        if (dataDirectory == null) {
+            return new FileManager();
+        }
+        return new FileManager(DEFAULT_WORKSPACE.equals(name) ? dataDirectory : workspaceDirectory(name));
+    }
+
+    /**
+     * Mark the engine as most recently used, account for its current weight
+     * (uploads change it), and evict least recently used others while the
+     * total exceeds the bound. The engine in use is never evicted.
+     */
+    private void touch(Workspace workspace, WorkspaceEngine engine) {
+        long weight = engine.getWeight();
+        synchronized (compiled) {
+            if (!workspace.holds(engine)) {
+                // Evicted since this caller got it; it runs on, but is no longer held
+                return;
+            }
+            Long previous = compiled.put(workspace, weight);
+            compiledWeight += weight - (previous != null ? previous : 0);
+            Iterator<Map.Entry<Workspace, Long>> eldest = compiled.entrySet().iterator();
+            while (compiledWeight > maxWeight && eldest.hasNext()) {
+                Map.Entry<Workspace, Long> entry = eldest.next();
+                if (entry.getKey() != workspace) {
+                    entry.getKey().evict();
+                    compiledWeight -= entry.getValue();
+                    eldest.remove();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Names of the open workspaces and of those persisted in the data directory.
+     */
+    public Set<String> getWorkspaceNames() throws IOException {
+        Set<String> names = new TreeSet<>(workspaces.keySet());
+        names.add(DEFAULT_WORKSPACE);
+        Path directory = dataDirectory != null ? dataDirectory.resolve(WORKSPACES_DIRECTORY) : null;
+        if (directory != null && Files.isDirectory(directory)) {
+            try (Stream<Path> children = Files.list(directory)) {
+                children.filter(Files::isDirectory)
+                    .map(child -> child.getFileName().toString())
+                    .filter(WorkspaceRegistry::isValidName)
+                    .forEach(names::add);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Close the data directories of the open workspaces.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Workspace workspace : workspaces.values()) {
+            try {
+                workspace.fileManager.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        workspaces.clear();
+        synchronized (compiled) {
+            compiled.clear();
+            compiledWeight = 0;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public Stats getStats() {
+        synchronized (compiled) {
+            return new Stats(workspaces.size(), compiled.size(), compiledWeight, maxWeight,
+                compilations.sum(), evictions.sum());
+        }
+    }
+
+    /**
+     * One workspace: its files, kept for the life of the registry, and its
+     * compiled engine while the LRU holds it.
+     */
+    private final class Workspace {
+        private final FileManager fileManager;
+        private WorkspaceEngine engine;
+
+        Workspace(FileManager fileManager) {
+            this.fileManager = fileManager;
+        }
+
+        synchronized WorkspaceEngine engine() {
+            if (engine == null) {
+                engine = new WorkspaceEngine(fileManager, requiredDecisionPool, differentialSampleRate,
+                    resultCacheWeight);
+                compilations.increment();
+            }
+            return engine;
+        }
+
+        synchronized boolean holds(WorkspaceEngine engine) {
+            return this.engine == engine;
+        }
+
+        synchronized void evict() {
+            engine = null;
+        }
+    }
+
+    /**
+     * Point-in-time registry counters.
+     */
+    public static class Stats {
+        private final int workspaces;
+        private final int compiled;
+        private final long weight;
+        private final long maxWeight;
+        private final long compilations;
+        private final long evictions;
+
+        Stats(int workspaces, int compiled, long weight, long maxWeight, long compilations, long evictions) {
+            this.workspaces = workspaces;
+            this.compiled = compiled;
+            this.weight = weight;
+            this.maxWeight = maxWeight;
+            this.compilations = compilations;
+            this.evictions = evictions;
+        }
+
+        public int getWorkspaces() { return workspaces; }
+        public int getCompiled() { return compiled; }
+        public long getWeight() { return weight; }
+        public long getMaxWeight() { return maxWeight; }
+        public long getCompilations() { return compilations; }
+        public long getEvictions() { return evictions; }
+    }
+}
@@ -0,0 +1,315 @@
+package com.camunda.simulator;
+
+import com.camunda.simulator.model.DMNResult;
+import com.camunda.simulator.model.TraceEvent;
+import com.camunda.simulator.service.ColumnarDecisionResult;
+import com.camunda.simulator.service.DMNEvaluator;
+import com.camunda.simulator.service.DecisionMetrics;
+import com.camunda.simulator.service.FileManager;
+import com.camunda.simulator.service.IndexedDecisionTable;
+import com.camunda.simulator.service.RuleEdit;
+import com.camunda.simulator.service.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DMNEvaluatorTest {
+
+    private FileManager fileManager;
+    private String dmnXml;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fileManager = new FileManager();
+        try (InputStream dmn = getClass().getClassLoader()
+                .getResourceAsStream("static/entry-level-camunda-exercise-v1-0 (1).dmn")) {
+            dmnXml = new String(dmn.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        fileManager.storeDmnFile("decision.dmn", dmnXml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void parsesOnlyWhenContentChanges() {
+        DMNEvaluator evaluator = new DMNEvaluator(fileManager);
+        Object model = evaluator.getDmnModelInstance();
+
+        assertEquals("Valid", evaluator.evaluateEntryLevelExercise(false, 25.0).getQuoteValidity());
+        assertEquals("Invalid", evaluator.evaluateEntryLevelExercise(false, 24.9).getQuoteValidity());
+        // Storing identical content keeps the parsed decision
+        fileManager.storeDmnFile("decision.dmn", dmnXml.getBytes(StandardCharsets.UTF_8));
+        assertSame(model, evaluator.getDmnModelInstance());
+
+        // Changed content is picked up by the next evaluation without an explicit reload
+        fileManager.storeDmnFile("decision.dmn", dmnXml.replace("&gt;=25", "&gt;=20")
+            .replace("&lt;25", "&lt;20").getBytes(StandardCharsets.UTF_8));
+        assertEquals("Valid", evaluator.evaluateEntryLevelExercise(false, 22.0).getQuoteValidity());
+        assertNotSame(model, evaluator.getDmnModelInstance());
+    }
+
+    @Test
+    void missingFileOrDecisionIsAnError() {
+        DMNEvaluator evaluator = new DMNEvaluator(fileManager);
+        assertThrows(RuntimeException.class,
+            () -> evaluator.evaluate("no_such_decision", Map.of("manualPriceCost", false)));
+
+        fileManager.clearAll();
+        assertFalse(evaluator.isDmnLoaded());
+        assertThrows(IllegalStateException.class, () -> evaluator.evaluateEntryLevelExercise(false, 30.0));
+    }
+
+    @Test
+    void generatedClassAgreesWithEngineUnderDifferentialTesting() {
+        DMNEvaluator evaluator = new DMNEvaluator(fileManager);
+        evaluator.setDifferentialTesting(1);
+        Random random = new Random(11);
+        // Hot enough for the decision table to get a generated class
+        for (int i = 0; i < IndexedDecisionTable.GENERATE_AFTER + 500; i++) {
+            boolean manualPriceCost = random.nextInt(4) == 0;
+            double margin = random.nextInt(6000) / 100.0;
+            String expected = !manualPriceCost && Math.floor(margin) >= 25 ? "Valid" : "Invalid";
+            assertEquals(expected, evaluator.evaluateEntryLevelExercise(manualPriceCost, margin).getQuoteValidity());
+        }
+        assertTrue(evaluator.getDifferentialChecks() >= 500);
+        assertEquals(0, evaluator.getDifferentialMismatches());
+    }
+
+    @Test
+    void columnarEvaluationOverPrimitiveInputs() {
+        DMNEvaluator evaluator = new DMNEvaluator(fileManager);
+        Random random = new Random(5);
+        int rows = 100_000;
+        double[] margins = new double[rows];
+        boolean[] manual = new boolean[rows];
+        for (int row = 0; row < rows; row++) {
+            margins[row] = random.nextInt(6000) / 100.0;
+            manual[row] = random.nextInt(4) == 0;
+        }
+
+        ColumnarDecisionResult result = evaluator.evaluateColumns(margins, manual);
+        for (int row = 0; row < rows; row++) {
+            String expected = !manual[row] && Math.floor(margins[row]) >= 25 ? "Valid" : "Invalid";
+            assertEquals(expected, result.getOutput(row).get("quoteValidity"), "row " + row);
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> evaluator.evaluateColumns(new double[2], new boolean[1]));
+    }
+
+    @Test
+    void countsRuleHitsAndLatencyUntilTheNextUpload() {
+        DMNEvaluator evaluator = new DMNEvaluator(fileManager);
+        for (int i = 0; i < 10; i++) {
+            evaluator.evaluateEntryLevelExercise(false, 30.0);
+        }
+        evaluator.evaluateEntryLevelExercise(false, 10.0);
+        evaluator.evaluateColumns(new double[] { 40.0, 50.0 }, new boolean[] { true, false });
+
+        DecisionMetrics metrics = evaluator.getMetrics(evaluator.getDecisionKey());
+        assertEquals(13, metrics.getEvaluations());
+        assertEquals(0, metrics.getNoMatch());
+        assertEquals(List.of(11L, 1L, 1L), hits(metrics));
+        assertTrue(metrics.getUnusedRules().isEmpty());
+        // Columnar batches are counted as hits but not timed
+        assertEquals(11, metrics.getLatency().getCount());
+        assertTrue(metrics.getLatency().getP50Micros() <= metrics.getLatency().getP99Micros());
+        assertTrue(metrics.getLatency().getP99Micros() <= metrics.getLatency().getMaxMicros());
+
+        // A hit policy the index does not cover is counted through the engine
+        fileManager.storeDmnFile("decision.dmn", dmnXml.replace("hitPolicy=\"FIRST\"", "hitPolicy=\"COLLECT\"")
+            .getBytes(StandardCharsets.UTF_8));
+        evaluator.evaluateEntryLevelExercise(true, 30.0);
+        metrics = evaluator.getMetrics(evaluator.getDecisionKey());
+        assertEquals(1, metrics.getEvaluations());
+        assertEquals(List.of(0L, 0L, 1L), hits(metrics));
+        assertEquals(2, metrics.getUnusedRules().size());
+    }
+
+    private static List<Long> hits(DecisionMetrics metrics) {
+        return metrics.getRules().stream().map(DecisionMetrics.RuleHits::getHits).collect(Collectors.toList());
+    }
+
+    @Test
+    void editsSingleRulesWithoutReloadingTheFile() throws IOException {
+        DMNEvaluator evaluator = new DMNEvaluator(fileManager);
+        String key = evaluator.getDecisionKey();
+        String hash = fileManager.getDefaultDmnHash();
+        assertEquals("Invalid", evaluator.evaluateEntryLevelExercise(false, 22.0).getQuoteValidity());
+
+        RuleEdit edit = evaluator.updateRule(key, "DecisionRule_0pi9w35", Arrays.asList(null, ">=20"), null);
+        assertEquals(RuleEdit.Type.UPDATED, edit.getType());
+        Object model = evaluator.getDmnModelInstance();
+        DMNResult result = evaluator.evaluateEntryLevelExercise(false, 22.0);
+        assertEquals("Valid", result.getQuoteValidity());
+        assertEquals(Map.of(key, List.of("DecisionRule_0pi9w35")), result.getMatchedRules());
+        // The edited file replaces the stored one and is not parsed again
+        assertNotEquals(hash, fileManager.getDefaultDmnHash());
+        assertSame(model, evaluator.getDmnModelInstance());
+        try (InputStream stored = fileManager.getDefaultDmnFile()) {
+            assertTrue(new String(stored.readAllBytes(), StandardCharsets.UTF_8).contains("&gt;=20"));
+        }
+
+        evaluator.addRule(key, "DecisionRule_cap", 0, List.of("false", ">=90"), List.of("\"Invalid\""));
+        result = evaluator.evaluateEntryLevelExercise(false, 95.0);
+        assertEquals("Invalid", result.getQuoteValidity());
+        assertEquals(Map.of(key, List.of("DecisionRule_cap")), result.getMatchedRules());
+        assertEquals("DecisionRule_cap", evaluator.getMetrics(key).getRules().get(0).getRuleId());
+
+        evaluator.deleteRule(key, "DecisionRule_cap");
+        assertEquals("Valid", evaluator.evaluateEntryLevelExercise(false, 95.0).getQuoteValidity());
+        assertEquals(3, evaluator.getMetrics(key).getRules().size());
+
+        assertThrows(NoSuchElementException.class, () -> evaluator.deleteRule(key, "DecisionRule_cap"));
+        assertThrows(NoSuchElementException.class, () -> evaluator.deleteRule("no_such_decision", "DecisionRule_0pi9w35"));
+        assertThrows(IllegalArgumentException.class,
+            () -> evaluator.updateRule(key, "DecisionRule_0pi9w35", List.of(">=20"), null));
+        assertThrows(IllegalArgumentException.class,
+            () -> evaluator.addRule(key, "DecisionRule_1ltoba1", -1, List.of("-", "-"), List.of("\"Valid\"")));
+    }
+
+    @Test
+    void ruleEditAffectsOnlyEvaluationsItCanChange() {
+        DMNEvaluator evaluator = new DMNEvaluator(fileManager);
+        String key = evaluator.getDecisionKey();
+        Map<String, List<String>> valid = evaluator.evaluateEntryLevelExercise(false, 30.0).getMatchedRules();
+        Map<String, List<String>> manual = evaluator.evaluateEntryLevelExercise(true, 30.0).getMatchedRules();
+
+        // FIRST hit policy: the last rule cannot take over from an earlier match
+        RuleEdit last = evaluator.updateRule(key, "DecisionRule_0ueqfuw", null, List.of("\"Valid\""));
+        assertTrue(last.affects(manual));
+        assertFalse(last.affects(valid));
+        RuleEdit first = evaluator.updateRule(key, "DecisionRule_0pi9w35", null, List.of("\"Valid\""));
+        assertTrue(first.affects(valid));
+        assertTrue(first.affects(manual));
+        assertFalse(first.affects(Map.of("other_decision", List.of())));
+    }
+
+    @Test
+    void returnsEveryTypedResultOfTheHitPolicy() {
+        FileManager feeFiles = new FileManager();
+        feeFiles.storeDmnFile("fees.dmn", fees("RULE ORDER", null, true).getBytes(StandardCharsets.UTF_8));
+        DMNEvaluator evaluator = new DMNEvaluator(feeFiles);
+        DMNResult result = evaluator.evaluate(null, Map.of("amount", 60.0));
+        assertEquals(List.of(Map.of("label", "base", "fee", 1), Map.of("label", "large", "fee", 5)),
+            result.getResults());
+
+        feeFiles.storeDmnFile("fees.dmn", fees("COLLECT", "SUM", false).getBytes(StandardCharsets.UTF_8));
+        result = evaluator.evaluate(null, Map.of("amount", 120.0));
+        assertEquals(1, result.getResults().size());
+        assertEquals(16, ((Number) result.getFirstResult().get("fee")).intValue());
+
+        feeFiles.storeDmnFile("fees.dmn", fees("COLLECT", "COUNT", false).getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, ((Number) evaluator.evaluate(null, Map.of("amount", 60.0)).getFirstResult().get("fee"))
+            .intValue());
+        assertTrue(evaluator.evaluate(null, Map.of("amount", -1.0)).getResults().size() <= 1);
+    }
+
+    /** Fee rules for amounts from 0, 50 and 100; the label output is optional. */
+    private static String fees(String hitPolicy, String aggregation, boolean label) {
+        String[][] rules = { { "&gt;=0", "base", "1" }, { "&gt;=50", "large", "5" }, { "&gt;=100", "huge", "10" } };
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<definitions xmlns=\"https://www.omg.org/spec/DMN/20191111/MODEL/\" id=\"fees\" name=\"Fees\""
+            + " namespace=\"http://camunda.org/schema/1.0/dmn\">"
+            + "<decision id=\"fee\" name=\"Fee\"><decisionTable id=\"feeTable\" hitPolicy=\"" + hitPolicy + "\""
+            + (aggregation != null ? " aggregation=\"" + aggregation + "\"" : "") + ">"
+            + "<input id=\"feeAmount\"><inputExpression typeRef=\"double\"><text>amount</text></inputExpression></input>");
+        if (label) {
+            xml.append("<output id=\"labelOutput\" name=\"label\" typeRef=\"string\"/>");
+        }
+        xml.append("<output id=\"feeOutput\" name=\"fee\" typeRef=\"integer\"/>");
+        for (int rule = 0; rule < rules.length; rule++) {
+            xml.append("<rule id=\"rule").append(rule).append("\"><inputEntry><text>").append(rules[rule][0])
+                .append("</text></inputEntry>");
+            if (label) {
+                xml.append("<outputEntry><text>\"").append(rules[rule][1]).append("\"</text></outputEntry>");
+            }
+            xml.append("<outputEntry><text>").append(rules[rule][2]).append("</text></outputEntry></rule>");
+        }
+        return xml.append("</decisionTable></decision></definitions>").toString();
+    }
+
+    @Test
+    void sharedRequiredDecisionIsEvaluatedOncePerRequest() {
+        FileManager drgFiles = new FileManager();
+        drgFiles.storeDmnFile("pricing.dmn", DRG.getBytes(StandardCharsets.UTF_8));
+        Tracer.Level level = Tracer.getLevel();
+        Tracer.setLevel(Tracer.Level.DEBUG);
+        try {
+            for (DMNEvaluator evaluator : new DMNEvaluator[] {
+                    new DMNEvaluator(drgFiles), new DMNEvaluator(drgFiles, ForkJoinPool.commonPool()) }) {
+                // The top decision is the one no other decision requires
+                assertEquals("quote", evaluator.getDecisionKey());
+
+                Tracer.clear();
+                assertEquals("Valid", evaluator.evaluate(null, Map.of("amount", 60.0)).getQuoteValidity());
+                long tierEvaluations = Tracer.snapshot().stream()
+                    .filter(event -> event.getType() == TraceEvent.Type.DMN_REQUIRED_DECISION)
+                    .filter(event -> event.getSubject().equals("tier"))
+                    .count();
+                assertEquals(1, tierEvaluations);
+
+                assertEquals("Invalid", evaluator.evaluate(null, Map.of("amount", 20.0)).getQuoteValidity());
+                assertEquals("Invalid", evaluator.evaluate("risk", Map.of("amount", 20.0)).getQuoteValidity());
+            }
+        } finally {
+            Tracer.setLevel(level);
+            Tracer.clear();
+        }
+    }
+
+    /** quote requires discount and risk, which both require tier. */
+    private static final String DRG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+        + "<definitions xmlns=\"https://www.omg.org/spec/DMN/20191111/MODEL/\" id=\"pricing\" name=\"Pricing\""
+        + " namespace=\"http://camunda.org/schema/1.0/dmn\">"
+        + "<decision id=\"tier\" name=\"Tier\"><decisionTable id=\"tierTable\" hitPolicy=\"FIRST\">"
+        + "<input id=\"tierAmount\"><inputExpression typeRef=\"double\"><text>amount</text></inputExpression></input>"
+        + "<output id=\"tierOutput\" name=\"tier\" typeRef=\"string\"/>"
+        + "<rule id=\"tierLow\"><inputEntry><text>&lt;50</text></inputEntry>"
+        + "<outputEntry><text>\"low\"</text></outputEntry></rule>"
+        + "<rule id=\"tierHigh\"><inputEntry><text>-</text></inputEntry>"
+        + "<outputEntry><text>\"high\"</text></outputEntry></rule>"
+        + "</decisionTable></decision>"
+        + "<decision id=\"discount\" name=\"Discount\">"
+        + "<informationRequirement id=\"discountTier\"><requiredDecision href=\"#tier\"/></informationRequirement>"
+        + "<decisionTable id=\"discountTable\">"
+        + "<input id=\"discountInput\"><inputExpression typeRef=\"string\"><text>tier</text></inputExpression></input>"
+        + "<output id=\"discountOutput\" name=\"discount\" typeRef=\"integer\"/>"
+        + "<rule id=\"discountLow\"><inputEntry><text>\"low\"</text></inputEntry>"
+        + "<outputEntry><text>5</text></outputEntry></rule>"
+        + "<rule id=\"discountHigh\"><inputEntry><text>\"high\"</text></inputEntry>"
+        + "<outputEntry><text>10</text></outputEntry></rule>"
+        + "</decisionTable></decision>"
+        + "<decision id=\"risk\" name=\"Risk\">"
+        + "<informationRequirement id=\"riskTier\"><requiredDecision href=\"#tier\"/></informationRequirement>"
+        + "<decisionTable id=\"riskTable\">"
+        + "<input id=\"riskInput\"><inputExpression typeRef=\"string\"><text>tier</text></inputExpression></input>"
+        + "<output id=\"riskOutput\" name=\"risk\" typeRef=\"string\"/>"
+        + "<rule id=\"riskLow\"><inputEntry><text>\"low\"</text></inputEntry>"
+        + "<outputEntry><text>\"Invalid\"</text></outputEntry></rule>"
+        + "<rule id=\"riskHigh\"><inputEntry><text>\"high\"</text></inputEntry>"
+        + "<outputEntry><text>\"ok\"</text></outputEntry></rule>"
+        + "</decisionTable></decision>"
+        + "<decision id=\"quote\" name=\"Quote\">"
+        + "<informationRequirement id=\"quoteDiscount\"><requiredDecision href=\"#discount\"/></informationRequirement>"
+        + "<informationRequirement id=\"quoteRisk\"><requiredDecision href=\"#risk\"/></informationRequirement>"
+        + "<decisionTable id=\"quoteTable\" hitPolicy=\"FIRST\">"
+        + "<input id=\"quoteDiscountInput\"><inputExpression typeRef=\"integer\"><text>discount</text></inputExpression></input>"
+        + "<input id=\"quoteRiskInput\"><inputExpression typeRef=\"string\"><text>risk</text></inputExpression></input>"
+        + "<output id=\"quoteOutput\" name=\"quoteValidity\" typeRef=\"string\"/>"
+        + "<rule id=\"quoteValid\"><inputEntry><text>&gt;=10</text></inputEntry><inputEntry><text>\"ok\"</text></inputEntry>"
+        + "<outputEntry><text>\"Valid\"</text></outputEntry></rule>"
+        + "<rule id=\"quoteInvalid\"><inputEntry><text>-</text></inputEntry><inputEntry><text>-</text></inputEntry>"
+        + "<outputEntry><text>\"Invalid\"</text></outputEntry></rule>"
+        + "</decisionTable></decision>"
+        + "</definitions>";
+}
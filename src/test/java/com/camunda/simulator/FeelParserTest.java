@@ -0,0 +1,97 @@
+package com.camunda.simulator;
+
+import com.camunda.simulator.service.FeelExpression;
+import com.camunda.simulator.service.FeelParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeelParserTest {
+
+    private static Map<String, Object> vars(Object... keyValues) {
+        Map<String, Object> variables = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            variables.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return variables;
+    }
+
+    @Test
+    void zeebeStringEqualityCondition() {
+        FeelExpression condition = FeelParser.parse("=quoteValidity = \"Invalid\"");
+        assertTrue(condition.test(vars("quoteValidity", "Invalid")));
+        assertFalse(condition.test(vars("quoteValidity", "Valid")));
+        assertFalse(condition.test(vars()));
+    }
+
+    @Test
+    void numericComparisonsAndFloor() {
+        FeelExpression condition = FeelParser.parse("floor(dealMarginPercent) >= 25");
+        assertTrue(condition.test(vars("dealMarginPercent", 25.9)));
+        assertFalse(condition.test(vars("dealMarginPercent", 24.99)));
+        assertTrue(condition.test(vars("dealMarginPercent", 30)));
+        assertEquals(-2.0, FeelParser.parse("-1.5 - 0.5").evaluate(vars()));
+    }
+
+    @Test
+    void numbersCompareLikePrimitives() {
+        // -0.0 equals 0.0, as in the result cache key
+        assertFalse(FeelParser.parse("x < 0").test(vars("x", -0.0)));
+        assertTrue(FeelParser.parse("x >= 0").test(vars("x", -0.0)));
+        assertTrue(FeelParser.parse("x = 0").test(vars("x", -0.0)));
+        assertFalse(FeelParser.parse("x < y").test(vars("x", -0.0, "y", 0.0)));
+
+        // Every comparison with NaN is false
+        assertFalse(FeelParser.parse("x > 0").test(vars("x", Double.NaN)));
+        assertFalse(FeelParser.parse("x <= 0").test(vars("x", Double.NaN)));
+        assertFalse(FeelParser.parse("x >= y").test(vars("x", Double.NaN, "y", 1.0)));
+        assertTrue(FeelParser.parse("x != 0").test(vars("x", Double.NaN)));
+    }
+
+    @Test
+    void logicalOperatorsUseThreeValuedLogic() {
+        FeelExpression condition = FeelParser.parse("manualPriceCost = true or (dealMarginPercent < 25 and not(vip))");
+        assertTrue(condition.test(vars("manualPriceCost", true)));
+        assertTrue(condition.test(vars("manualPriceCost", false, "dealMarginPercent", 10.0, "vip", false)));
+        assertFalse(condition.test(vars("manualPriceCost", false, "dealMarginPercent", 10.0, "vip", true)));
+        assertNull(FeelParser.parse("missing > 1 and true").evaluate(vars()));
+        assertEquals(false, FeelParser.parse("missing > 1 and false").evaluate(vars()));
+    }
+
+    @Test
+    void nullChecks() {
+        assertTrue(FeelParser.parse("quoteValidity = null").test(vars()));
+        assertTrue(FeelParser.parse("quoteValidity != null").test(vars("quoteValidity", "Valid")));
+    }
+
+    @Test
+    void dmnUnaryTests() {
+        FeelExpression atLeast = FeelParser.parseUnaryTests(">=25");
+        assertTrue(atLeast.test(vars(FeelParser.INPUT_VARIABLE, 25.0)));
+        assertFalse(atLeast.test(vars(FeelParser.INPUT_VARIABLE, 24)));
+
+        FeelExpression range = FeelParser.parseUnaryTests("[1..10[, 20");
+        assertTrue(range.test(vars(FeelParser.INPUT_VARIABLE, 1)));
+        assertFalse(range.test(vars(FeelParser.INPUT_VARIABLE, 10)));
+        assertTrue(range.test(vars(FeelParser.INPUT_VARIABLE, 20.0)));
+
+        FeelExpression variableRange = FeelParser.parseUnaryTests("[low..high]");
+        assertTrue(variableRange.test(vars(FeelParser.INPUT_VARIABLE, 5, "low", 1, "high", 10)));
+        assertFalse(variableRange.test(vars(FeelParser.INPUT_VARIABLE, 11, "low", 1, "high", 10)));
+
+        assertTrue(FeelParser.parseUnaryTests("").test(vars(FeelParser.INPUT_VARIABLE, "anything")));
+        assertTrue(FeelParser.parseUnaryTests("not(\"Valid\", \"Open\")").test(vars(FeelParser.INPUT_VARIABLE, "Invalid")));
+        assertFalse(FeelParser.parseUnaryTests("true").test(vars(FeelParser.INPUT_VARIABLE, false)));
+    }
+
+    @Test
+    void unsupportedSyntaxIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> FeelParser.parse("x = "));
+        assertThrows(IllegalArgumentException.class, () -> FeelParser.parse("sum([1, 2])"));
+        assertThrows(IllegalArgumentException.class, () -> FeelParser.parse("\"open"));
+        assertThrows(IllegalArgumentException.class, () -> FeelParser.parse("order. = 1"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.camunda.simulator;
+
+import com.camunda.simulator.service.FileManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileManagerTest {
+
+    @Test
+    void versionsEachNameAndDeduplicatesIdenticalUploads() throws IOException {
+        FileManager fileManager = new FileManager();
+        FileManager.Deployment first = fileManager.storeDmnFile("decision.dmn", bytes("v1"));
+        FileManager.Deployment second = fileManager.storeDmnFile("decision.dmn", bytes("v2"));
+        assertEquals(1, first.getVersion());
+        assertEquals(2, second.getVersion());
+        assertNotEquals(first.getHash(), second.getHash());
+
+        // Uploading the current content again is not a new version
+        assertSame(second, fileManager.storeDmnFile("decision.dmn", bytes("v2")));
+        assertEquals(List.of(1, 2), versions(fileManager.getDmnVersions("decision.dmn")));
+
+        // The default file is the one deployed last, whatever its name
+        FileManager.Deployment other = fileManager.storeDmnFile("other.dmn", bytes("v1"));
+        assertEquals(first.getHash(), other.getHash());
+        assertEquals("other.dmn", fileManager.getDefaultDmnFileName());
+        assertEquals("v1", read(fileManager.getDefaultDmnFile()));
+
+        fileManager.removeDmnFile("other.dmn");
+        assertEquals("decision.dmn", fileManager.getDefaultDmnFileName());
+        assertEquals("v2", read(fileManager.getDefaultDmnFile()));
+        assertEquals(second.getHash(), fileManager.getDefaultDmnHash());
+    }
+
+    @Test
+    void rollbackDeploysAnEarlierVersionAgain() throws IOException {
+        FileManager fileManager = new FileManager();
+        FileManager.Deployment first = fileManager.storeBpmnFile("process.bpmn", bytes("v1"));
+        fileManager.storeBpmnFile("process.bpmn", bytes("v2"));
+
+        FileManager.Deployment restored = fileManager.rollbackBpmnFile("process.bpmn", 1);
+        assertEquals(3, restored.getVersion());
+        assertEquals(first.getHash(), restored.getHash());
+        assertEquals(first.getHash(), fileManager.getDefaultBpmnHash());
+        assertEquals("v1", read(fileManager.getBpmnFile("process.bpmn")));
+        // Old versions keep their content
+        assertEquals("v2", read(fileManager.getContent(fileManager.getBpmnVersions("process.bpmn").get(1))));
+
+        assertThrows(NoSuchElementException.class, () -> fileManager.rollbackBpmnFile("process.bpmn", 4));
+        assertThrows(NoSuchElementException.class, () -> fileManager.rollbackBpmnFile("missing.bpmn", 1));
+    }
+
+    @Test
+    void restoresFilesFromDataDirectory(@TempDir Path dataDirectory) throws IOException {
+        FileManager fileManager = new FileManager(dataDirectory);
+        fileManager.storeBpmnFile("process.bpmn", bytes("p1"));
+        fileManager.storeDmnFile("decision.dmn", bytes("d1"));
+        fileManager.storeDmnFile("decision.dmn", bytes("d2"));
+        fileManager.storeDmnFile("old name.dmn", bytes("d0"));
+        fileManager.removeDmnFile("old name.dmn");
+        fileManager.rollbackDmnFile("decision.dmn", 1);
+
+        FileManager restored = new FileManager(dataDirectory);
+        assertEquals(Set.of("process.bpmn"), restored.getBpmnFileNames());
+        assertEquals(Set.of("decision.dmn"), restored.getDmnFileNames());
+        assertEquals(List.of(1, 2, 3), versions(restored.getDmnVersions("decision.dmn")));
+        assertEquals(fileManager.getDefaultDmnHash(), restored.getDefaultDmnHash());
+        assertEquals("d1", read(restored.getDefaultDmnFile()));
+        assertEquals("p1", read(restored.getDefaultBpmnFile()));
+
+        // A change cut short by a crash is dropped, and the next one still reads back
+        Files.write(dataDirectory.resolve("models.idx"), bytes("deploy dmn 00"), StandardOpenOption.APPEND);
+        restored = new FileManager(dataDirectory);
+        restored.storeDmnFile("decision.dmn", bytes("d3"));
+        restored = new FileManager(dataDirectory);
+        assertEquals("d3", read(restored.getDefaultDmnFile()));
+        assertEquals(4, restored.getDmnDeployment("decision.dmn").getVersion());
+
+        restored.clearAll();
+        assertFalse(new FileManager(dataDirectory).hasDmnFiles());
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String read(InputStream content) throws IOException {
+        try (content) {
+            return new String(content.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<Integer> versions(List<FileManager.Deployment> deployments) {
+        return deployments.stream().map(FileManager.Deployment::getVersion).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,233 @@
+package com.camunda.simulator;
+
+import com.camunda.simulator.service.ColumnarDecisionResult;
+import com.camunda.simulator.service.IndexedDecisionTable;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.camunda.bpm.dmn.engine.DmnEngineConfiguration;
+import org.camunda.bpm.model.dmn.Dmn;
+import org.camunda.bpm.model.dmn.DmnModelInstance;
+import org.camunda.bpm.model.dmn.instance.Decision;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedDecisionTableTest {
+
+    private static final String[] AMOUNT_TESTS = {
+        "-", "&gt;=50", "&lt;25", "[10..40]", "]20..60[", "75", "&lt;=5,&gt;90", "[30..30]", "(60..80]"
+    };
+    private static final String[] REGION_TESTS = { "-", "\"EU\"", "\"EU\",\"US\"", "\"APAC\"", "null" };
+    private static final String[] VIP_TESTS = { "-", "true", "false" };
+    private static final String[] REGIONS = { "EU", "US", "APAC", "LATAM", null };
+
+    private final DmnEngine engine = DmnEngineConfiguration.createDefaultDmnEngineConfiguration().buildEngine();
+
+    @Test
+    void largeFirstHitTableMatchesEngine() {
+        Random random = new Random(7);
+        StringBuilder rules = new StringBuilder();
+        for (int rule = 0; rule < 400; rule++) {
+            rules.append(rule(rule, AMOUNT_TESTS[random.nextInt(AMOUNT_TESTS.length)],
+                REGION_TESTS[random.nextInt(REGION_TESTS.length)], VIP_TESTS[random.nextInt(VIP_TESTS.length)]));
+        }
+        DmnModelInstance model = model("FIRST", rules.toString());
+        IndexedDecisionTable table = IndexedDecisionTable.compile(decision(model));
+        assertNotNull(table);
+        assertEquals(400, table.getRuleCount());
+        IndexedDecisionTable generated = IndexedDecisionTable.compile(decision(model));
+        assertTrue(generated.generateClass());
+        IndexedDecisionTable materialized = IndexedDecisionTable.compile(decision(model));
+        assertTrue(materialized.materialize());
+        DmnDecision decision = engine.parseDecision("pricing", model);
+
+        // Every bound of AMOUNT_TESTS, its neighbours and both ends cover each amount class; vip
+        // alternates so that every amount and every region is seen with both values
+        double[] bounds = { 5, 10, 20, 25, 30, 40, 50, 60, 75, 80, 90 };
+        double[] amounts = new double[bounds.length * 3 + 2];
+        amounts[0] = -1e300;
+        amounts[1] = 1e300;
+        for (int i = 0; i < bounds.length; i++) {
+            amounts[i * 3 + 2] = bounds[i] - 0.5;
+            amounts[i * 3 + 3] = bounds[i];
+            amounts[i * 3 + 4] = bounds[i] + 0.5;
+        }
+        for (int i = 0; i < amounts.length; i++) {
+            for (int j = 0; j < REGIONS.length; j++) {
+                Map<String, Object> variables = new HashMap<>();
+                variables.put("amount", amounts[i]);
+                variables.put("region", REGIONS[j]);
+                variables.put("vip", (i + j) % 2 == 0);
+                DmnDecisionResult result = engine.evaluateDecision(decision, variables);
+                Map<String, Object> expected = result.isEmpty() ? Map.of() : result.getFirstResult().getEntryMap();
+                assertEquals(expected, table.evaluate(variables), variables.toString());
+                assertEquals(expected, generated.evaluate(variables), variables.toString());
+                assertEquals(expected, materialized.evaluate(variables), variables.toString());
+            }
+        }
+    }
+
+    @Test
+    void sweepOverContinuousInputEvaluatesOncePerEquivalenceClass() {
+        DmnModelInstance model = model("FIRST", rule(0, "&gt;=50", "\"EU\"", "-") + rule(1, "[10..40]", "-", "-")
+            + rule(2, "-", "-", "-"));
+        IndexedDecisionTable table = IndexedDecisionTable.compile(decision(model));
+        DmnDecision decision = engine.parseDecision("pricing", model);
+
+        for (int i = 0; i <= 10_000; i++) {
+            for (String region : new String[] { "EU", "US" }) {
+                Map<String, Object> variables = Map.of("amount", i / 100.0, "region", region, "vip", false);
+                Map<String, Object> result = table.evaluate(variables);
+                if (i % 97 == 0) {
+                    assertEquals(engine.evaluateDecision(decision, variables).getFirstResult().getEntryMap(), result);
+                }
+            }
+        }
+        // Bounds 10, 40, 50 give 7 number classes; "EU" and any other region give 2
+        assertEquals(14, table.getCachedClassCount());
+    }
+
+    @Test
+    void columnarEvaluationMatchesRowEvaluation() {
+        Random random = new Random(11);
+        StringBuilder rules = new StringBuilder();
+        for (int rule = 0; rule < 60; rule++) {
+            rules.append(rule(rule, AMOUNT_TESTS[random.nextInt(AMOUNT_TESTS.length)],
+                REGION_TESTS[random.nextInt(REGION_TESTS.length)], VIP_TESTS[random.nextInt(VIP_TESTS.length)]));
+        }
+        IndexedDecisionTable table = IndexedDecisionTable.compile(decision(model("FIRST", rules.toString())));
+        int rows = 5000;
+        double[] amounts = new double[rows];
+        Object[] regions = new Object[rows];
+        boolean[] vips = new boolean[rows];
+        for (int row = 0; row < rows; row++) {
+            amounts[row] = random.nextInt(4) == 0 ? random.nextInt(100) + 0.5 : random.nextInt(100);
+            regions[row] = REGIONS[random.nextInt(REGIONS.length)];
+            vips[row] = random.nextBoolean();
+        }
+
+        ColumnarDecisionResult result = table.evaluateColumns(
+            Map.of("amount", amounts, "region", regions, "vip", vips), rows);
+        assertEquals(rows, result.getRowCount());
+        for (int row = 0; row < rows; row++) {
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("amount", amounts[row]);
+            variables.put("region", regions[row]);
+            variables.put("vip", vips[row]);
+            assertEquals(table.evaluate(variables), result.getOutput(row), variables.toString());
+        }
+
+        assertThrows(IllegalArgumentException.class,
+            () -> table.evaluateColumns(Map.of("amount", amounts, "region", regions), rows));
+        assertThrows(IllegalArgumentException.class,
+            () -> table.evaluateColumns(Map.of("amount", new double[] { Double.NaN }, "region", regions, "vip", vips), 1));
+    }
+
+    @Test
+    void materializedTableCoversEveryBoundAndLiteral() {
+        DmnModelInstance model = model("FIRST", rule(0, "&lt;=5,&gt;90", "\"EU\"", "true")
+            + rule(1, "]20..60[", "null", "-") + rule(2, "75", "-", "false") + rule(3, "-", "\"US\"", "-"));
+        IndexedDecisionTable table = IndexedDecisionTable.compile(decision(model));
+        assertTrue(table.materialize());
+        DmnDecision decision = engine.parseDecision("pricing", model);
+
+        double[] amounts = { -1e300, 4.5, 5.0, 5.5, 20.0, 20.5, 59.9, 60.0, 74.9, 75.0, 75.1, 90.0, 90.5, 1e300 };
+        for (double amount : amounts) {
+            for (String region : REGIONS) {
+                for (boolean vip : new boolean[] { false, true }) {
+                    Map<String, Object> variables = new HashMap<>();
+                    variables.put("amount", amount);
+                    variables.put("region", region);
+                    variables.put("vip", vip);
+                    DmnDecisionResult result = engine.evaluateDecision(decision, variables);
+                    assertEquals(result.isEmpty() ? Map.of() : result.getFirstResult().getEntryMap(),
+                        table.evaluate(variables), variables.toString());
+                }
+            }
+        }
+        // Lookups go to the array, not the class cache
+        assertEquals(0, table.getCachedClassCount());
+    }
+
+    @Test
+    void tableTooLargeToGenerateIsStillMaterialized() {
+        StringBuilder rules = new StringBuilder();
+        for (int rule = 0; rule < 5000; rule++) {
+            rules.append(rule(rule, AMOUNT_TESTS[rule % AMOUNT_TESTS.length],
+                REGION_TESTS[rule % REGION_TESTS.length], VIP_TESTS[rule % VIP_TESTS.length]));
+        }
+        IndexedDecisionTable table = IndexedDecisionTable.compile(decision(model("FIRST", rules.toString())));
+
+        assertFalse(table.generateClass());
+        assertTrue(table.materialize());
+        assertEquals(Map.of("label", "r0", "rank", 0),
+            table.evaluate(Map.of("amount", 1.0, "region", "EU", "vip", false)));
+    }
+
+    @Test
+    void uniqueHitPolicyRejectsOverlappingRules() {
+        DmnModelInstance model = model("UNIQUE", rule(0, "&gt;=10", "-", "-") + rule(1, "[0..20]", "-", "-"));
+        Map<String, Object> variables = Map.of("amount", 5.0, "region", "EU", "vip", false);
+
+        for (int mode = 0; mode < 3; mode++) {
+            IndexedDecisionTable table = IndexedDecisionTable.compile(decision(model));
+            assertEquals(mode == 1, mode == 1 && table.generateClass());
+            assertEquals(mode == 2, mode == 2 && table.materialize());
+            assertEquals(Map.of("label", "r1", "rank", 1), table.evaluate(variables));
+            assertEquals(Map.of(), table.evaluate(Map.of("amount", -1.0, "region", "EU", "vip", false)));
+            assertThrows(IllegalStateException.class,
+                () -> table.evaluate(Map.of("amount", 15.0, "region", "EU", "vip", false)));
+        }
+    }
+
+    @Test
+    void unsupportedTablesAndInputsAreLeftToTheEngine() {
+        assertNull(IndexedDecisionTable.compile(decision(model("FIRST", rule(0, "-", "not(\"EU\")", "-")))));
+        assertNull(IndexedDecisionTable.compile(decision(model("COLLECT", rule(0, "-", "-", "-")))));
+        assertNull(IndexedDecisionTable.compile(decision(model("FIRST", rule(0, "[low..high]", "-", "-")))));
+
+        IndexedDecisionTable table = IndexedDecisionTable.compile(decision(model("FIRST", rule(0, "-", "-", "true"))));
+        // Missing variable and a value the engine would have to convert
+        assertNull(table.evaluate(Map.of("amount", 1.0, "region", "EU")));
+        assertNull(table.evaluate(Map.of("amount", 1.0, "region", "EU", "vip", "true")));
+        assertEquals(Map.of("label", "r0", "rank", 0),
+            table.evaluate(Map.of("amount", 1.0, "region", "EU", "vip", true)));
+    }
+
+    private static String rule(int id, String amount, String region, String vip) {
+        return "<rule id=\"Rule_" + id + "\">"
+            + "<inputEntry><text>" + amount + "</text></inputEntry>"
+            + "<inputEntry><text>" + region.replace("\"", "&quot;") + "</text></inputEntry>"
+            + "<inputEntry><text>" + vip + "</text></inputEntry>"
+            + "<outputEntry><text>\"r" + id + "\"</text></outputEntry>"
+            + "<outputEntry><text>" + id + "</text></outputEntry>"
+            + "</rule>";
+    }
+
+    private static DmnModelInstance model(String hitPolicy, String rules) {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<definitions xmlns=\"https://www.omg.org/spec/DMN/20191111/MODEL/\" id=\"defs\" name=\"Pricing\""
+            + " namespace=\"http://camunda.org/schema/1.0/dmn\">"
+            + "<decision id=\"pricing\" name=\"Pricing\">"
+            + "<decisionTable id=\"table\" hitPolicy=\"" + hitPolicy + "\">"
+            + "<input id=\"amount\"><inputExpression typeRef=\"double\"><text>amount</text></inputExpression></input>"
+            + "<input id=\"region\"><inputExpression typeRef=\"string\"><text>region</text></inputExpression></input>"
+            + "<input id=\"vip\"><inputExpression typeRef=\"boolean\"><text>vip</text></inputExpression></input>"
+            + "<output id=\"label\" name=\"label\" typeRef=\"string\"/>"
+            + "<output id=\"rank\" name=\"rank\" typeRef=\"integer\"/>"
+            + rules
+            + "</decisionTable></decision></definitions>";
+        return Dmn.readModelFromStream(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Decision decision(DmnModelInstance model) {
+        return model.getModelElementById("pricing");
+    }
+}
@@ -97,4 +97,14 @@ class InputValidatorTest {
         assertFalse(errors.isEmpty());
         assertTrue(errors.stream().anyMatch(e -> e.toLowerCase().contains("json") || e.toLowerCase().contains("invalid")));
     }
+
+    @Test
+    void processVersionNeedsProcessId() {
+        String base = "{\"manualPriceCost\": false, \"dealMarginPercent\": 25, ";
+        assertTrue(InputValidator.validate(base + "\"processId\": \"p\", \"version\": 2}").isEmpty());
+        assertEquals(List.of("version requires a processId"), InputValidator.validate(base + "\"version\": 2}"));
+        assertEquals(List.of("version must be a positive integer"),
+            InputValidator.validate(base + "\"processId\": \"p\", \"version\": 1.5}"));
+        assertEquals(List.of("processId must be a string"), InputValidator.validate(base + "\"processId\": 7}"));
+    }
 }
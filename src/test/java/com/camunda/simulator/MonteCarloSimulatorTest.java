@@ -0,0 +1,73 @@
+package com.camunda.simulator;
+
+import com.camunda.simulator.service.DMNEvaluator;
+import com.camunda.simulator.service.FileManager;
+import com.camunda.simulator.service.InputDistribution;
+import com.camunda.simulator.service.MonteCarloSimulator;
+import com.camunda.simulator.service.ProcessEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonteCarloSimulatorTest {
+
+    private MonteCarloSimulator simulator;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileManager fileManager = new FileManager();
+        try (InputStream dmn = getClass().getClassLoader()
+                .getResourceAsStream("static/entry-level-camunda-exercise-v1-0 (1).dmn");
+             InputStream bpmn = getClass().getClassLoader()
+                .getResourceAsStream("static/entry-level-camunda-exercise-v1-0.bpmn")) {
+            fileManager.storeDmnFile("entry-level-camunda-exercise-v1-0.dmn", dmn.readAllBytes());
+            fileManager.storeBpmnFile("entry-level-camunda-exercise-v1-0.bpmn", bpmn.readAllBytes());
+        }
+        simulator = new MonteCarloSimulator(new ProcessEngine(fileManager, new DMNEvaluator(fileManager)));
+    }
+
+    @Test
+    void manualPricingAlwaysTakesInvalidFlow() {
+        MonteCarloSimulator.MonteCarloResult result = simulator.run(Map.of(
+            "manualPriceCost", InputDistribution.parse("Bernoulli(1)"),
+            "dealMarginPercent", InputDistribution.parse("Normal(27, 4)")), 200, 1L);
+
+        assertEquals(1, result.getOutcomes().size());
+        assertEquals("Invalid", result.getOutcomes().get(0).getFinalStatus());
+        assertEquals(1.0, result.getOutcomes().get(0).getProbability());
+        MonteCarloSimulator.FlowEstimate invalidFlow = result.getFlows().stream()
+            .filter(f -> f.getFlowId().equals("Flow_0j081os")).findFirst().orElseThrow();
+        assertEquals(200, invalidFlow.getCount());
+        assertTrue(invalidFlow.getLower95() > 0.95 && invalidFlow.getUpper95() == 1.0);
+    }
+
+    @Test
+    void sameSeedReproducesCounts() {
+        Map<String, InputDistribution> inputs = Map.of(
+            "manualPriceCost", InputDistribution.parse("Bernoulli(0.1)"),
+            "dealMarginPercent", InputDistribution.parse("~ Normal(27, 4)"));
+
+        MonteCarloSimulator.MonteCarloResult first = simulator.run(inputs, 1100, 42L);
+        MonteCarloSimulator.MonteCarloResult second = simulator.run(inputs, 1100, 42L);
+
+        assertEquals(2, first.getOutcomes().size());
+        for (int i = 0; i < first.getOutcomes().size(); i++) {
+            assertEquals(first.getOutcomes().get(i).getCount(), second.getOutcomes().get(i).getCount());
+            assertTrue(first.getOutcomes().get(i).getLower95() <= first.getOutcomes().get(i).getProbability());
+        }
+        assertEquals(1100, first.getOutcomes().stream().mapToLong(MonteCarloSimulator.OutcomeEstimate::getCount).sum());
+    }
+
+    @Test
+    void invalidDistributionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> InputDistribution.parse("Bernoulli(1.5)"));
+        assertThrows(IllegalArgumentException.class, () -> InputDistribution.parse("Poisson(3)"));
+        assertThrows(IllegalArgumentException.class, () -> simulator.run(
+            Map.of("dealMarginPercent", InputDistribution.constant(25)), 10, 1L));
+    }
+}
@@ -2,30 +2,49 @@ package com.camunda.simulator;
 
 import com.camunda.simulator.model.SimulationInput;
 import com.camunda.simulator.model.SimulationResult;
+import com.camunda.simulator.model.TraceEvent;
 import com.camunda.simulator.service.BpmnValidationRunner;
 import com.camunda.simulator.service.DMNEvaluator;
+import com.camunda.simulator.service.EngineSnapshot;
+import com.camunda.simulator.service.ExecutionPlan;
 import com.camunda.simulator.service.FileManager;
 import com.camunda.simulator.service.ProcessEngine;
+import com.camunda.simulator.service.RuleEdit;
+import com.camunda.simulator.service.Tracer;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 class ProcessEngineTest {
     
     private ProcessEngine processEngine;
+    private DMNEvaluator dmnEvaluator;
+    private FileManager fileManager;
+    private byte[] dmnContent;
     
     @BeforeEach
     void setUp() throws IOException {
-        FileManager fileManager = new FileManager();
+        fileManager = new FileManager();
 
         // Load DMN file from resources for testing
         InputStream dmnStream = getClass().getClassLoader()
             .getResourceAsStream("static/entry-level-camunda-exercise-v1-0 (1).dmn");
         if (dmnStream != null) {
-            byte[] dmnContent = dmnStream.readAllBytes();
+            dmnContent = dmnStream.readAllBytes();
             dmnStream.close();
             fileManager.storeDmnFile("entry-level-camunda-exercise-v1-0.dmn", dmnContent);
         }
@@ -39,7 +58,7 @@ class ProcessEngineTest {
             fileManager.storeBpmnFile("entry-level-camunda-exercise-v1-0.bpmn", bpmnContent);
         }
 
-        DMNEvaluator dmnEvaluator = new DMNEvaluator(fileManager);
+        dmnEvaluator = new DMNEvaluator(fileManager);
         processEngine = new ProcessEngine(fileManager, dmnEvaluator);
     }
     
@@ -99,6 +118,391 @@ class ProcessEngineTest {
         assertEquals("Valid", result.getProcessVariables().get("cim_Status"));
     }
 
+    @Test
+    void testDecisionOutputsAreTypedProcessVariables() {
+        String dmn = new String(dmnContent, StandardCharsets.UTF_8)
+            .replace("typeRef=\"string\" />", "typeRef=\"string\" /><output id=\"Output_2\" name=\"priority\" typeRef=\"integer\" />")
+            .replace("</outputEntry>", "</outputEntry><outputEntry><text>7</text></outputEntry>");
+        fileManager.storeDmnFile("entry-level-camunda-exercise-v1-0.dmn", dmn.getBytes(StandardCharsets.UTF_8));
+
+        SimulationResult result = processEngine.execute(new SimulationInput(false, 30.0));
+
+        assertEquals("Valid", result.getProcessVariables().get("quoteValidity"));
+        assertEquals(7, result.getProcessVariables().get("priority"));
+        assertEquals(Map.of("quoteValidity", "Valid", "priority", 7), result.getDmnResult().getFirstResult());
+    }
+
+    @Test
+    void testExecutionPlanCompiledFromBpmn() {
+        ExecutionPlan plan = processEngine.getExecutionPlan();
+
+        assertNotNull(plan);
+        assertEquals("Entry-Level-Camunda-Exercise-v1-0", plan.getProcessId());
+        assertEquals(ExecutionPlan.NodeKind.START_EVENT, plan.getNodeKind(plan.getStartNode()));
+        assertEquals("Start", plan.getNodeName(plan.getStartNode()));
+        assertEquals(7, plan.getNodeCount());
+        assertEquals(7, plan.getFlowCount());
+    }
+
+    @Test
+    void testSnapshotChangesOnlyWithADeployment() {
+        EngineSnapshot pinned = processEngine.getSnapshot();
+        assertSame(pinned, processEngine.getSnapshot());
+        assertEquals(fileManager.getDefaultDmnHash(), pinned.getDmnHash());
+        assertEquals(fileManager.getDefaultBpmnHash(), pinned.getBpmnHash());
+
+        // A new DMN file keeps the plan; the pinned snapshot keeps the old decisions
+        fileManager.storeDmnFile("entry-level-camunda-exercise-v1-0.dmn", new String(dmnContent, StandardCharsets.UTF_8)
+            .replace("&gt;=25", "&gt;=20").replace("&lt;25", "&lt;20").getBytes(StandardCharsets.UTF_8));
+        EngineSnapshot next = processEngine.getSnapshot();
+        assertNotSame(pinned, next);
+        assertSame(pinned.getPlan(), next.getPlan());
+        assertEquals(fileManager.getDefaultDmnHash(), next.getDmnHash());
+        assertNotEquals(pinned.getDmnHash(), next.getDmnHash());
+        assertEquals("Valid", processEngine.execute(new SimulationInput(false, 22.0)).getFinalStatus());
+
+        // Reloading the BPMN file publishes a new plan with the same decisions
+        processEngine.loadBpmnFile();
+        EngineSnapshot reloaded = processEngine.getSnapshot();
+        assertEquals(next.getDmnHash(), reloaded.getDmnHash());
+        assertEquals(next.getBpmnHash(), reloaded.getBpmnHash());
+    }
+
+    @Test
+    void testParallelGatewayRunsAllBranchesAndJoinsOnce() {
+        BpmnModelInstance model = Bpmn.createExecutableProcess("parallel")
+            .startEvent("start").name("Start")
+            .parallelGateway("fork").name("Fork")
+            .serviceTask("a").name("Branch A")
+            .parallelGateway("join").name("Join")
+            .serviceTask("status").name("Set Status (3000)")
+            .endEvent("end").name("End")
+            .moveToNode("fork").serviceTask("b").name("Branch B").connectTo("join")
+            .moveToNode("fork").serviceTask("c").name("Branch C").connectTo("join")
+            .done();
+        ProcessEngine engine = engineFor(model);
+
+        assertTrue(engine.getExecutionPlan().isConcurrent());
+        for (int i = 0; i < 20; i++) {
+            SimulationResult result = engine.execute(new SimulationInput(false, 30.0));
+            List<String> path = result.getExecutionPath();
+
+            assertTrue(path.containsAll(List.of("Branch A", "Branch B", "Branch C")));
+            assertEquals(1, path.stream().filter("Join"::equals).count());
+            assertEquals(1, path.stream().filter("End"::equals).count());
+            assertEquals("Valid", result.getFinalStatus());
+        }
+    }
+
+    @Test
+    void testInclusiveGatewayJoinsOnlyActivatedBranches() {
+        BpmnModelInstance model = Bpmn.createExecutableProcess("inclusive")
+            .startEvent("start").name("Start")
+            .inclusiveGateway("split").name("Split")
+            .condition("high", "=bi_dealMarginPercent >= 25")
+            .serviceTask("high").name("High Margin")
+            .inclusiveGateway("merge").name("Merge")
+            .endEvent("end").name("End")
+            .moveToNode("split").condition("manual", "=bi_manualPriceCost")
+            .serviceTask("manual").name("Manual Pricing").connectTo("merge")
+            .moveToNode("split").condition("low", "=bi_dealMarginPercent < 25")
+            .serviceTask("low").name("Low Margin").connectTo("merge")
+            .done();
+        ProcessEngine engine = engineFor(model);
+
+        List<String> both = engine.execute(new SimulationInput(true, 30.0)).getExecutionPath();
+        assertTrue(both.containsAll(List.of("High Margin", "Manual Pricing")));
+        assertFalse(both.contains("Low Margin"));
+        assertEquals(1, both.stream().filter("Merge"::equals).count());
+        assertEquals(1, both.stream().filter("End"::equals).count());
+
+        List<String> single = engine.execute(new SimulationInput(false, 10.0)).getExecutionPath();
+        assertEquals(List.of("Start", "Split", "Low Margin", "Merge", "End"), single);
+    }
+
+    @Test
+    void testInclusiveJoinStopsWaitingForBranchesThatEnd() {
+        BpmnModelInstance model = Bpmn.createExecutableProcess("earlyEnd")
+            .startEvent("start").name("Start")
+            .inclusiveGateway("split").name("Split")
+            .serviceTask("a").name("Task A")
+            .inclusiveGateway("merge").name("Merge")
+            .serviceTask("after").name("After Merge")
+            .endEvent("end").name("End")
+            .moveToNode("split")
+            .serviceTask("b").name("Task B")
+            .exclusiveGateway("check").name("Check")
+            .condition("manual", "=bi_manualPriceCost")
+            .endEvent("early").name("Early End")
+            .moveToNode("check").connectTo("merge")
+            .done();
+        ProcessEngine engine = engineFor(model);
+
+        for (boolean manual : new boolean[] {true, false}) {
+            List<String> path = engine.execute(new SimulationInput(manual, 30.0)).getExecutionPath();
+            assertEquals(1, path.stream().filter("Merge"::equals).count(), path.toString());
+            assertEquals(1, path.stream().filter("After Merge"::equals).count(), path.toString());
+            assertEquals(1, path.stream().filter("End"::equals).count(), path.toString());
+            assertEquals(manual, path.contains("Early End"), path.toString());
+        }
+    }
+
+    @Test
+    void testInclusiveGatewayTakesEveryUnconditionalFlow() {
+        BpmnModelInstance model = Bpmn.createExecutableProcess("unconditional")
+            .startEvent("start").name("Start")
+            .inclusiveGateway("split").name("Split")
+            .serviceTask("a").name("Task A")
+            .endEvent("endA").name("End A")
+            .moveToNode("split")
+            .serviceTask("b").name("Task B")
+            .endEvent("endB").name("End B")
+            .done();
+        ProcessEngine engine = engineFor(model);
+
+        List<String> path = engine.execute(new SimulationInput(false, 30.0)).getExecutionPath();
+        assertTrue(path.containsAll(List.of("Task A", "End A", "Task B", "End B")));
+    }
+
+    @Test
+    void testGatewayConditionsReadMappedAndUnsetVariables() {
+        BpmnModelInstance model = Bpmn.createExecutableProcess("mapped")
+            .startEvent("start").name("Start")
+            .serviceTask("prepare").name("Prepare Values for DMN")
+            .exclusiveGateway("gateway").name("Gateway")
+            .condition("unset", "=approvedBy != null")
+            .serviceTask("approved").name("Approved")
+            .endEvent("approvedEnd").name("Approved End")
+            .moveToNode("gateway").condition("high", "=dealMarginPercent >= 25 and not(manualPriceCost)")
+            .serviceTask("high").name("Set Status (3000)")
+            .endEvent("highEnd").name("High End")
+            .moveToNode("gateway").condition("low", "=dealMarginPercent < 25 or manualPriceCost")
+            .serviceTask("low").name("Set Status (4000)")
+            .endEvent("lowEnd").name("Low End")
+            .done();
+        ProcessEngine engine = engineFor(model);
+
+        SimulationResult high = engine.execute(new SimulationInput(false, 25.0));
+        assertTrue(high.getExecutionPath().contains("Set Status (3000)"));
+        assertEquals(25.0, high.getProcessVariables().get("dealMarginPercent"));
+        assertEquals(false, high.getProcessVariables().get("manualPriceCost"));
+        assertFalse(high.getProcessVariables().containsKey("approvedBy"));
+
+        SimulationResult low = engine.execute(new SimulationInput(true, 40.0));
+        assertTrue(low.getExecutionPath().contains("Set Status (4000)"));
+        assertFalse(low.getExecutionPath().contains("Approved"));
+    }
+
+    @Test
+    void testDataManipulationTaskHeadersAreApplied() {
+        String header = "<zeebe:taskDefinition type=\"data-manipulation\" /><zeebe:taskHeaders>%s</zeebe:taskHeaders>";
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:zeebe=\"http://camunda.org/schema/zeebe/1.0\" id=\"d\" targetNamespace=\"t\">"
+            + "<bpmn:process id=\"headers\" isExecutable=\"true\">"
+            + "<bpmn:startEvent id=\"start\" name=\"Start\"><bpmn:outgoing>f1</bpmn:outgoing></bpmn:startEvent>"
+            + "<bpmn:serviceTask id=\"compute\" name=\"Compute\"><bpmn:extensionElements>"
+            + String.format(header,
+                "<zeebe:header key=\"manipulation-1\" value=\"{&#34;target&#34;: &#34;doubled&#34;, &#34;expression&#34;: &#34;bi_dealMarginPercent * 2&#34;}\" />"
+                + "<zeebe:header key=\"manipulation-2\" value=\"{&#34;target&#34;: &#34;copy&#34;, &#34;expression&#34;: &#34;doubled&#34;}\" />")
+            + "</bpmn:extensionElements><bpmn:outgoing>f2</bpmn:outgoing></bpmn:serviceTask>"
+            + "<bpmn:exclusiveGateway id=\"gateway\" name=\"Gateway\" default=\"toLow\">"
+            + "<bpmn:outgoing>toHigh</bpmn:outgoing><bpmn:outgoing>toLow</bpmn:outgoing></bpmn:exclusiveGateway>"
+            + "<bpmn:serviceTask id=\"high\" name=\"Mark High\"><bpmn:extensionElements>"
+            + String.format(header,
+                "<zeebe:header key=\"manipulation-1\" value=\"{&#34;target&#34;: &#34;cim_Status&#34;, &#34;expression&#34;: &#34;\\&#34;High\\&#34;&#34;}\" />")
+            + "</bpmn:extensionElements><bpmn:outgoing>f3</bpmn:outgoing></bpmn:serviceTask>"
+            + "<bpmn:serviceTask id=\"low\" name=\"Mark Low\"><bpmn:extensionElements>"
+            + String.format(header,
+                "<zeebe:header key=\"manipulation-1\" value=\"{&#34;target&#34;: &#34;cim_Status&#34;, &#34;expression&#34;: &#34;\\&#34;Low\\&#34;&#34;}\" />")
+            + "</bpmn:extensionElements><bpmn:outgoing>f4</bpmn:outgoing></bpmn:serviceTask>"
+            + "<bpmn:endEvent id=\"end\" name=\"End\" />"
+            + "<bpmn:sequenceFlow id=\"f1\" sourceRef=\"start\" targetRef=\"compute\" />"
+            + "<bpmn:sequenceFlow id=\"f2\" sourceRef=\"compute\" targetRef=\"gateway\" />"
+            + "<bpmn:sequenceFlow id=\"toHigh\" sourceRef=\"gateway\" targetRef=\"high\">"
+            + "<bpmn:conditionExpression>=copy &gt;= 60</bpmn:conditionExpression></bpmn:sequenceFlow>"
+            + "<bpmn:sequenceFlow id=\"toLow\" sourceRef=\"gateway\" targetRef=\"low\" />"
+            + "<bpmn:sequenceFlow id=\"f3\" sourceRef=\"high\" targetRef=\"end\" />"
+            + "<bpmn:sequenceFlow id=\"f4\" sourceRef=\"low\" targetRef=\"end\" />"
+            + "</bpmn:process></bpmn:definitions>";
+        ProcessEngine engine = engineFor(Bpmn.readModelFromStream(
+            new java.io.ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))));
+
+        SimulationResult high = engine.execute(new SimulationInput(false, 30.0));
+        assertEquals("High", high.getFinalStatus());
+        assertEquals(60.0, high.getProcessVariables().get("doubled"));
+        assertEquals(60.0, high.getProcessVariables().get("copy"));
+
+        assertEquals("Low", engine.execute(new SimulationInput(false, 29.0)).getFinalStatus());
+    }
+
+    @Test
+    void testExecuteBatchStreamsEveryResult() {
+        Iterator<ProcessEngine.BatchInput> inputs = IntStream.range(0, 500)
+            .mapToObj(i -> new ProcessEngine.BatchInput(i, new SimulationInput(i % 5 == 0, (double) (i % 50))))
+            .iterator();
+        Map<String, Integer> statusCounts = new HashMap<>();
+        Set<Long> indexes = new HashSet<>();
+
+        processEngine.executeBatch(inputs, 16, (index, result) -> {
+            statusCounts.merge(result.getFinalStatus(), 1, Integer::sum);
+            indexes.add(index);
+        });
+
+        // Valid needs manualPriceCost=false and margin >= 25: i % 50 in [25, 50) and i % 5 != 0
+        assertEquals(200, statusCounts.get("Valid"));
+        assertEquals(300, statusCounts.get("Invalid"));
+        assertEquals(500, indexes.size());
+    }
+
+    @Test
+    void testBatchReportsUndeployedProcessPerInput() {
+        SimulationInput undeployed = new SimulationInput(false, 30.0);
+        undeployed.setProcessId("missing");
+        Iterator<ProcessEngine.BatchInput> inputs = List.of(
+            new ProcessEngine.BatchInput(0, new SimulationInput(false, 30.0)),
+            new ProcessEngine.BatchInput(1, undeployed),
+            new ProcessEngine.BatchInput(2, new SimulationInput(false, 10.0))).iterator();
+        Map<Long, String> outcomes = new HashMap<>();
+
+        processEngine.executeBatch(inputs, 2, new ProcessEngine.BatchConsumer() {
+            @Override
+            public void accept(long index, SimulationResult result) {
+                outcomes.put(index, result.getFinalStatus());
+            }
+
+            @Override
+            public void notDeployed(long index, NoSuchElementException e) {
+                outcomes.put(index, e.getMessage());
+            }
+        });
+
+        assertEquals(Map.of(0L, "Valid", 1L, "Process not deployed: missing", 2L, "Invalid"), outcomes);
+    }
+
+    @Test
+    void testCapturedTraceRecordsGatewayAndDmnEvents() {
+        SimulationResult untraced = processEngine.execute(new SimulationInput(false, 25.0));
+        assertNull(untraced.getTrace());
+
+        List<TraceEvent> trace = processEngine.execute(new SimulationInput(true, 30.0), true).getTrace();
+
+        assertNotNull(trace);
+        assertTrue(trace.stream().anyMatch(e -> e.getType() == TraceEvent.Type.NODE_ENTERED));
+        assertTrue(trace.stream().anyMatch(e -> e.getType() == TraceEvent.Type.DMN_RESULT
+            && "Invalid".equals(e.getDetail())));
+        assertTrue(trace.stream().anyMatch(e -> e.getType() == TraceEvent.Type.GATEWAY_CONDITION_MATCHED
+            || e.getType() == TraceEvent.Type.GATEWAY_DEFAULT_FLOW));
+        // Capturing one execution does not switch on the global buffers
+        assertFalse(Tracer.isEnabled(Tracer.Level.INFO));
+    }
+
+    @Test
+    void testRoutesByProcessIdToLatestOrGivenVersion() {
+        String bundledId = processEngine.getExecutionPlan().getProcessId();
+        fileManager.storeBpmnFile("fixed.bpmn", bpmn(fixedStatus("fixed", "Set Status (3000)")));
+        byte[] invalid = bpmn(fixedStatus("fixed", "Set Status (4000)"));
+        fileManager.storeBpmnFile("fixed.bpmn", invalid);
+        // Deploying the latest content again, even under another name, is not a new version
+        fileManager.storeBpmnFile("copy.bpmn", invalid);
+        processEngine.loadBpmnFile();
+
+        EngineSnapshot snapshot = processEngine.getSnapshot();
+        assertEquals(2, snapshot.getProcess("fixed", null).getVersion());
+        assertEquals("fixed.bpmn", snapshot.getProcess("fixed", null).getResourceName());
+        assertNull(snapshot.getProcess("fixed", 3));
+        assertEquals(1, snapshot.getProcess(bundledId, null).getVersion());
+        assertEquals(3, snapshot.getProcesses().size());
+
+        assertEquals("Invalid", processEngine.execute(routed(null, null)).getFinalStatus());
+        assertEquals("Invalid", processEngine.execute(routed("fixed", null)).getFinalStatus());
+        assertEquals("Valid", processEngine.execute(routed("fixed", 1)).getFinalStatus());
+        assertEquals("Valid", processEngine.execute(routed(bundledId, 1)).getFinalStatus());
+        assertThrows(NoSuchElementException.class, () -> processEngine.execute(routed("fixed", 3)));
+        assertThrows(NoSuchElementException.class, () -> processEngine.execute(routed("missing", null)));
+
+        // A rollback is the next version, running the old plan
+        fileManager.rollbackBpmnFile("fixed.bpmn", 1);
+        processEngine.loadBpmnFile();
+        assertEquals(3, processEngine.getSnapshot().getProcess("fixed", null).getVersion());
+        assertEquals("Valid", processEngine.execute(routed("fixed", null)).getFinalStatus());
+    }
+
+    @Test
+    void testProcessWithoutStartEventIsNotIndexed() {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" id=\"two\""
+            + " targetNamespace=\"http://bpmn.io/schema/bpmn\">"
+            + "<bpmn:process id=\"withStart\" isExecutable=\"true\">"
+            + "<bpmn:startEvent id=\"start\"><bpmn:outgoing>toStatus</bpmn:outgoing></bpmn:startEvent>"
+            + "<bpmn:sequenceFlow id=\"toStatus\" sourceRef=\"start\" targetRef=\"status\" />"
+            + "<bpmn:serviceTask id=\"status\" name=\"Set Status (3000)\"><bpmn:incoming>toStatus</bpmn:incoming>"
+            + "<bpmn:outgoing>toEnd</bpmn:outgoing></bpmn:serviceTask>"
+            + "<bpmn:sequenceFlow id=\"toEnd\" sourceRef=\"status\" targetRef=\"end\" />"
+            + "<bpmn:endEvent id=\"end\"><bpmn:incoming>toEnd</bpmn:incoming></bpmn:endEvent>"
+            + "</bpmn:process>"
+            + "<bpmn:process id=\"withoutStart\" isExecutable=\"true\">"
+            + "<bpmn:endEvent id=\"otherEnd\" />"
+            + "</bpmn:process>"
+            + "</bpmn:definitions>";
+        fileManager.storeBpmnFile("two.bpmn", xml.getBytes(StandardCharsets.UTF_8));
+        processEngine.loadBpmnFile();
+
+        EngineSnapshot snapshot = processEngine.getSnapshot();
+        assertNotNull(snapshot.getProcess("withStart", null));
+        // Not compiled from the start event of the other process
+        assertNull(snapshot.getProcess("withoutStart", null));
+        assertTrue(snapshot.getProcesses().stream().noneMatch(p -> p.getProcessId().equals("withoutStart")));
+        assertEquals("Valid", processEngine.execute(routed("withStart", null)).getFinalStatus());
+    }
+
+    @Test
+    void testProcessVersionsAreCompiledOnFirstRun() {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" id=\"lazy\""
+            + " targetNamespace=\"http://bpmn.io/schema/bpmn\">"
+            + "<bpmn:process id=\"broken\" isExecutable=\"true\">"
+            + "<bpmn:startEvent id=\"start\" /><bpmn:notAnElement id=\"x\" />"
+            + "</bpmn:process>"
+            + "</bpmn:definitions>";
+        fileManager.storeBpmnFile("broken.bpmn", xml.getBytes(StandardCharsets.UTF_8));
+        // Deployed before the bundled file, so only indexed, not compiled, by a new engine
+        fileManager.rollbackBpmnFile("entry-level-camunda-exercise-v1-0.bpmn", 1);
+        ProcessEngine engine = new ProcessEngine(fileManager, dmnEvaluator);
+
+        assertEquals(1, engine.getSnapshot().getProcess("broken", null).getVersion());
+        NoSuchElementException error = assertThrows(NoSuchElementException.class,
+            () -> engine.execute(routed("broken", null)));
+        assertTrue(error.getMessage().contains("does not compile"));
+        assertEquals("Valid", engine.execute(new SimulationInput(false, 30.0)).getFinalStatus());
+    }
+
+    private static SimulationInput routed(String processId, Integer version) {
+        SimulationInput input = new SimulationInput(false, 30.0);
+        input.setProcessId(processId);
+        input.setVersion(version);
+        return input;
+    }
+
+    private static BpmnModelInstance fixedStatus(String processId, String statusTask) {
+        return Bpmn.createExecutableProcess(processId)
+            .startEvent("start").name("Start")
+            .serviceTask("status").name(statusTask)
+            .endEvent("end").name("End")
+            .done();
+    }
+
+    private static byte[] bpmn(BpmnModelInstance model) {
+        return Bpmn.convertToString(model).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private ProcessEngine engineFor(BpmnModelInstance model) {
+        fileManager.clearAll();
+        fileManager.storeBpmnFile("model.bpmn", Bpmn.convertToString(model).getBytes(StandardCharsets.UTF_8));
+        fileManager.storeDmnFile("entry-level-camunda-exercise-v1-0.dmn", dmnContent);
+        return new ProcessEngine(fileManager, new DMNEvaluator(fileManager));
+    }
+
     /**
      * Automation test: runs all test scenarios, compares actual vs expected,
      * and reports "BPMN is valid" when all pass, "BPMN is invalid" otherwise.
@@ -117,5 +521,37 @@ class ProcessEngineTest {
                 .reduce((a, b) -> a + "; " + b).orElse("none"));
         assertEquals("BPMN is valid", result.getValidationMessage());
     }
-}
 
+    @Test
+    void testRuleEditRerunsOnlyAffectedScenarios() {
+        BpmnValidationRunner runner = new BpmnValidationRunner(processEngine);
+        assertEquals(BpmnValidationRunner.getTestScenarios().size(), runner.runAll().getRerunScenarios().size());
+
+        // Only the manual pricing scenarios matched the manual pricing rule
+        RuleEdit edit = dmnEvaluator.updateRule(dmnEvaluator.getDecisionKey(), "DecisionRule_0ueqfuw",
+            null, List.of("\"Valid\""));
+        BpmnValidationRunner.BpmnValidationResult result = runner.runAffected(edit);
+        assertEquals(List.of("Manual Pricing - Invalid", "Manual with Zero Margin", "Manual with High Margin"),
+            result.getRerunScenarios());
+        assertFalse(result.isAllPassed());
+        assertEquals(3, result.getScenarioResults().stream().filter(r -> !r.isPassed()).count());
+    }
+
+    @Test
+    void testRuleEditAfterDmnUploadRerunsEveryScenario() {
+        BpmnValidationRunner runner = new BpmnValidationRunner(processEngine);
+        runner.runAll();
+
+        // A new DMN file keeps the plan, but the earlier runs evaluated the old decisions
+        fileManager.storeDmnFile("entry-level-camunda-exercise-v1-0.dmn", new String(dmnContent, StandardCharsets.UTF_8)
+            .replace("&gt;=25", "&gt;=20").replace("&lt;25", "&lt;20").getBytes(StandardCharsets.UTF_8));
+        RuleEdit edit = dmnEvaluator.updateRule(dmnEvaluator.getDecisionKey(), "DecisionRule_0ueqfuw",
+            null, List.of("\"Valid\""));
+        BpmnValidationRunner.BpmnValidationResult result = runner.runAffected(edit);
+
+        assertEquals(BpmnValidationRunner.getTestScenarios().size(), result.getRerunScenarios().size());
+        assertTrue(result.getScenarioResults().stream()
+            .filter(r -> r.getScenarioName().equals("Just Below 25% - 24.9"))
+            .allMatch(r -> "Valid".equals(r.getActual())));
+    }
+}
@@ -0,0 +1,49 @@
+package com.camunda.simulator;
+
+import com.camunda.simulator.model.TestScenario;
+import com.camunda.simulator.service.DMNEvaluator;
+import com.camunda.simulator.service.FileManager;
+import com.camunda.simulator.service.ProcessEngine;
+import com.camunda.simulator.service.ScenarioGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScenarioGeneratorTest {
+
+    @Test
+    void coversEveryRuleAndFlowOfBundledModel() throws IOException {
+        FileManager fileManager = new FileManager();
+        try (InputStream dmn = getClass().getClassLoader()
+                .getResourceAsStream("static/entry-level-camunda-exercise-v1-0 (1).dmn");
+             InputStream bpmn = getClass().getClassLoader()
+                .getResourceAsStream("static/entry-level-camunda-exercise-v1-0.bpmn")) {
+            fileManager.storeDmnFile("entry-level-camunda-exercise-v1-0.dmn", dmn.readAllBytes());
+            fileManager.storeBpmnFile("entry-level-camunda-exercise-v1-0.bpmn", bpmn.readAllBytes());
+        }
+        DMNEvaluator dmnEvaluator = new DMNEvaluator(fileManager);
+        ProcessEngine processEngine = new ProcessEngine(fileManager, dmnEvaluator);
+
+        ScenarioGenerator.GenerationResult result = new ScenarioGenerator(processEngine).generate();
+
+        // One scenario per rule is the minimum; together they traverse every flow
+        assertEquals(3, result.getScenarios().size());
+        assertTrue(result.getUnreachableRules().isEmpty());
+        assertTrue(result.getUnreachableFlows().isEmpty());
+        assertTrue(result.getExecutions() <= 12, "executions: " + result.getExecutions());
+
+        Set<String> statuses = result.getScenarios().stream()
+            .map(TestScenario::getExpectedResult).collect(Collectors.toSet());
+        assertEquals(Set.of("Valid", "Invalid"), statuses);
+        // The margin threshold is tested on its boundary and just below it
+        Set<Double> margins = result.getScenarios().stream()
+            .filter(s -> !s.getInputs().getManualPriceCost())
+            .map(s -> s.getInputs().getDealMarginPercent()).collect(Collectors.toSet());
+        assertEquals(Set.of(25.0, 24.99), margins);
+    }
+}
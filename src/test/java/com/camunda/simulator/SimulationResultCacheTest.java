@@ -0,0 +1,86 @@
+package com.camunda.simulator;
+
+import com.camunda.simulator.model.SimulationInput;
+import com.camunda.simulator.model.SimulationResult;
+import com.camunda.simulator.service.DMNEvaluator;
+import com.camunda.simulator.service.FileManager;
+import com.camunda.simulator.service.ProcessEngine;
+import com.camunda.simulator.service.SimulationResultCache;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationResultCacheTest {
+
+    private static SimulationResult result(String status) {
+        return new SimulationResult(null, null, List.of(), status, Map.of());
+    }
+
+    @Test
+    void repeatedInputsAreServedFromCache() {
+        SimulationResultCache cache = new SimulationResultCache();
+        AtomicInteger computed = new AtomicInteger();
+
+        SimulationResult first = cache.get("b", "d", new SimulationInput(false, 0.0),
+            () -> { computed.incrementAndGet(); return result("Valid"); });
+        SimulationResult second = cache.get("b", "d", new SimulationInput(false, -0.0),
+            () -> { computed.incrementAndGet(); return result("Valid"); });
+        cache.get("b", "other", new SimulationInput(false, 0.0),
+            () -> { computed.incrementAndGet(); return result("Invalid"); });
+
+        assertSame(first, second);
+        assertEquals(2, computed.get());
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(2, cache.getStats().getMisses());
+        assertEquals(2, cache.getStats().getEntries());
+    }
+
+    @Test
+    void boundedByEntriesAndInvalidatedOnUpload() {
+        SimulationResultCache cache = new SimulationResultCache(8, Long.MAX_VALUE);
+        for (int i = 0; i < 100; i++) {
+            cache.get("b", "d", new SimulationInput(true, (double) i), () -> result("Invalid"));
+        }
+        assertEquals(8, cache.getStats().getEntries());
+        assertEquals(92, cache.getStats().getEvictions());
+
+        cache.invalidate();
+        assertEquals(0, cache.getStats().getEntries());
+        assertEquals(0, cache.getStats().getWeight());
+    }
+
+    @Test
+    void engineKeysResultsByFileContent() throws IOException {
+        FileManager fileManager = new FileManager();
+        byte[] dmn;
+        try (InputStream in = getClass().getClassLoader()
+                .getResourceAsStream("static/entry-level-camunda-exercise-v1-0 (1).dmn");
+             InputStream bpmn = getClass().getClassLoader()
+                .getResourceAsStream("static/entry-level-camunda-exercise-v1-0.bpmn")) {
+            dmn = in.readAllBytes();
+            fileManager.storeDmnFile("decision.dmn", dmn);
+            fileManager.storeBpmnFile("process.bpmn", bpmn.readAllBytes());
+        }
+        SimulationResultCache cache = new SimulationResultCache();
+        ProcessEngine engine = new ProcessEngine(fileManager, new DMNEvaluator(fileManager),
+            ForkJoinPool.commonPool(), cache);
+
+        SimulationResult first = engine.execute(new SimulationInput(false, 30.0));
+        assertSame(first, engine.execute(new SimulationInput(false, 30.0)));
+        assertEquals("Valid", first.getFinalStatus());
+
+        // Same content stored again keeps the key; different content misses
+        fileManager.storeDmnFile("decision.dmn", dmn.clone());
+        assertSame(first, engine.execute(new SimulationInput(false, 30.0)));
+        fileManager.storeDmnFile("decision.dmn", (new String(dmn) + "\n").getBytes());
+        assertNotSame(first, engine.execute(new SimulationInput(false, 30.0)));
+        assertEquals(2, cache.getStats().getHits());
+    }
+}
@@ -0,0 +1,123 @@
+package com.camunda.simulator;
+
+import com.camunda.simulator.http.SimulatorHttpHandler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatorHttpHandlerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimulatorHttpHandler handler;
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException, InterruptedException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        handler = new SimulatorHttpHandler();
+        server.createContext("/api", handler);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        try (InputStream dmnStream = getClass().getClassLoader()
+                .getResourceAsStream("static/entry-level-camunda-exercise-v1-0 (1).dmn")) {
+            assertNotNull(dmnStream);
+            assertEquals(200, post("/api/upload/dmn", dmnStream.readAllBytes()).statusCode());
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.stop(0);
+        handler.close();
+    }
+
+    @Test
+    void repeatedSimulationsAreServedFromResultCache() throws IOException, InterruptedException {
+        byte[] input = "{\"manualPriceCost\": false, \"dealMarginPercent\": 30}".getBytes();
+        HttpResponse<String> first = post("/api/simulate", input);
+        assertEquals(200, first.statusCode());
+        long hits = cacheHits();
+
+        HttpResponse<String> second = post("/api/simulate", input);
+        assertEquals(200, second.statusCode());
+        assertEquals(first.body(), second.body());
+        assertEquals(hits + 1, cacheHits());
+
+        // A traced simulation is never served from the cache
+        assertEquals(200, post("/api/simulate?trace=true", input).statusCode());
+        assertEquals(hits + 1, cacheHits());
+    }
+
+    @Test
+    void batchLinesCarryTheElementIndex() throws IOException, InterruptedException {
+        byte[] body = ("{\"manualPriceCost\": false, \"dealMarginPercent\": 30}\n"
+            + "{\"manualPriceCost\": \"no\"}\n"
+            + "{\"manualPriceCost\": false, \"dealMarginPercent\": 30, \"processId\": \"missing\"}\n"
+            + "{\"manualPriceCost\": false, \"dealMarginPercent\": 10}\n").getBytes();
+        HttpResponse<String> response = post("/api/simulate/batch", body);
+        assertEquals(200, response.statusCode());
+
+        Map<Integer, JsonNode> lines = new HashMap<>();
+        for (String line : response.body().split("\n")) {
+            JsonNode node = objectMapper.readTree(line);
+            lines.put(node.get("index").asInt(), node);
+        }
+        assertEquals(4, lines.size());
+        assertEquals("Valid", lines.get(0).get("result").get("finalStatus").asText());
+        assertTrue(lines.get(1).get("error").asText().startsWith("Invalid input"));
+        assertEquals("Process not deployed: missing", lines.get(2).get("error").asText());
+        assertEquals("Invalid", lines.get(3).get("result").get("finalStatus").asText());
+    }
+
+    @Test
+    void onlyUploadsCreateWorkspaces() throws IOException, InterruptedException {
+        assertEquals(404, get("/api/w/made-up/files").statusCode());
+        assertEquals(404, post("/api/w/made-up/simulate",
+            "{\"manualPriceCost\": false, \"dealMarginPercent\": 30}".getBytes()).statusCode());
+
+        try (InputStream dmnStream = getClass().getClassLoader()
+                .getResourceAsStream("static/entry-level-camunda-exercise-v1-0 (1).dmn")) {
+            assertEquals(200, post("/api/w/team-a/upload/dmn", dmnStream.readAllBytes()).statusCode());
+        }
+        assertEquals(200, get("/api/w/team-a/files").statusCode());
+        // The tracer is shared by all workspaces, so none of them serves it
+        assertEquals(404, get("/api/w/team-a/trace").statusCode());
+        assertEquals(404, post("/api/w/team-a/trace?level=INFO", new byte[0]).statusCode());
+        assertEquals(200, get("/api/trace").statusCode());
+        JsonNode workspaces = objectMapper.readTree(get("/api/workspaces").body()).get("workspaces");
+        assertEquals(2, workspaces.size());
+    }
+
+    private long cacheHits() throws IOException, InterruptedException {
+        JsonNode stats = objectMapper.readTree(get("/api/cache").body());
+        return stats.get("hits").asLong();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, byte[] body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
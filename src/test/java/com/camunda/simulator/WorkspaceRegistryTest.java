@@ -0,0 +1,90 @@
+package com.camunda.simulator;
+
+import com.camunda.simulator.model.SimulationInput;
+import com.camunda.simulator.service.WorkspaceEngine;
+import com.camunda.simulator.service.WorkspaceRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceRegistryTest {
+
+    private byte[] dmnContent;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream dmnStream = getClass().getClassLoader()
+                .getResourceAsStream("static/entry-level-camunda-exercise-v1-0 (1).dmn")) {
+            assertNotNull(dmnStream);
+            dmnContent = dmnStream.readAllBytes();
+        }
+    }
+
+    @Test
+    void workspacesHaveTheirOwnModels() throws IOException {
+        WorkspaceRegistry registry = new WorkspaceRegistry(null, WorkspaceRegistry.DEFAULT_MAX_WEIGHT);
+        WorkspaceEngine first = registry.createEngine("team-a");
+        deployDmn(first);
+
+        assertSame(first, registry.engine("team-a"));
+        assertTrue(first.getDmnEvaluator().isDmnLoaded());
+        assertFalse(registry.createEngine("team-b").getDmnEvaluator().isDmnLoaded());
+        assertFalse(registry.engine(WorkspaceRegistry.DEFAULT_WORKSPACE).getFileManager().hasDmnFiles());
+
+        assertThrows(IllegalArgumentException.class, () -> registry.engine("../team-a"));
+        assertThrows(IllegalArgumentException.class, () -> registry.engine(""));
+        assertThrows(NoSuchElementException.class, () -> registry.engine("team-c"));
+        assertEquals(3, registry.getStats().getWorkspaces());
+    }
+
+    @Test
+    void evictedEnginesAreCompiledAgainFromStoredFiles() throws IOException {
+        // Too small for two engines: using one evicts the other
+        WorkspaceRegistry registry = new WorkspaceRegistry(null, 1);
+        WorkspaceEngine first = registry.createEngine("team-a");
+        deployDmn(first);
+        registry.createEngine("team-b");
+        assertEquals(1, registry.getStats().getCompiled());
+        assertEquals(1, registry.getStats().getEvictions());
+
+        WorkspaceEngine recompiled = registry.engine("team-a");
+        assertNotSame(first, recompiled);
+        assertTrue(recompiled.getDmnEvaluator().isDmnLoaded());
+        assertEquals("Invalid",
+            recompiled.getProcessEngine().execute(new SimulationInput(false, 20.0)).getFinalStatus());
+        assertEquals(3, registry.getStats().getCompilations());
+        assertEquals(2, registry.getStats().getEvictions());
+        assertEquals(recompiled.getWeight(), registry.getStats().getWeight());
+    }
+
+    @Test
+    void restoresWorkspacesFromDataDirectory(@TempDir Path dataDirectory) throws IOException {
+        try (WorkspaceRegistry registry = new WorkspaceRegistry(dataDirectory, WorkspaceRegistry.DEFAULT_MAX_WEIGHT)) {
+            deployDmn(registry.createEngine("team-a"));
+        }
+
+        try (WorkspaceRegistry restored = new WorkspaceRegistry(dataDirectory, WorkspaceRegistry.DEFAULT_MAX_WEIGHT)) {
+            assertTrue(restored.getWorkspaceNames().contains("team-a"));
+            assertTrue(restored.engine("team-a").getDmnEvaluator().isDmnLoaded());
+            assertFalse(restored.engine(WorkspaceRegistry.DEFAULT_WORKSPACE).getFileManager().hasDmnFiles());
+
+            // Reading an unknown workspace neither creates it nor leaves anything on disk
+            assertThrows(NoSuchElementException.class, () -> restored.engine("made-up"));
+            assertFalse(Files.exists(dataDirectory.resolve("workspaces").resolve("made-up")));
+            assertFalse(restored.getWorkspaceNames().contains("made-up"));
+        }
+    }
+
+    private void deployDmn(WorkspaceEngine engine) {
+        engine.getFileManager().storeDmnFile("decision.dmn", dmnContent);
+        engine.getDmnEvaluator().loadDmnFile();
+    }
+}